@@ -0,0 +1,89 @@
+#!/usr/bin/env bash
+#
+# Compara el arranque del jar por defecto contra el build AOT + CDS (perfil "startup").
+# Por cada corrida mide el tiempo desde que se lanza la JVM hasta la primera petición
+# exitosa (HTTP 200 en /orders/user/{id}/simple, pasa por seguridad, JPA y Jackson)
+# y el RSS del proceso en ese momento.
+#
+# Uso (desde la raíz del proyecto):
+#   scripts/startup-benchmark.sh [corridas]
+#
+# El script compila con -Pstartup antes de medir (SKIP_BUILD=1 para reutilizar target/).
+# Con AOT las condiciones de autoconfiguración se fijan al compilar, por eso el usuario de prueba
+# se pasa también al proceso AOT; sin eso el build AOT no tendría usuario básico y daría 401.
+#
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+TARGET=${TARGET:-target}
+JAR_NAME=${JAR_NAME:-back-orders-1.0.0}
+
+# Usuario básico de Spring Security (sin JWT configurado) cuyo nombre coincide con el userId
+USER=bench
+
+if [ "${SKIP_BUILD:-0}" != "1" ]; then
+    mvn -B -q -Pstartup package -DskipTests \
+        -Dspring-boot.aot.jvmArguments="-Dspring.security.user.name=$USER -Dspring.security.user.password=$USER" \
+        > /dev/null
+fi
+
+DEFAULT_JAR="$TARGET/$JAR_NAME-exec.jar"
+THIN_JAR="$TARGET/$JAR_NAME.jar"
+CDS_ARCHIVE="$TARGET/application.jsa"
+
+for f in "$DEFAULT_JAR" "$THIN_JAR" "$CDS_ARCHIVE"; do
+    if [ ! -f "$f" ]; then
+        echo "No existe $f: falló el build con -Pstartup" >&2
+        exit 1
+    fi
+done
+
+URL="http://localhost:$PORT/orders/user/$USER/simple"
+APP_ARGS=(--server.port="$PORT" --spring.security.user.name="$USER" --spring.security.user.password="$USER")
+
+# Imprime "<ms> <rss_kb>" de una corrida
+measure() {
+    local start end pid code rss
+    start=$(date +%s%N)
+    "$@" "${APP_ARGS[@]}" > /dev/null 2>&1 &
+    pid=$!
+
+    while true; do
+        code=$(curl -s -o /dev/null -w '%{http_code}' -u "$USER:$USER" "$URL" || true)
+        [ "$code" = "200" ] && break
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "La aplicación terminó antes de responder" >&2
+            exit 1
+        fi
+        if [ $(( ($(date +%s%N) - start) / 1000000000 )) -ge "${TIMEOUT:-180}" ]; then
+            kill "$pid"
+            echo "Sin respuesta 200 tras ${TIMEOUT:-180}s (último código: $code)" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    end=$(date +%s%N)
+    rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo "$(( (end - start) / 1000000 )) $rss"
+}
+
+run() {
+    local label=$1
+    shift
+    local results=()
+    for i in $(seq 1 "$RUNS"); do
+        results+=("$(measure "$@")")
+        echo "  $label #$i: ${results[-1]% *} ms, RSS ${results[-1]#* } KB" >&2
+    done
+    printf '%s\n' "${results[@]}" | awk -v label="$label" '
+        { ms += $1; rss += $2; n++ }
+        END { printf "%-10s primera petición: %6.0f ms   RSS: %7.0f KB   (%d corridas)\n", label, ms / n, rss / n, n }'
+}
+
+echo "Midiendo $RUNS corridas por variante..." >&2
+run "default" java -jar "$DEFAULT_JAR"
+run "aot+cds" java -XX:SharedArchiveFile="$CDS_ARCHIVE" -Xlog:cds=off -Dspring.aot.enabled=true -jar "$THIN_JAR"
@@ -1,7 +1,20 @@
 package com.example.backorders.controller;
 
+import com.example.backorders.codec.BinaryMediaTypes;
+import com.example.backorders.dto.BulkStatusUpdateRequestDTO;
+import com.example.backorders.dto.OrderDetailDTO;
+import com.example.backorders.dto.OrderSummaryDTO;
+import com.example.backorders.dto.ReceiptJobDTO;
 import com.example.backorders.model.Order;
+import com.example.backorders.service.OrderHistoryCache;
+import com.example.backorders.service.OrderIngestionService;
+import com.example.backorders.service.OrderMetricsRollup;
 import com.example.backorders.service.OrderService;
+import com.example.backorders.service.PaymentReconciliationService;
+import com.example.backorders.service.ReceiptJobService;
+import com.example.backorders.service.ReceiptStore;
+import com.example.backorders.service.ShardedOrderService;
+import com.example.backorders.exceptions.ErrorBodies;
 import com.example.backorders.exceptions.OrderStateException;
 import java.util.Map;
 
@@ -9,23 +22,50 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
 import java.security.Principal;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/orders")
 public class OrderController {
 
+    // Todo acceso a la base pasa por ShardedOrderService; OrderService solo se usa para el PDF
+    private final ShardedOrderService orders;
     private final OrderService orderService;
-
-    public OrderController(OrderService orderService) {
+    private final ReceiptJobService receiptJobService;
+    private final OrderIngestionService ingestionService;
+    private final OrderHistoryCache historyCache;
+    private final OrderMetricsRollup metrics;
+    private final PaymentReconciliationService reconciliationService;
+
+    public OrderController(ShardedOrderService orders, OrderService orderService,
+                           @Lazy ReceiptJobService receiptJobService,
+                           @Lazy OrderIngestionService ingestionService,
+                           OrderHistoryCache historyCache,
+                           OrderMetricsRollup metrics,
+                           @Lazy PaymentReconciliationService reconciliationService) {
+        this.orders = orders;
         this.orderService = orderService;
+        this.receiptJobService = receiptJobService;
+        this.ingestionService = ingestionService;
+        this.historyCache = historyCache;
+        this.metrics = metrics;
+        this.reconciliationService = reconciliationService;
     }
 
     // ======================
@@ -33,7 +73,8 @@ public class OrderController {
     // ======================
     @GetMapping("/{orderId}")
     public ResponseEntity<?> getOrderDetails(@PathVariable Long orderId) {
-        Optional<Order> order = orderService.getOrderById(orderId);
+        // Copia tomada en una transacción corta: la conexión ya está libre cuando Jackson serializa
+        Optional<OrderDetailDTO> order = orders.getOrderDetails(orderId);
 
         if (order.isPresent()) {
             return ResponseEntity.ok(order.get());
@@ -47,7 +88,7 @@ public class OrderController {
     // ======================
     @PatchMapping("/{orderId}/cancel")
     public ResponseEntity<?> cancelOrder(@PathVariable Long orderId) {
-        Optional<Order> cancelledOrder = orderService.cancelOrder(orderId);
+        Optional<OrderDetailDTO> cancelledOrder = orders.cancelOrder(orderId);
 
         if (cancelledOrder.isPresent()) {
             return ResponseEntity.ok(cancelledOrder.get());
@@ -67,6 +108,7 @@ public class OrderController {
             @RequestParam(required = false) String fechaInicio,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
             Principal principal) {
 
         try {
@@ -81,8 +123,16 @@ public class OrderController {
                 return ResponseEntity.status(403).body(Map.of("error", "No autorizado para ver estas órdenes"));
             }
 
+            // La primera página es la consulta más frecuente: se sirve ya serializada desde el cache.
+            // El cache guarda JSON; CBOR/Protobuf (servicios internos) van por la negociación de contenido
+            if (page == 0 && !BinaryMediaTypes.prefersBinary(accept)) {
+                byte[] body = historyCache.getOrLoad("completa", userId, status, fechaInicio, size,
+                        () -> orders.getOrdersByUserId(userId, status, fechaInicio, 0, size));
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+            }
+
             // Llama al servicio
-            var ordersPage = orderService.getOrdersByUserId(userId, status, fechaInicio, page, size);
+            var ordersPage = orders.getOrdersByUserId(userId, status, fechaInicio, page, size);
         return ResponseEntity.ok(ordersPage);
 
         } catch (Exception e) {
@@ -92,6 +142,24 @@ public class OrderController {
    }
 
 
+    // Protobuf: mismo historial con el tipo declarado, que es lo que mira el convertidor para saber
+    // que la página es de resúmenes de órdenes. JSON y CBOR siguen por el método de arriba
+    @GetMapping(value = "/user/{userId}/completa", produces = "application/x-protobuf")
+    public ResponseEntity<Page<OrderSummaryDTO>> getOrdersByUserProtobuf(
+            @PathVariable String userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String fechaInicio,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            Principal principal) {
+        if (principal == null || !principal.getName().equals(userId)) {
+            return ResponseEntity.status(403).build();
+        }
+
+        return ResponseEntity.ok(orders.getOrdersByUserId(userId, status, fechaInicio, page, size));
+    }
+
+
     // ======================
     // GET /orders/user/{userId} - historial del usuario autenticado
     // ruta simple sin filtros
@@ -103,7 +171,8 @@ public class OrderController {
                     .body(Map.of("error", "No autorizado"));
         }
 
-        return ResponseEntity.ok(orderService.getOrdersByUserId(userId));
+        byte[] body = historyCache.getOrLoad("simple", userId, null, null, 0, () -> orders.getOrdersByUserId(userId));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @PatchMapping("/{orderId}/confirm-delivery")
@@ -113,22 +182,127 @@ public class OrderController {
         }
 
         try {
-            Optional<Order> confirmed = orderService.confirmDelivery(orderId, principal.getName());
+            Optional<OrderDetailDTO> confirmed = orders.confirmDelivery(orderId, principal.getName());
             if (!confirmed.isPresent()) {
                 return ResponseEntity.notFound().build();
             }
             return ResponseEntity.ok(confirmed.get());
         } catch (OrderStateException ex) {
             return ResponseEntity.status(409)
-                .body(Map.of(
-          
-                "error", ex.getMessage(),
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ErrorBodies.cached(
+                    "error", ex.getMessage(),
                     "currentState", ex.getCurrentState(),
                     "requiredState", ex.getRequiredState()
                 ));
         }
     }
 
+    // ======================
+    // PATCH /orders/status - transición en bloque (integración de logística)
+    // ======================
+    @PatchMapping("/status")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LOGISTICS')")
+    public ResponseEntity<?> bulkUpdateStatus(@RequestBody BulkStatusUpdateRequestDTO request, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
+        }
+
+        // Estado destino inválido o lista vacía -> IllegalArgumentException -> 400 (GlobalExceptionHandler)
+        return ResponseEntity.ok(orders.bulkTransition(request.getTargetStatus(), request.getOrderIds()));
+    }
+
+    // ======================
+    // POST /orders/bulk - carga masiva de órdenes (NDJSON, una orden por línea)
+    // ======================
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'MIGRATION')")
+    public ResponseEntity<?> ingestOrders(InputStream body, Principal principal) throws IOException {
+        if (principal == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
+        }
+
+        // Las líneas con error se informan en la respuesta; el resto del lote se guarda igual
+        return ResponseEntity.ok(ingestionService.ingest(body));
+    }
+
+    // ======================
+    // GET /orders/filter - filtro de administración por estado y rango de fechas
+    // ======================
+    @GetMapping("/filter")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<OrderSummaryDTO>> getOrdersByFilter(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate) {
+        // Sin usuario autenticado @PreAuthorize corta antes; el tipo declarado es el que habilita Protobuf
+        // Fechas inválidas -> IllegalArgumentException -> 400 (GlobalExceptionHandler)
+        return ResponseEntity.ok(orders.getOrdersByFilter(status, startDate, endDate));
+    }
+
+    // ======================
+    // GET /orders/by-product/{productId} - órdenes que contienen un producto
+    // ======================
+    @GetMapping("/by-product/{productId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getOrdersByProduct(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String fechaInicio,
+            @RequestParam(required = false) String fechaFin,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
+        }
+
+        return ResponseEntity.ok(orders.getOrdersByProduct(productId, status, fechaInicio, fechaFin, cursor, size));
+    }
+
+    // ======================
+    // GET /orders/metrics/daily - cantidad e importe por día y estado (dashboards)
+    // ======================
+    @GetMapping("/metrics/daily")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getDailyMetrics(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(required = false) String status,
+            Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
+        }
+
+        // Sale de los agregados en memoria + order_daily_stats, no de la tabla de órdenes
+        return ResponseEntity.ok(metrics.daily(from, to, status));
+    }
+
+    @PostMapping("/metrics/daily/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildDailyMetrics(Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
+        }
+
+        metrics.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+
+    // ======================
+    // POST /orders/reconciliation?file=... - concilia las órdenes pagadas con la liquidación de la pasarela
+    // ======================
+    @PostMapping("/reconciliation")
+    @PreAuthorize("hasAnyRole('ADMIN', 'FINANCE')")
+    public ResponseEntity<?> reconcilePayments(@RequestParam String file, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
+        }
+
+        // Síncrono: el archivo se lee en paralelo y el detalle completo queda en el CSV del reporte
+        return ResponseEntity.ok(reconciliationService.reconcile(file));
+    }
+
     // ==============================================================
     // HU-5: VER RECIBO DE PAGO (PDF)
     // ==============================================================
@@ -142,20 +316,20 @@ public class OrderController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        // 2. Buscar orden
-        Optional<Order> orderOpt = orderService.getOrderById(orderId);
+        // 2. Buscar orden (copia inmutable; la conexión se libera antes de renderizar)
+        Optional<OrderDetailDTO> orderOpt = orders.getOrderDetails(orderId);
         if (orderOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-    Order order = orderOpt.get();
+        OrderDetailDTO order = orderOpt.get();
 
         // 3. Validar propietario y estado de pago
         if (!order.getUserId().toString().equals(principal.getName())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        if (!"pagada".equalsIgnoreCase(order.getStatus())) {
+        if (!Order.STATUS_PAID.equalsIgnoreCase(order.getStatus())) {
             return ResponseEntity.badRequest()
                     .body("La orden no está pagada".getBytes());
        }
@@ -171,5 +345,76 @@ public class OrderController {
         return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
     }
 
-}
+    // ==============================================================
+    // RECIBO ASÍNCRONO: se pide, se obtiene un jobId y se descarga cuando está listo
+    // ==============================================================
+    @PostMapping("/{orderId}/receipt/jobs")
+    public ResponseEntity<?> requestReceipt(@PathVariable Long orderId, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
 
+        Optional<OrderDetailDTO> orderOpt = orders.getOrderDetails(orderId);
+        if (orderOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        OrderDetailDTO order = orderOpt.get();
+        if (!order.getUserId().equals(principal.getName())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        if (!Order.STATUS_PAID.equalsIgnoreCase(order.getStatus())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "La orden no está pagada"));
+        }
+
+        ReceiptJobDTO job;
+        try {
+            job = receiptJobService.submit(order);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Demasiados recibos en cola, intente más tarde"));
+        }
+
+        HttpStatus status = ReceiptJobDTO.READY.equals(job.getEstado()) ? HttpStatus.OK : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.LOCATION, "/orders/" + orderId + "/receipt/jobs/" + job.getJobId())
+                .body(job);
+    }
+
+    @GetMapping("/{orderId}/receipt/jobs/{jobId}")
+    public ResponseEntity<?> getReceiptJob(@PathVariable Long orderId, @PathVariable String jobId, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        return receiptJobService.getJob(orderId, jobId, principal.getName())
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{orderId}/receipt/jobs/{jobId}/pdf")
+    public ResponseEntity<?> downloadReceipt(@PathVariable Long orderId, @PathVariable String jobId, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        Optional<ReceiptStore.Entry> receipt = receiptJobService.findReceipt(orderId, jobId, principal.getName());
+        if (receipt.isEmpty()) {
+            // Todavía en proceso (202) o job desconocido (404)
+            return receiptJobService.getJob(orderId, jobId, principal.getName())
+                    .<ResponseEntity<?>>map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(job))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        }
+
+        ReceiptStore.Entry entry = receipt.get();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDispositionFormData("attachment", "recibo_orden_" + orderId + ".pdf");
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentLength(entry.size());
+
+        StreamingResponseBody body = out -> receiptJobService.transferReceipt(entry, Channels.newChannel(out));
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.example.backorders.controller;
+
+import com.example.backorders.dto.ProductStockDTO;
+import com.example.backorders.dto.ProductStockUpdateRequestDTO;
+import com.example.backorders.service.ProductStockService;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/products")
+public class ProductController {
+
+    private final ProductStockService stockService;
+
+    public ProductController(ProductStockService stockService) {
+        this.stockService = stockService;
+    }
+
+    // ======================
+    // STOCK POR SHARD
+    // ======================
+    @GetMapping("/{productId}/stock")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getStock(@PathVariable Long productId, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
+        }
+
+        Optional<ProductStockDTO> stock = stockService.getStock(productId);
+        if (stock.isPresent()) {
+            return ResponseEntity.ok(stock.get());
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // El stock total se reparte entre los shards; es la única forma de fijarlo
+    @PutMapping("/{productId}/stock")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> setStock(@PathVariable Long productId,
+                                      @RequestBody ProductStockUpdateRequestDTO request,
+                                      Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
+        }
+        if (request == null || request.getStock() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "stock es obligatorio"));
+        }
+
+        Optional<ProductStockDTO> stock = stockService.setTotalStock(productId, request.getStock());
+        if (stock.isPresent()) {
+            return ResponseEntity.ok(stock.get());
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
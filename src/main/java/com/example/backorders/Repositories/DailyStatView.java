@@ -0,0 +1,13 @@
+package com.example.backorders.Repositories;
+
+import java.time.LocalDate;
+
+/**
+ * Fila agregada (día, estado) calculada desde orders.
+ */
+public interface DailyStatView {
+    LocalDate getStatDate();
+    String getStatus();
+    Long getOrderCount();
+    Long getRevenueCents();
+}
@@ -0,0 +1,9 @@
+package com.example.backorders.Repositories;
+
+/**
+ * Id y total de una orden, para cargar órdenes pagadas en la conciliación sin entidades.
+ */
+public interface OrderAmountView {
+    Long getId();
+    long getTotalCents();
+}
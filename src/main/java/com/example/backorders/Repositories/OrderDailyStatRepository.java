@@ -0,0 +1,30 @@
+package com.example.backorders.Repositories;
+
+import com.example.backorders.model.OrderDailyStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+
+public interface OrderDailyStatRepository extends JpaRepository<OrderDailyStat, OrderDailyStat.Key> {
+
+    // Suma un delta a la fila; devuelve 0 si la fila todavía no existe
+    @Modifying
+    @Query("""
+        UPDATE OrderDailyStat s
+        SET s.orderCount = s.orderCount + :orders, s.revenueCents = s.revenueCents + :cents
+        WHERE s.statDate = :day AND s.status = :status
+    """)
+    int addDelta(
+        @Param("day") LocalDate day,
+        @Param("status") String status,
+        @Param("orders") long orders,
+        @Param("cents") long cents
+    );
+
+    @Modifying
+    @Query("DELETE FROM OrderDailyStat s")
+    int deleteAllStats();
+}
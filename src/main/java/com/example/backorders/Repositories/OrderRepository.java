@@ -3,9 +3,16 @@ package com.example.backorders.Repositories;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import com.example.backorders.dto.ProductOrderDTO;
 import com.example.backorders.model.Order;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Date;
 
@@ -43,7 +50,164 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
         @Param("start") Date start,
         @Param("end") Date end
     );
-}
 
+    // Historial paginado de un usuario con estado y fecha desde opcionales (NULL = sin filtro).
+    // COUNT explícito: el derivado de Spring Data arrastraría el ORDER BY
+    @Query(value = """
+        SELECT o FROM Order o
+        WHERE o.userId = :userId
+          AND (:status IS NULL OR LOWER(o.status) = LOWER(:status))
+          AND (:fecha IS NULL OR o.createdAt >= :fecha)
+        ORDER BY o.createdAt DESC, o.id DESC
+    """, countQuery = """
+        SELECT COUNT(o) FROM Order o
+        WHERE o.userId = :userId
+          AND (:status IS NULL OR LOWER(o.status) = LOWER(:status))
+          AND (:fecha IS NULL OR o.createdAt >= :fecha)
+    """)
+    Page<Order> findByUserIdAndOptionalFilters(
+        @Param("userId") String userId,
+        @Param("status") String status,
+        @Param("fecha") Date fecha,
+        Pageable pageable
+    );
+
+    // ===========================
+    // TRANSICIONES EN BLOQUE
+    // ===========================
+
+    // Estado actual de varias órdenes sin cargar items
+    @Query("""
+        SELECT o.id AS id, o.status AS status, o.userId AS userId,
+               o.createdAt AS createdAt, o.totalCents AS totalCents FROM Order o WHERE o.id IN :ids
+    """)
+    List<OrderStatusView> findStatusByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Igual que findStatusByIdIn pero con FOR UPDATE: el estado leído es el que ve el UPDATE siguiente.
+    // Se bloquea en orden de id para que dos transiciones en bloque con órdenes en común no se trabe
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT o.id AS id, o.status AS status, o.userId AS userId,
+               o.createdAt AS createdAt, o.totalCents AS totalCents FROM Order o WHERE o.id IN :ids
+        ORDER BY o.id
+    """)
+    List<OrderStatusView> lockStatusByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Aplica la transición solo a las órdenes que siguen en un estado origen válido. Incrementa la
+    // versión para que una transición individual que leyó la orden antes falle y se reintente
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Order o SET o.status = :target, o.version = o.version + 1
+        WHERE o.id IN :ids AND o.status IN :sources
+    """)
+    int updateStatusWhereStatusIn(
+        @Param("ids") Collection<Long> ids,
+        @Param("sources") Collection<String> sources,
+        @Param("target") String target
+    );
+
+    // ===========================
+    // ÓRDENES POR PRODUCTO (keyset)
+    // ===========================
+
+    // Recorre el índice (product_id, order_id) hacia atrás desde el cursor: las filas ya salen en el
+    // orden de la página y agrupadas por orden, así se leen solo las de la página y no toda la historia
+    @Query("""
+        SELECT new com.example.backorders.dto.ProductOrderDTO(
+            o.id, o.userId, o.status, o.createdAt, o.totalCents, SUM(i.quantity))
+        FROM OrderItem i JOIN i.order o
+        WHERE i.product.id = :productId
+          AND (:cursorId IS NULL OR i.order.id < :cursorId)
+          AND (:status IS NULL OR LOWER(o.status) = LOWER(:status))
+          AND (:start IS NULL OR o.createdAt >= :start)
+          AND (:end IS NULL OR o.createdAt <= :end)
+        GROUP BY o.id, o.userId, o.status, o.createdAt, o.totalCents
+        ORDER BY o.id DESC
+    """)
+    List<ProductOrderDTO> findOrdersContainingProduct(
+        @Param("productId") Long productId,
+        @Param("status") String status,
+        @Param("start") Date start,
+        @Param("end") Date end,
+        @Param("cursorId") Long cursorId,
+        Pageable pageable
+    );
+
+    // ===========================
+    // VENCIMIENTO DE PENDIENTES (índice status, created_at)
+    // ===========================
+
+    long countByStatusAndCreatedAtBefore(String status, Date cutoff);
+
+    // Bloquea las más viejas; lock.timeout = -2 es SKIP LOCKED: otra instancia que esté procesando
+    // filas no nos bloquea y toma las siguientes, así ninguna orden se procesa dos veces
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+        SELECT o.id AS id, o.status AS status, o.userId AS userId,
+               o.createdAt AS createdAt, o.totalCents AS totalCents FROM Order o
+        WHERE o.status = :status AND o.createdAt < :cutoff
+        ORDER BY o.createdAt, o.id
+    """)
+    List<OrderStatusView> lockByStatusCreatedBefore(
+        @Param("status") String status,
+        @Param("cutoff") Date cutoff,
+        Pageable pageable
+    );
+
+    // Unidades a reponer por producto para un grupo de órdenes (una fila por producto)
+    @Query("""
+        SELECT i.product.id AS productId, SUM(i.quantity) AS quantity FROM OrderItem i
+        WHERE i.order.id IN :orderIds AND i.product IS NOT NULL
+        GROUP BY i.product.id
+        ORDER BY i.product.id
+    """)
+    List<ProductQuantityView> sumQuantitiesByProduct(@Param("orderIds") Collection<Long> orderIds);
+
+    // Agregados por día de creación y estado, para reconstruir order_daily_stats desde las órdenes
+    @Query("""
+        SELECT cast(o.createdAt AS LocalDate) AS statDate, o.status AS status,
+               COUNT(o) AS orderCount, SUM(o.totalCents) AS revenueCents
+        FROM Order o
+        GROUP BY cast(o.createdAt AS LocalDate), o.status
+    """)
+    List<DailyStatView> aggregateByDayAndStatus();
+
+    // ===========================
+    // COPIA DEL PRODUCTO EN LOS ITEMS (backfill, keyset por id)
+    // ===========================
+
+    // Items creados antes de guardar la copia del producto
+    @Query("""
+        SELECT i.id FROM OrderItem i
+        WHERE i.id > :afterId AND i.productName IS NULL AND i.product IS NOT NULL
+        ORDER BY i.id
+    """)
+    List<Long> findItemIdsWithoutSnapshot(@Param("afterId") Long afterId, Pageable pageable);
 
+    // Copia nombre (y precio, si faltaba) del producto actual: es lo más cercano que queda al de la compra
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE OrderItem i SET
+            i.productName = (SELECT p.name FROM Product p WHERE p.id = i.product.id),
+            i.priceCents = coalesce(i.priceCents, (SELECT p.priceCents FROM Product p WHERE p.id = i.product.id))
+        WHERE i.id IN :ids AND i.productName IS NULL
+    """)
+    int captureItemSnapshots(@Param("ids") Collection<Long> ids);
 
+    // ===========================
+    // CONCILIACIÓN CON LA PASARELA (keyset por id)
+    // ===========================
+
+    // Órdenes en un estado con id > afterId, de a una página, en orden de id
+    @Query("""
+        SELECT o.id AS id, o.totalCents AS totalCents FROM Order o
+        WHERE o.status = :status AND o.id > :afterId
+        ORDER BY o.id
+    """)
+    List<OrderAmountView> findAmountsByStatusAfter(
+        @Param("status") String status,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
+}
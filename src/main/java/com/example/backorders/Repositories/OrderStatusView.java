@@ -0,0 +1,15 @@
+package com.example.backorders.Repositories;
+
+import java.util.Date;
+
+/**
+ * Proyección liviana (sin items) para validar transiciones sin cargar la entidad completa.
+ * Incluye fecha y total para publicar OrderStatusChangedEvent.
+ */
+public interface OrderStatusView {
+    Long getId();
+    String getStatus();
+    String getUserId();
+    Date getCreatedAt();
+    long getTotalCents();
+}
@@ -0,0 +1,9 @@
+package com.example.backorders.Repositories;
+
+/**
+ * Cantidad total de un producto en un grupo de órdenes.
+ */
+public interface ProductQuantityView {
+    Long getProductId();
+    Long getQuantity();
+}
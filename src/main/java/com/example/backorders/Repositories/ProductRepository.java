@@ -0,0 +1,32 @@
+package com.example.backorders.Repositories;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.backorders.model.Product;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // Carga y bloquea (SELECT ... FOR UPDATE) los productos de un lote para validar y descontar stock
+    // una sola vez por producto. Orden por id para que dos lotes concurrentes no se bloqueen mutuamente.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Repone stock sin cargar la entidad (un UPDATE por producto); incrementa la versión como lo haría Hibernate
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock + :quantity, p.version = p.version + 1 WHERE p.id = :id")
+    int addStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Fija el stock del shard (ProductStockService reparte el total entre shards)
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = :stock, p.version = p.version + 1 WHERE p.id = :id")
+    int setStock(@Param("id") Long id, @Param("stock") int stock);
+}
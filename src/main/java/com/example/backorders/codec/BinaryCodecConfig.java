@@ -0,0 +1,27 @@
+package com.example.backorders.codec;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Negociación de contenido binaria: CBOR lo agrega Spring MVC por estar jackson-dataformat-cbor en
+ * el classpath y Protobuf se agrega acá. Los dos quedan al final de la lista: con Accept ausente o
+ * &#42;/&#42; gana el primer convertidor que puede escribir la respuesta, y tiene que ser JSON.
+ */
+@Configuration
+public class BinaryCodecConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        List<HttpMessageConverter<?>> cbor = converters.stream()
+                .filter(MappingJackson2CborHttpMessageConverter.class::isInstance)
+                .toList();
+        converters.removeAll(cbor);
+        converters.addAll(cbor);
+        converters.add(new OrderSummaryProtobufHttpMessageConverter());
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.backorders.codec;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+/**
+ * Formatos binarios que ofrecen los endpoints de historial para servicios internos.
+ */
+public final class BinaryMediaTypes {
+
+    public static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    private BinaryMediaTypes() {
+    }
+
+    /**
+     * true si el tipo preferido del header Accept es CBOR o Protobuf. Un Accept ausente o inválido
+     * cuenta como JSON.
+     */
+    public static boolean prefersBinary(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        if (types.isEmpty()) {
+            return false;
+        }
+        // El de mayor q; con el mismo q, el primero del header
+        MediaType preferred = types.get(0);
+        for (MediaType type : types) {
+            if (type.getQualityValue() > preferred.getQualityValue()) {
+                preferred = type;
+            }
+        }
+        return preferred.isConcrete() && (CBOR.includes(preferred) || PROTOBUF.includes(preferred));
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.backorders.codec;
+
+import com.example.backorders.dto.OrderItemDTO;
+import com.example.backorders.dto.OrderSummaryDTO;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Codificación Protobuf de OrderSummaryDTO / OrderItemDTO según src/main/proto/order_summary.proto.
+ *
+ * Escrita a mano sobre CodedOutputStream/CodedInputStream, sin clases generadas: escribe directo
+ * desde los DTO que ya arma el servicio, sin copiarlos a mensajes intermedios. Los tamaños de los
+ * mensajes anidados se calculan antes de escribirlos (el formato los lleva como prefijo).
+ */
+public final class OrderSummaryProtobuf {
+
+    // OrderSummaryPage
+    private static final int PAGE_CONTENT = 1;
+    private static final int PAGE_NUMBER = 2;
+    private static final int PAGE_SIZE = 3;
+    private static final int PAGE_TOTAL_ELEMENTS = 4;
+    private static final int PAGE_TOTAL_PAGES = 5;
+
+    // OrderSummary
+    private static final int ORDER_ID = 1;
+    private static final int ORDER_FECHA = 2;
+    private static final int ORDER_ESTADO = 3;
+    private static final int ORDER_ITEMS = 5;
+    private static final int ORDER_TOTAL_CENTS = 6;
+
+    // OrderItem
+    private static final int ITEM_PRODUCT_ID = 1;
+    private static final int ITEM_QUANTITY = 2;
+    private static final int ITEM_PRICE_CENTS = 4;
+
+    private OrderSummaryProtobuf() {
+    }
+
+    /**
+     * Página decodificada. En /filter solo viene {@code content}; el resto queda en 0.
+     */
+    public record Page(List<OrderSummaryDTO> content, int number, int size, long totalElements, int totalPages) {
+    }
+
+    public static void write(Page page, OutputStream out) throws IOException {
+        CodedOutputStream coded = CodedOutputStream.newInstance(out, 8192);
+        for (OrderSummaryDTO order : page.content()) {
+            coded.writeTag(PAGE_CONTENT, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            coded.writeUInt32NoTag(orderSize(order));
+            writeOrder(order, coded);
+        }
+        if (page.number() != 0) {
+            coded.writeInt32(PAGE_NUMBER, page.number());
+        }
+        if (page.size() != 0) {
+            coded.writeInt32(PAGE_SIZE, page.size());
+        }
+        if (page.totalElements() != 0) {
+            coded.writeInt64(PAGE_TOTAL_ELEMENTS, page.totalElements());
+        }
+        if (page.totalPages() != 0) {
+            coded.writeInt32(PAGE_TOTAL_PAGES, page.totalPages());
+        }
+        coded.flush();
+    }
+
+    public static Page read(InputStream in) throws IOException {
+        CodedInputStream coded = CodedInputStream.newInstance(in);
+        List<OrderSummaryDTO> content = new ArrayList<>();
+        int number = 0;
+        int size = 0;
+        long totalElements = 0;
+        int totalPages = 0;
+        for (int tag = coded.readTag(); tag != 0; tag = coded.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case PAGE_CONTENT -> {
+                    int limit = coded.pushLimit(coded.readRawVarint32());
+                    content.add(readOrder(coded));
+                    coded.popLimit(limit);
+                }
+                case PAGE_NUMBER -> number = coded.readInt32();
+                case PAGE_SIZE -> size = coded.readInt32();
+                case PAGE_TOTAL_ELEMENTS -> totalElements = coded.readInt64();
+                case PAGE_TOTAL_PAGES -> totalPages = coded.readInt32();
+                default -> coded.skipField(tag);
+            }
+        }
+        return new Page(content, number, size, totalElements, totalPages);
+    }
+
+    // ===========================
+    // OrderSummary
+    // ===========================
+
+    private static int orderSize(OrderSummaryDTO order) {
+        int size = 0;
+        if (order.getOrderId() != null) {
+            size += CodedOutputStream.computeInt64Size(ORDER_ID, order.getOrderId());
+        }
+        if (order.getFechaCreacion() != null) {
+            size += CodedOutputStream.computeInt64Size(ORDER_FECHA, order.getFechaCreacion().getTime());
+        }
+        if (order.getEstado() != null) {
+            size += CodedOutputStream.computeStringSize(ORDER_ESTADO, order.getEstado());
+        }
+        if (order.getItems() != null) {
+            for (OrderItemDTO item : order.getItems()) {
+                int itemSize = itemSize(item);
+                size += CodedOutputStream.computeTagSize(ORDER_ITEMS)
+                        + CodedOutputStream.computeUInt32SizeNoTag(itemSize) + itemSize;
+            }
+        }
+        size += CodedOutputStream.computeInt64Size(ORDER_TOTAL_CENTS, order.getTotalCents());
+        return size;
+    }
+
+    private static void writeOrder(OrderSummaryDTO order, CodedOutputStream coded) throws IOException {
+        if (order.getOrderId() != null) {
+            coded.writeInt64(ORDER_ID, order.getOrderId());
+        }
+        if (order.getFechaCreacion() != null) {
+            coded.writeInt64(ORDER_FECHA, order.getFechaCreacion().getTime());
+        }
+        if (order.getEstado() != null) {
+            coded.writeString(ORDER_ESTADO, order.getEstado());
+        }
+        if (order.getItems() != null) {
+            for (OrderItemDTO item : order.getItems()) {
+                coded.writeTag(ORDER_ITEMS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                coded.writeUInt32NoTag(itemSize(item));
+                writeItem(item, coded);
+            }
+        }
+        coded.writeInt64(ORDER_TOTAL_CENTS, order.getTotalCents());
+    }
+
+    private static OrderSummaryDTO readOrder(CodedInputStream coded) throws IOException {
+        OrderSummaryDTO order = new OrderSummaryDTO();
+        List<OrderItemDTO> items = new ArrayList<>();
+        for (int tag = coded.readTag(); tag != 0; tag = coded.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case ORDER_ID -> order.setOrderId(coded.readInt64());
+                case ORDER_FECHA -> order.setFechaCreacion(new Date(coded.readInt64()));
+                case ORDER_ESTADO -> order.setEstado(coded.readString());
+                case ORDER_ITEMS -> {
+                    int limit = coded.pushLimit(coded.readRawVarint32());
+                    items.add(readItem(coded));
+                    coded.popLimit(limit);
+                }
+                case ORDER_TOTAL_CENTS -> order.setTotalCents(coded.readInt64());
+                default -> coded.skipField(tag);
+            }
+        }
+        order.setItems(items);
+        return order;
+    }
+
+    // ===========================
+    // OrderItem
+    // ===========================
+
+    private static int itemSize(OrderItemDTO item) {
+        int size = 0;
+        if (item.getProductId() != null) {
+            size += CodedOutputStream.computeInt64Size(ITEM_PRODUCT_ID, item.getProductId());
+        }
+        if (item.getQuantity() != null) {
+            size += CodedOutputStream.computeInt32Size(ITEM_QUANTITY, item.getQuantity());
+        }
+        if (item.getPriceCents() != null) {
+            size += CodedOutputStream.computeInt64Size(ITEM_PRICE_CENTS, item.getPriceCents());
+        }
+        return size;
+    }
+
+    private static void writeItem(OrderItemDTO item, CodedOutputStream coded) throws IOException {
+        if (item.getProductId() != null) {
+            coded.writeInt64(ITEM_PRODUCT_ID, item.getProductId());
+        }
+        if (item.getQuantity() != null) {
+            coded.writeInt32(ITEM_QUANTITY, item.getQuantity());
+        }
+        if (item.getPriceCents() != null) {
+            coded.writeInt64(ITEM_PRICE_CENTS, item.getPriceCents());
+        }
+    }
+
+    private static OrderItemDTO readItem(CodedInputStream coded) throws IOException {
+        OrderItemDTO item = new OrderItemDTO();
+        for (int tag = coded.readTag(); tag != 0; tag = coded.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case ITEM_PRODUCT_ID -> item.setProductId(coded.readInt64());
+                case ITEM_QUANTITY -> item.setQuantity(coded.readInt32());
+                case ITEM_PRICE_CENTS -> item.setPriceCents(coded.readInt64());
+                default -> coded.skipField(tag);
+            }
+        }
+        return item;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.backorders.codec;
+
+import com.example.backorders.dto.OrderSummaryDTO;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Escribe en application/x-protobuf las respuestas de historial: Page&lt;OrderSummaryDTO&gt;
+ * (/completa) y List&lt;OrderSummaryDTO&gt; (/filter). Solo existe esquema para el resumen de
+ * órdenes, así que canWrite mira el tipo declarado por el controller: un endpoint que devuelve otra
+ * cosa (o ResponseEntity&lt;?&gt;) no se ofrece en Protobuf y con ese Accept responde 406.
+ *
+ * Se registra después de Jackson (BinaryCodecConfig): con Accept &#42;/&#42; la respuesta sigue siendo JSON.
+ */
+public class OrderSummaryProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public OrderSummaryProtobufHttpMessageConverter() {
+        super(BinaryMediaTypes.PROTOBUF);
+    }
+
+    // Sin el tipo genérico no se sabe qué hay adentro de la lista: solo se usa canWrite(Type, ...)
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return canWrite(mediaType) && isOrderSummaries(type);
+    }
+
+    // Spring arma la lista de tipos producibles con esto; el default volvería a supports(clazz)
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return getSupportedMediaTypes();
+    }
+
+    static boolean isOrderSummaries(Type type) {
+        if (type == null) {
+            return false;
+        }
+        ResolvableType resolved = ResolvableType.forType(type);
+        ResolvableType container = resolved.as(Page.class);
+        if (container == ResolvableType.NONE) {
+            container = resolved.as(List.class);
+        }
+        Class<?> element = container.getGeneric(0).resolve();
+        return element != null && OrderSummaryDTO.class.isAssignableFrom(element);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf solo se usa en respuestas", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf solo se usa en respuestas", inputMessage);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        OrderSummaryProtobuf.Page page;
+        if (body instanceof Page<?> p) {
+            page = new OrderSummaryProtobuf.Page((List<OrderSummaryDTO>) p.getContent(), p.getNumber(), p.getSize(),
+                    p.getTotalElements(), p.getTotalPages());
+        } else {
+            page = new OrderSummaryProtobuf.Page((List<OrderSummaryDTO>) body, 0, 0, 0, 0);
+        }
+        OrderSummaryProtobuf.write(page, outputMessage.getBody());
+    }
+}
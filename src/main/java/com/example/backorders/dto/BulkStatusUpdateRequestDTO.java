@@ -0,0 +1,20 @@
+package com.example.backorders.dto;
+
+import java.util.List;
+
+public class BulkStatusUpdateRequestDTO {
+    private String targetStatus;
+    private List<Long> orderIds;
+
+    public BulkStatusUpdateRequestDTO() {}
+
+    public BulkStatusUpdateRequestDTO(String targetStatus, List<Long> orderIds) {
+        this.targetStatus = targetStatus;
+        this.orderIds = orderIds;
+    }
+
+    public String getTargetStatus() { return targetStatus; }
+    public void setTargetStatus(String targetStatus) { this.targetStatus = targetStatus; }
+    public List<Long> getOrderIds() { return orderIds; }
+    public void setOrderIds(List<Long> orderIds) { this.orderIds = orderIds; }
+}
@@ -0,0 +1,28 @@
+package com.example.backorders.dto;
+
+import java.util.List;
+
+public class BulkStatusUpdateResponseDTO {
+    private String targetStatus;
+    private int applied;
+    private int rejected;
+    private List<StatusTransitionResultDTO> results;
+
+    public BulkStatusUpdateResponseDTO() {}
+
+    public BulkStatusUpdateResponseDTO(String targetStatus, int applied, int rejected, List<StatusTransitionResultDTO> results) {
+        this.targetStatus = targetStatus;
+        this.applied = applied;
+        this.rejected = rejected;
+        this.results = results;
+    }
+
+    public String getTargetStatus() { return targetStatus; }
+    public void setTargetStatus(String targetStatus) { this.targetStatus = targetStatus; }
+    public int getApplied() { return applied; }
+    public void setApplied(int applied) { this.applied = applied; }
+    public int getRejected() { return rejected; }
+    public void setRejected(int rejected) { this.rejected = rejected; }
+    public List<StatusTransitionResultDTO> getResults() { return results; }
+    public void setResults(List<StatusTransitionResultDTO> results) { this.results = results; }
+}
@@ -0,0 +1,40 @@
+package com.example.backorders.dto;
+
+import com.example.backorders.money.MoneyJson;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.time.LocalDate;
+
+/**
+ * Órdenes creadas en un día que hoy están en un estado dado, con la suma de sus totales.
+ */
+public class OrderDailyMetricDTO {
+    private LocalDate fecha;
+    private String estado;
+    private Long cantidad;
+    // Centavos; en JSON "total" con decimales
+    @JsonProperty("total")
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    @JsonDeserialize(using = MoneyJson.Deserializer.class)
+    private long totalCents;
+
+    public OrderDailyMetricDTO() {}
+
+    public OrderDailyMetricDTO(LocalDate fecha, String estado, Long cantidad, long totalCents) {
+        this.fecha = fecha;
+        this.estado = estado;
+        this.cantidad = cantidad;
+        this.totalCents = totalCents;
+    }
+
+    public LocalDate getFecha() { return fecha; }
+    public void setFecha(LocalDate fecha) { this.fecha = fecha; }
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+    public Long getCantidad() { return cantidad; }
+    public void setCantidad(Long cantidad) { this.cantidad = cantidad; }
+    public long getTotalCents() { return totalCents; }
+    public void setTotalCents(long totalCents) { this.totalCents = totalCents; }
+}
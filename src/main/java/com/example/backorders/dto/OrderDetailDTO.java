@@ -0,0 +1,67 @@
+package com.example.backorders.dto;
+
+import com.example.backorders.model.Order;
+import com.example.backorders.model.OrderItem;
+import com.example.backorders.money.MoneyJson;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Copia inmutable de una orden con sus items, armada dentro de la transacción de lectura.
+ *
+ * Todo lo que se hace después de devolver la conexión (serializar a JSON, renderizar el PDF,
+ * calcular la clave del recibo) trabaja sobre esta copia y no sobre la entidad, así que no
+ * puede disparar cargas perezosas ni necesita la sesión abierta.
+ */
+public final class OrderDetailDTO {
+    private final Long id;
+    private final String userId;
+    private final String status;
+    private final long totalCents;
+    private final Date createdAt;
+    private final List<OrderDetailItemDTO> items;
+
+    public OrderDetailDTO(Long id, String userId, String status, long totalCents, Date createdAt,
+                          List<OrderDetailItemDTO> items) {
+        this.id = id;
+        this.userId = userId;
+        this.status = status;
+        this.totalCents = totalCents;
+        this.createdAt = createdAt != null ? new Date(createdAt.getTime()) : null;
+        this.items = items != null ? Collections.unmodifiableList(new ArrayList<>(items)) : List.of();
+    }
+
+    /**
+     * Copia la orden y sus items. Debe llamarse con la sesión abierta.
+     */
+    public static OrderDetailDTO from(Order order) {
+        List<OrderDetailItemDTO> items = new ArrayList<>();
+        if (order.getItems() != null) {
+            for (OrderItem it : order.getItems()) {
+                items.add(new OrderDetailItemDTO(
+                        it.getProductId(),
+                        it.getProductName(),
+                        it.getQuantity(),
+                        it.getPriceCents(),
+                        it.getDiscountCents()));
+            }
+        }
+        return new OrderDetailDTO(order.getId(), order.getUserId(), order.getStatus(),
+                order.getTotalCents(), order.getCreatedAt(), items);
+    }
+
+    public Long getId() { return id; }
+    public String getUserId() { return userId; }
+    public String getStatus() { return status; }
+    // Centavos; en JSON "totalAmount" con decimales
+    @JsonProperty("totalAmount")
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    public long getTotalCents() { return totalCents; }
+    public Date getCreatedAt() { return createdAt != null ? new Date(createdAt.getTime()) : null; }
+    public List<OrderDetailItemDTO> getItems() { return items; }
+}
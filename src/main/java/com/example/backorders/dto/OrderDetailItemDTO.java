@@ -0,0 +1,35 @@
+package com.example.backorders.dto;
+
+import com.example.backorders.money.MoneyJson;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Item de OrderDetailDTO, con el nombre del producto copiado al crear la orden.
+ */
+public final class OrderDetailItemDTO {
+    private final Long productId;
+    private final String productName;
+    private final Integer quantity;
+    private final Long priceCents;
+    private final long discountCents;
+
+    public OrderDetailItemDTO(Long productId, String productName, Integer quantity, Long priceCents, long discountCents) {
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.priceCents = priceCents;
+        this.discountCents = discountCents;
+    }
+
+    public Long getProductId() { return productId; }
+    public String getProductName() { return productName; }
+    public Integer getQuantity() { return quantity; }
+    // Centavos; en JSON "price" y "discount" con decimales
+    @JsonProperty("price")
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    public Long getPriceCents() { return priceCents; }
+    @JsonProperty("discount")
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    public long getDiscountCents() { return discountCents; }
+}
@@ -0,0 +1,22 @@
+package com.example.backorders.dto;
+
+public class OrderIngestErrorDTO {
+    private long line;
+    private String externalId;
+    private String error;
+
+    public OrderIngestErrorDTO() {}
+
+    public OrderIngestErrorDTO(long line, String externalId, String error) {
+        this.line = line;
+        this.externalId = externalId;
+        this.error = error;
+    }
+
+    public long getLine() { return line; }
+    public void setLine(long line) { this.line = line; }
+    public String getExternalId() { return externalId; }
+    public void setExternalId(String externalId) { this.externalId = externalId; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,30 @@
+package com.example.backorders.dto;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Una línea del NDJSON de carga masiva: una orden con sus items.
+ * externalId es opcional y solo se usa para identificar la línea en los errores.
+ * status, si viene, tiene que ser "pendiente".
+ */
+public class OrderIngestLineDTO {
+    private String externalId;
+    private String userId;
+    private String status;
+    private Date createdAt;
+    private List<OrderItemDTO> items;
+
+    public OrderIngestLineDTO() {}
+
+    public String getExternalId() { return externalId; }
+    public void setExternalId(String externalId) { this.externalId = externalId; }
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public Date getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
+    public List<OrderItemDTO> getItems() { return items; }
+    public void setItems(List<OrderItemDTO> items) { this.items = items; }
+}
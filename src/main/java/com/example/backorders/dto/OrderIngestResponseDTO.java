@@ -0,0 +1,28 @@
+package com.example.backorders.dto;
+
+import java.util.List;
+
+public class OrderIngestResponseDTO {
+    private long received;
+    private long created;
+    private long failed;
+    private List<OrderIngestErrorDTO> errors;
+
+    public OrderIngestResponseDTO() {}
+
+    public OrderIngestResponseDTO(long received, long created, long failed, List<OrderIngestErrorDTO> errors) {
+        this.received = received;
+        this.created = created;
+        this.failed = failed;
+        this.errors = errors;
+    }
+
+    public long getReceived() { return received; }
+    public void setReceived(long received) { this.received = received; }
+    public long getCreated() { return created; }
+    public void setCreated(long created) { this.created = created; }
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+    public List<OrderIngestErrorDTO> getErrors() { return errors; }
+    public void setErrors(List<OrderIngestErrorDTO> errors) { this.errors = errors; }
+}
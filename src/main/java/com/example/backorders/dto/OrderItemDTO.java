@@ -1,22 +1,31 @@
 package com.example.backorders.dto;
 
+import com.example.backorders.money.MoneyJson;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 public class OrderItemDTO {
     private Long productId;
     private Integer quantity;
-    private Double price;
+    // Centavos; en JSON "price" con decimales. Null en la carga masiva = precio actual del producto
+    @JsonProperty("price")
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    @JsonDeserialize(using = MoneyJson.Deserializer.class)
+    private Long priceCents;
 
     public OrderItemDTO() {}
 
-    public OrderItemDTO(Long productId, Integer quantity, Double price) {
+    public OrderItemDTO(Long productId, Integer quantity, Long priceCents) {
         this.productId = productId;
         this.quantity = quantity;
-        this.price = price;
+        this.priceCents = priceCents;
     }
 
     public Long getProductId() { return productId; }
     public void setProductId(Long productId) { this.productId = productId; }
     public Integer getQuantity() { return quantity; }
     public void setQuantity(Integer quantity) { this.quantity = quantity; }
-    public Double getPrice() { return price; }
-    public void setPrice(Double price) { this.price = price; }
+    public Long getPriceCents() { return priceCents; }
+    public void setPriceCents(Long priceCents) { this.priceCents = priceCents; }
 }
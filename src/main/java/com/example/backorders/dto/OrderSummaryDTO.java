@@ -1,5 +1,10 @@
 package com.example.backorders.dto;
 
+import com.example.backorders.money.MoneyJson;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 import java.util.Date;
 import java.util.List;
 
@@ -7,16 +12,20 @@ public class OrderSummaryDTO {
     private Long orderId;
     private Date fechaCreacion;
     private String estado;
-    private Double total;
+    // Centavos; en JSON "total" con decimales
+    @JsonProperty("total")
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    @JsonDeserialize(using = MoneyJson.Deserializer.class)
+    private long totalCents;
     private List<OrderItemDTO> items;
 
     public OrderSummaryDTO() {}
 
-    public OrderSummaryDTO(Long orderId, Date fechaCreacion, String estado, Double total, List<OrderItemDTO> items) {
+    public OrderSummaryDTO(Long orderId, Date fechaCreacion, String estado, long totalCents, List<OrderItemDTO> items) {
         this.orderId = orderId;
         this.fechaCreacion = fechaCreacion;
         this.estado = estado;
-        this.total = total;
+        this.totalCents = totalCents;
         this.items = items;
     }
 
@@ -26,8 +35,8 @@ public class OrderSummaryDTO {
     public void setFechaCreacion(Date fechaCreacion) { this.fechaCreacion = fechaCreacion; }
     public String getEstado() { return estado; }
     public void setEstado(String estado) { this.estado = estado; }
-    public Double getTotal() { return total; }
-    public void setTotal(Double total) { this.total = total; }
+    public long getTotalCents() { return totalCents; }
+    public void setTotalCents(long totalCents) { this.totalCents = totalCents; }
     public List<OrderItemDTO> getItems() { return items; }
     public void setItems(List<OrderItemDTO> items) { this.items = items; }
 }
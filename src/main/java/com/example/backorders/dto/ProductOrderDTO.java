@@ -0,0 +1,48 @@
+package com.example.backorders.dto;
+
+import com.example.backorders.money.MoneyJson;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.Date;
+
+/**
+ * Orden que contiene un producto dado, con la cantidad total de ese producto en la orden.
+ */
+public class ProductOrderDTO {
+    private Long orderId;
+    private String userId;
+    private String estado;
+    private Date fechaCreacion;
+    // Centavos; en JSON "total" con decimales
+    @JsonProperty("total")
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    @JsonDeserialize(using = MoneyJson.Deserializer.class)
+    private long totalCents;
+    private Long cantidad;
+
+    public ProductOrderDTO() {}
+
+    public ProductOrderDTO(Long orderId, String userId, String estado, Date fechaCreacion, long totalCents, Long cantidad) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.estado = estado;
+        this.fechaCreacion = fechaCreacion;
+        this.totalCents = totalCents;
+        this.cantidad = cantidad;
+    }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+    public Date getFechaCreacion() { return fechaCreacion; }
+    public void setFechaCreacion(Date fechaCreacion) { this.fechaCreacion = fechaCreacion; }
+    public long getTotalCents() { return totalCents; }
+    public void setTotalCents(long totalCents) { this.totalCents = totalCents; }
+    public Long getCantidad() { return cantidad; }
+    public void setCantidad(Long cantidad) { this.cantidad = cantidad; }
+}
@@ -0,0 +1,24 @@
+package com.example.backorders.dto;
+
+import java.util.List;
+
+/**
+ * Página de órdenes por producto. nextCursor es null cuando no hay más resultados;
+ * si no, se envía tal cual en el parámetro "cursor" de la siguiente petición.
+ */
+public class ProductOrdersPageDTO {
+    private List<ProductOrderDTO> orders;
+    private String nextCursor;
+
+    public ProductOrdersPageDTO() {}
+
+    public ProductOrdersPageDTO(List<ProductOrderDTO> orders, String nextCursor) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ProductOrderDTO> getOrders() { return orders; }
+    public void setOrders(List<ProductOrderDTO> orders) { this.orders = orders; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
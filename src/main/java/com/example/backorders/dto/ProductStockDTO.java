@@ -0,0 +1,28 @@
+package com.example.backorders.dto;
+
+import java.util.List;
+
+/**
+ * Stock de un producto: total vendible y la parte asignada a cada shard (índice = shard).
+ * Sin sharding hay un solo elemento.
+ */
+public class ProductStockDTO {
+    private Long productId;
+    private long total;
+    private List<Integer> perShard;
+
+    public ProductStockDTO() {}
+
+    public ProductStockDTO(Long productId, long total, List<Integer> perShard) {
+        this.productId = productId;
+        this.total = total;
+        this.perShard = perShard;
+    }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+    public List<Integer> getPerShard() { return perShard; }
+    public void setPerShard(List<Integer> perShard) { this.perShard = perShard; }
+}
@@ -0,0 +1,14 @@
+package com.example.backorders.dto;
+
+public class ProductStockUpdateRequestDTO {
+    private Integer stock;
+
+    public ProductStockUpdateRequestDTO() {}
+
+    public ProductStockUpdateRequestDTO(Integer stock) {
+        this.stock = stock;
+    }
+
+    public Integer getStock() { return stock; }
+    public void setStock(Integer stock) { this.stock = stock; }
+}
@@ -0,0 +1,31 @@
+package com.example.backorders.dto;
+
+public class ReceiptJobDTO {
+    public static final String PENDING = "PENDIENTE";
+    public static final String RUNNING = "EN_PROCESO";
+    public static final String READY = "LISTO";
+    public static final String FAILED = "ERROR";
+
+    private String jobId;
+    private Long orderId;
+    private String estado;
+    private String error;
+
+    public ReceiptJobDTO() {}
+
+    public ReceiptJobDTO(String jobId, Long orderId, String estado, String error) {
+        this.jobId = jobId;
+        this.orderId = orderId;
+        this.estado = estado;
+        this.error = error;
+    }
+
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
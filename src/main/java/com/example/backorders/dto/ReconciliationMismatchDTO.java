@@ -0,0 +1,40 @@
+package com.example.backorders.dto;
+
+/**
+ * Diferencia entre las órdenes pagadas y la liquidación de la pasarela.
+ * Los montos vienen en centavos; null si del lado correspondiente no hay dato.
+ */
+public class ReconciliationMismatchDTO {
+    public static final String MISSING = "FALTA_EN_PASARELA";
+    public static final String EXTRA = "SOBRA_EN_PASARELA";
+    public static final String AMOUNT = "MONTO_DISTINTO";
+    public static final String DUPLICATE = "DUPLICADA_EN_PASARELA";
+    public static final String MALFORMED = "LINEA_INVALIDA";
+
+    private String tipo;
+    private Long orderId;
+    private Long montoOrdenCentavos;
+    private Long montoPasarelaCentavos;
+    private Long offset;
+
+    public ReconciliationMismatchDTO() {}
+
+    public ReconciliationMismatchDTO(String tipo, Long orderId, Long montoOrdenCentavos, Long montoPasarelaCentavos, Long offset) {
+        this.tipo = tipo;
+        this.orderId = orderId;
+        this.montoOrdenCentavos = montoOrdenCentavos;
+        this.montoPasarelaCentavos = montoPasarelaCentavos;
+        this.offset = offset;
+    }
+
+    public String getTipo() { return tipo; }
+    public void setTipo(String tipo) { this.tipo = tipo; }
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public Long getMontoOrdenCentavos() { return montoOrdenCentavos; }
+    public void setMontoOrdenCentavos(Long montoOrdenCentavos) { this.montoOrdenCentavos = montoOrdenCentavos; }
+    public Long getMontoPasarelaCentavos() { return montoPasarelaCentavos; }
+    public void setMontoPasarelaCentavos(Long montoPasarelaCentavos) { this.montoPasarelaCentavos = montoPasarelaCentavos; }
+    public Long getOffset() { return offset; }
+    public void setOffset(Long offset) { this.offset = offset; }
+}
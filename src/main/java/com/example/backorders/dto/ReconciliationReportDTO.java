@@ -0,0 +1,49 @@
+package com.example.backorders.dto;
+
+import java.util.List;
+
+/**
+ * Resumen de una conciliación. {@code diferencias} trae como mucho las primeras N; el detalle
+ * completo queda en {@code reporte} (CSV junto al archivo de la pasarela).
+ */
+public class ReconciliationReportDTO {
+    private String archivo;
+    private String reporte;
+    private long lineas;
+    private long coincidencias;
+    private long faltantes;
+    private long sobrantes;
+    private long montosDistintos;
+    private long duplicadas;
+    private long lineasInvalidas;
+    private int pasadas;
+    private long milisegundos;
+    private List<ReconciliationMismatchDTO> diferencias;
+
+    public ReconciliationReportDTO() {}
+
+    public String getArchivo() { return archivo; }
+    public void setArchivo(String archivo) { this.archivo = archivo; }
+    public String getReporte() { return reporte; }
+    public void setReporte(String reporte) { this.reporte = reporte; }
+    public long getLineas() { return lineas; }
+    public void setLineas(long lineas) { this.lineas = lineas; }
+    public long getCoincidencias() { return coincidencias; }
+    public void setCoincidencias(long coincidencias) { this.coincidencias = coincidencias; }
+    public long getFaltantes() { return faltantes; }
+    public void setFaltantes(long faltantes) { this.faltantes = faltantes; }
+    public long getSobrantes() { return sobrantes; }
+    public void setSobrantes(long sobrantes) { this.sobrantes = sobrantes; }
+    public long getMontosDistintos() { return montosDistintos; }
+    public void setMontosDistintos(long montosDistintos) { this.montosDistintos = montosDistintos; }
+    public long getDuplicadas() { return duplicadas; }
+    public void setDuplicadas(long duplicadas) { this.duplicadas = duplicadas; }
+    public long getLineasInvalidas() { return lineasInvalidas; }
+    public void setLineasInvalidas(long lineasInvalidas) { this.lineasInvalidas = lineasInvalidas; }
+    public int getPasadas() { return pasadas; }
+    public void setPasadas(int pasadas) { this.pasadas = pasadas; }
+    public long getMilisegundos() { return milisegundos; }
+    public void setMilisegundos(long milisegundos) { this.milisegundos = milisegundos; }
+    public List<ReconciliationMismatchDTO> getDiferencias() { return diferencias; }
+    public void setDiferencias(List<ReconciliationMismatchDTO> diferencias) { this.diferencias = diferencias; }
+}
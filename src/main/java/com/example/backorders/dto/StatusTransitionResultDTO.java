@@ -0,0 +1,26 @@
+package com.example.backorders.dto;
+
+public class StatusTransitionResultDTO {
+    public static final String APPLIED = "APLICADA";
+    public static final String INVALID_STATE = "ESTADO_INVALIDO";
+    public static final String NOT_FOUND = "NO_ENCONTRADA";
+
+    private Long orderId;
+    private String previousStatus;
+    private String result;
+
+    public StatusTransitionResultDTO() {}
+
+    public StatusTransitionResultDTO(Long orderId, String previousStatus, String result) {
+        this.orderId = orderId;
+        this.previousStatus = previousStatus;
+        this.result = result;
+    }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public String getPreviousStatus() { return previousStatus; }
+    public void setPreviousStatus(String previousStatus) { this.previousStatus = previousStatus; }
+    public String getResult() { return result; }
+    public void setResult(String result) { this.result = result; }
+}
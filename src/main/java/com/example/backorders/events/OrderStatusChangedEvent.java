@@ -0,0 +1,15 @@
+package com.example.backorders.events;
+
+import java.util.Date;
+
+/**
+ * Se publica cada vez que una orden cambia de estado, tanto en operaciones individuales
+ * (cancelar, pagar, confirmar entrega) como en transiciones en bloque. Una orden nueva
+ * (carga masiva) se publica con {@code fromStatus} null.
+ *
+ * createdAt y totalCents viajan con el evento para que los agregados por día
+ * (OrderMetricsRollup) se actualicen sin volver a leer la orden.
+ */
+public record OrderStatusChangedEvent(Long orderId, String userId, String fromStatus, String toStatus,
+                                      Date createdAt, long totalCents) {
+}
@@ -0,0 +1,102 @@
+package com.example.backorders.exceptions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Log de errores fuera del hilo de la petición y con tope por segundo.
+ *
+ * Escribir un stack trace es lento y, si el error se repite en cada petición (pasarela caída,
+ * base caída), el log pasa a ser el cuello de botella. Acá se encolan como mucho
+ * {@code maxPerSecond} mensajes por segundo en un hilo aparte; el resto se cuenta y se informa
+ * junto con el siguiente mensaje que sí se escribe. Si la cola está llena también se descarta.
+ */
+@Component
+public class AsyncErrorLogger implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+
+    private final int maxPerSecond;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger inWindow = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public AsyncErrorLogger(
+            @Value("${back-orders.error-log.max-per-second:10}") int maxPerSecond,
+            @Value("${back-orders.error-log.queue-capacity:1000}") int queueCapacity) {
+        this.maxPerSecond = maxPerSecond;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "async-error-logger");
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Error inesperado: se escribe con stack trace.
+     */
+    public void error(String message, Throwable ex) {
+        submit(true, message, ex);
+    }
+
+    /**
+     * Resultado esperado pero relevante (ej. pasarela caída): una línea, sin stack trace.
+     */
+    public void warn(String message) {
+        submit(false, message, null);
+    }
+
+    public long suppressedCount() {
+        return suppressed.get();
+    }
+
+    private void submit(boolean error, String message, Throwable ex) {
+        if (!tryAcquire()) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        long skipped = suppressed.getAndSet(0);
+        String text = skipped == 0 ? message : message + " (" + skipped + " mensajes omitidos por límite)";
+        try {
+            executor.execute(() -> {
+                if (error) {
+                    log.error(text, ex);
+                } else {
+                    log.warn(text);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            suppressed.addAndGet(skipped + 1);
+        }
+    }
+
+    // Ventana fija de un segundo: el primer hilo que ve un segundo nuevo reinicia el contador
+    private boolean tryAcquire() {
+        long second = System.currentTimeMillis() / 1000;
+        long current = window.get();
+        if (current != second && window.compareAndSet(current, second)) {
+            inWindow.set(0);
+        }
+        return inWindow.incrementAndGet() <= maxPerSecond;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.backorders.exceptions;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cuerpos JSON de error ya serializados. Los mensajes que salen del código (los de la pasarela, los
+ * de estado y los de concurrencia son un conjunto chico) se piden con cached(...): cada combinación
+ * se serializa una sola vez y después se devuelven los mismos bytes, sin armar un Map ni pasar por
+ * Jackson en cada petición. Lo que trae datos del cliente (ej. IllegalArgumentException con el valor
+ * recibido) va por json(...), que no guarda nada: si entrara al cache, cualquiera podría llenarlo.
+ */
+public final class ErrorBodies {
+
+    // Red de seguridad por si un mensaje "fijo" resulta tener datos variables
+    private static final int MAX_ENTRIES = 1024;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Map<List<String>, byte[]> CACHE = new ConcurrentHashMap<>();
+
+    private ErrorBodies() {
+    }
+
+    /**
+     * JSON con los pares clave/valor en orden, ej. json("error", ex.getMessage()). Se serializa en
+     * cada llamada.
+     */
+    public static byte[] json(String... keyValues) {
+        return serialize(keyValues);
+    }
+
+    /**
+     * Como json(...), pero guarda el resultado. Solo para valores que salen del código, nunca de la
+     * petición: ej. cached("error", "Pago rechazado", "message", ex.getMessage()) con los mensajes
+     * fijos de PaymentService.
+     */
+    public static byte[] cached(String... keyValues) {
+        List<String> key = Arrays.asList(keyValues);
+        byte[] body = CACHE.get(key);
+        if (body != null) {
+            return body;
+        }
+
+        body = serialize(keyValues);
+        if (CACHE.size() < MAX_ENTRIES) {
+            CACHE.putIfAbsent(key, body);
+        }
+        return body;
+    }
+
+    static int cacheSize() {
+        return CACHE.size();
+    }
+
+    private static byte[] serialize(String[] keyValues) {
+        if (keyValues.length % 2 != 0) {
+            throw new IllegalArgumentException("Se esperan pares clave/valor");
+        }
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            fields.put(keyValues[i], keyValues[i + 1]);
+        }
+        try {
+            return MAPPER.writeValueAsBytes(fields);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
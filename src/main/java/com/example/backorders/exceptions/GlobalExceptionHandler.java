@@ -1,59 +1,86 @@
 package com.example.backorders.exceptions;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
-import java.util.Map;
-
+/**
+ * Los cuerpos de error salen de ErrorBodies (ya serializados) y el log va por AsyncErrorLogger:
+ * durante una caída de la pasarela este es el camino más caliente de la aplicación. Los mensajes
+ * que arma el código se cachean; los de IllegalArgumentException pueden traer datos del cliente y
+ * se serializan en cada respuesta.
+ */
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final byte[] INTERNAL_ERROR = ErrorBodies.json("error", "Error interno del servidor");
+    private static final byte[] ACCESS_DENIED = ErrorBodies.json("error", "No autorizado");
+
+    private final AsyncErrorLogger errorLogger;
+
+    public GlobalExceptionHandler(AsyncErrorLogger errorLogger) {
+        this.errorLogger = errorLogger;
+    }
+
     @ExceptionHandler(OrderStateException.class)
     public ResponseEntity<?> handleOrderStateException(OrderStateException ex) {
-        return ResponseEntity
-            .status(HttpStatus.FORBIDDEN)
-            .body(Map.of(
+        return json(HttpStatus.FORBIDDEN, ErrorBodies.cached(
                 "error", "Error de estado de orden",
                 "message", ex.getMessage(),
                 "currentState", ex.getCurrentState(),
-                "requiredState", ex.getRequiredState()
-            ));
+                "requiredState", ex.getRequiredState()));
+    }
+
+    @ExceptionHandler(OrderConflictException.class)
+    public ResponseEntity<?> handleConflict(OrderConflictException ex) {
+        return json(HttpStatus.CONFLICT, ErrorBodies.cached("error", "Conflicto de concurrencia", "message", ex.getMessage()));
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<?> handleIllegalArgument(IllegalArgumentException ex) {
-        return ResponseEntity
-            .status(HttpStatus.BAD_REQUEST)
-            .body(Map.of("error", ex.getMessage()));
+        return json(HttpStatus.BAD_REQUEST, ErrorBodies.json("error", ex.getMessage()));
     }
 
     @ExceptionHandler(com.example.backorders.exceptions.InsufficientFundsException.class)
     public ResponseEntity<?> handleInsufficient(InsufficientFundsException ex) {
-        return ResponseEntity
-            .status(HttpStatus.PAYMENT_REQUIRED)
-            .body(Map.of("error", "Pago rechazado", "message", ex.getMessage()));
+        return json(HttpStatus.PAYMENT_REQUIRED, ErrorBodies.cached("error", "Pago rechazado", "message", ex.getMessage()));
     }
 
     @ExceptionHandler(com.example.backorders.exceptions.DuplicatePaymentException.class)
     public ResponseEntity<?> handleDuplicate(DuplicatePaymentException ex) {
-        return ResponseEntity
-            .status(HttpStatus.CONFLICT)
-            .body(Map.of("error", "Pago duplicado", "message", ex.getMessage()));
+        return json(HttpStatus.CONFLICT, ErrorBodies.cached("error", "Pago duplicado", "message", ex.getMessage()));
     }
 
     @ExceptionHandler(com.example.backorders.exceptions.PaymentApiException.class)
     public ResponseEntity<?> handlePaymentApi(PaymentApiException ex) {
-        return ResponseEntity
-            .status(HttpStatus.BAD_GATEWAY)
-            .body(Map.of("error", "Error en pasarela de pagos", "message", ex.getMessage()));
+        errorLogger.warn("Error en pasarela de pagos: " + ex.getMessage());
+        return json(HttpStatus.BAD_GATEWAY, ErrorBodies.cached("error", "Error en pasarela de pagos", "message", ex.getMessage()));
+    }
+
+    // @PreAuthorize sin el rol requerido: sin este handler caería en el genérico como 500
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<?> handleAccessDenied(AccessDeniedException ex) {
+        return json(HttpStatus.FORBIDDEN, ACCESS_DENIED);
+    }
+
+    // Accept sin formato disponible (ej. Protobuf en un endpoint que no es de órdenes): 406 sin cuerpo,
+    // porque tampoco se podría escribir un JSON de error
+    @ExceptionHandler(HttpMediaTypeNotAcceptableException.class)
+    public ResponseEntity<?> handleNotAcceptable(HttpMediaTypeNotAcceptableException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
     }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleAny(Exception ex) {
-        ex.printStackTrace();
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-            .body(Map.of("error", "Error interno del servidor"));
+        errorLogger.error("Error no controlado", ex);
+        return json(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_ERROR);
+    }
+
+    private static ResponseEntity<byte[]> json(HttpStatus status, byte[] body) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
     }
 }
@@ -0,0 +1,12 @@
+package com.example.backorders.exceptions;
+
+/**
+ * La operación chocó con otras que modificaban la misma orden o sus productos y se agotaron los
+ * reintentos (ver OptimisticRetry). El cliente puede volver a intentar. Sin stack trace, como
+ * OrderStateException; la causa conserva el suyo.
+ */
+public class OrderConflictException extends RuntimeException {
+    public OrderConflictException(String message, Throwable cause) {
+        super(message, cause, false, false);
+    }
+}
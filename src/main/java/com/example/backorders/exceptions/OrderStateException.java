@@ -1,11 +1,16 @@
 package com.example.backorders.exceptions;
 
+/**
+ * Transición de estado no permitida. Es un resultado esperado, por eso no captura stack trace
+ * (ver PaymentException).
+ */
 public class OrderStateException extends RuntimeException {
     private final String currentState;
     private final String requiredState;
 
     public OrderStateException(String currentState, String requiredState) {
-        super(String.format("La orden está en estado '%s'. Se requiere estado '%s'", currentState, requiredState));
+        super("La orden está en estado '" + currentState + "'. Se requiere estado '" + requiredState + "'",
+                null, false, false);
         this.currentState = currentState;
         this.requiredState = requiredState;
     }
@@ -17,4 +22,4 @@ public class OrderStateException extends RuntimeException {
     public String getRequiredState() {
         return requiredState;
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,17 @@
 package com.example.backorders.exceptions;
 
+/**
+ * Resultado esperado del pago (saldo insuficiente, duplicado, pasarela caída), no un bug:
+ * no captura stack trace. Durante una caída de la pasarela estas excepciones se lanzan en cada
+ * petición, y recorrer la pila para llenarlo costaba más que el resto del camino de error.
+ * La causa, si la hay, conserva su propio stack trace.
+ */
 public class PaymentException extends RuntimeException {
     public PaymentException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public PaymentException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
 }
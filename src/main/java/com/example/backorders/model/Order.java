@@ -1,11 +1,18 @@
 package com.example.backorders.model;
 
+import com.example.backorders.sharding.ShardSequenceGenerator;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    // Búsqueda de pendientes vencidas (PendingOrderExpiryService)
+    @Index(name = "idx_orders_status_created", columnList = "status, createdAt")
+})
 public class Order {
     public static final String STATUS_PENDING = "pendiente";
     public static final String STATUS_COMPLETED = "completada";
@@ -15,16 +22,36 @@ public class Order {
     public static final String STATUS_PENDING_DELIVERY = "pendiente de entrega";
     public static final String STATUS_DELIVERED = "entregada";
 
+    public static final int BATCH_SIZE = 100;
+
+    // Secuencia con asignación en bloques (pooled): Hibernate reserva 50 ids por viaje a la base
+    // y puede agrupar los INSERT en lotes JDBC, cosa que IDENTITY impide.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "orders_seq")
+    @GenericGenerator(name = "orders_seq", type = ShardSequenceGenerator.class, parameters = {
+            @Parameter(name = "sequence_name", value = "orders_seq"),
+            @Parameter(name = "increment_size", value = "50")
+    })
     private Long id;
 
     private String status;
     private String userId; // id del usuario propietario de la orden (desde Keycloak / JWT)
-    private Double totalAmount;
+    // Total en centavos (ver money.Money); lo calcula OrderTotals a partir de los items
+    @Column(name = "total_cents", nullable = false)
+    private long totalCents;
     private Date createdAt = new Date();
 
+    // Control optimista: cancelar, pagar y confirmar leen el estado y después escriben; si otra
+    // transacción cambió la orden en el medio, el UPDATE ... WHERE version = ? no toca filas y la
+    // operación se reintenta (OptimisticRetry). Los UPDATE en bloque también lo incrementan.
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    // Al cargar varias órdenes, los items se traen en una consulta por cada BATCH_SIZE órdenes
+    // en vez de una por orden (N+1). OrderControllerQueryCountTest controla que siga así.
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @BatchSize(size = BATCH_SIZE)
     private List<OrderItem> items;
 
     // Getters y Setters
@@ -52,12 +79,12 @@ public class Order {
         this.userId = userId;
     }
 
-    public Double getTotalAmount() {
-        return totalAmount;
+    public long getTotalCents() {
+        return totalCents;
     }
 
-    public void setTotalAmount(Double totalAmount) {
-        this.totalAmount = totalAmount;
+    public void setTotalCents(long totalCents) {
+        this.totalCents = totalCents;
     }
 
     public Date getCreatedAt() {
@@ -68,6 +95,10 @@ public class Order {
         this.createdAt = createdAt;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public List<OrderItem> getItems() {
         return items;
     }
@@ -0,0 +1,84 @@
+package com.example.backorders.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Agregado persistido por día de creación y estado: cantidad de órdenes e importe total en
+ * centavos. Una fila por (día, estado), así que la tabla crece con los días y no con las órdenes.
+ * Lo mantiene OrderMetricsRollup y se puede reconstruir desde orders.
+ */
+@Entity
+@Table(name = "order_daily_stats")
+@IdClass(OrderDailyStat.Key.class)
+public class OrderDailyStat {
+
+    @Id
+    private LocalDate statDate;
+
+    @Id
+    private String status;
+
+    private long orderCount;
+    private long revenueCents;
+
+    public OrderDailyStat() {
+    }
+
+    public OrderDailyStat(LocalDate statDate, String status, long orderCount, long revenueCents) {
+        this.statDate = statDate;
+        this.status = status;
+        this.orderCount = orderCount;
+        this.revenueCents = revenueCents;
+    }
+
+    public LocalDate getStatDate() {
+        return statDate;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+
+    public static class Key implements Serializable {
+        private LocalDate statDate;
+        private String status;
+
+        public Key() {
+        }
+
+        public Key(LocalDate statDate, String status) {
+            this.statDate = statDate;
+            this.status = status;
+        }
+
+        public LocalDate getStatDate() {
+            return statDate;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(statDate, k.statDate) && Objects.equals(status, k.status);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(statDate, status);
+        }
+    }
+}
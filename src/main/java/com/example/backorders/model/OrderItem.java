@@ -1,19 +1,44 @@
 package com.example.backorders.model;
 
+import com.example.backorders.sharding.ShardSequenceGenerator;
 import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = {
+    // Índice inverso producto -> órdenes (recalls, faltantes de proveedor)
+    @Index(name = "idx_order_items_product_order", columnList = "product_id, order_id")
+})
 public class OrderItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "order_items_seq")
+    @GenericGenerator(name = "order_items_seq", type = ShardSequenceGenerator.class, parameters = {
+            @Parameter(name = "sequence_name", value = "order_items_seq"),
+            @Parameter(name = "increment_size", value = "50")
+    })
     private Long id;
 
     private Integer quantity;
-    private Double price;
-    private Double discount = 0.0;
-
-    @ManyToOne
+    // Precio unitario en centavos al momento de la compra (no cambia si después cambia el del producto).
+    // Null solo en items anteriores a la copia que el producto tampoco tenía precio
+    @Column(name = "price_cents")
+    private Long priceCents;
+    // Descuento en centavos sobre toda la línea (ver OrderTotals)
+    @Column(name = "discount_cents", nullable = false)
+    private long discountCents;
+
+    // Copia del nombre del producto al crear la orden: las lecturas (detalle, historial, recibo)
+    // no necesitan cargar products y muestran el nombre con el que se compró
+    @Column(name = "product_name", updatable = false)
+    private String productName;
+
+    // Id del producto leído de la misma columna de la FK, sin inicializar la relación
+    @Column(name = "product_id", insertable = false, updatable = false)
+    private Long productId;
+
+    // LAZY: la reposición de stock usa productId; la relación solo se asigna al crear el item
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     private Product product;
 
@@ -21,6 +46,20 @@ public class OrderItem {
     @JoinColumn(name = "order_id")
     private Order order;
 
+    // Completa la copia del producto en el INSERT si quien creó el item no lo hizo
+    @PrePersist
+    void captureProductSnapshot() {
+        if (product == null) {
+            return;
+        }
+        if (productName == null) {
+            productName = product.getName();
+        }
+        if (priceCents == null) {
+            priceCents = product.getPriceCents();
+        }
+    }
+
     // --- Getters y Setters ---
 
     public Long getId() {
@@ -39,20 +78,36 @@ public class OrderItem {
         this.quantity = quantity;
     }
 
-    public Double getPrice() {
-        return price;
+    public Long getPriceCents() {
+        return priceCents;
+    }
+
+    public void setPriceCents(Long priceCents) {
+        this.priceCents = priceCents;
+    }
+
+    public long getDiscountCents() {
+        return discountCents;
     }
 
-    public void setPrice(Double price) {
-        this.price = price;
+    public void setDiscountCents(long discountCents) {
+        this.discountCents = discountCents;
     }
 
-    public Double getDiscount() {
-        return discount;
+    public String getProductName() {
+        if (productName == null && product != null) {
+            // Item recién creado o anterior a la copia (lo completa OrderItemSnapshotBackfill)
+            return product.getName();
+        }
+        return productName;
     }
 
-    public void setDiscount(Double discount) {
-        this.discount = discount;
+    public Long getProductId() {
+        if (productId == null && product != null) {
+            // Item todavía no leído de la base (recién creado en esta sesión)
+            return product.getId();
+        }
+        return productId;
     }
 
     public Product getProduct() {
@@ -0,0 +1,74 @@
+package com.example.backorders.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tabla central de transiciones de estado de una orden.
+ * Toda validación de "desde qué estado se puede pasar a cuál" debe salir de aquí.
+ */
+public final class OrderStateMachine {
+
+    // estado origen -> estados destino permitidos
+    private static final Map<String, Set<String>> TRANSITIONS = new LinkedHashMap<>();
+
+    // estado destino -> estados origen desde los que se puede llegar (índice inverso de TRANSITIONS)
+    private static final Map<String, Set<String>> SOURCES = new LinkedHashMap<>();
+
+    // Destinos que se pueden aplicar en bloque: los de logística, sin efectos secundarios.
+    // Cancelar repone stock, pagar pasa por la pasarela y entregar lo confirma el cliente
+    // (confirmDelivery valida que sea su orden); completada solo sigue a entregada
+    private static final Set<String> BULK_TARGETS = Set.of(
+            Order.STATUS_IN_DELIVERY,
+            Order.STATUS_PENDING_DELIVERY);
+
+    static {
+        allow(Order.STATUS_PENDING, Order.STATUS_PAID, Order.STATUS_CANCELLED);
+        allow(Order.STATUS_PAID, Order.STATUS_IN_DELIVERY, Order.STATUS_PENDING_DELIVERY);
+        allow(Order.STATUS_IN_DELIVERY, Order.STATUS_PENDING_DELIVERY, Order.STATUS_DELIVERED);
+        allow(Order.STATUS_PENDING_DELIVERY, Order.STATUS_IN_DELIVERY, Order.STATUS_DELIVERED);
+        allow(Order.STATUS_DELIVERED, Order.STATUS_COMPLETED);
+    }
+
+    private OrderStateMachine() {
+    }
+
+    private static void allow(String from, String... targets) {
+        for (String to : targets) {
+            TRANSITIONS.computeIfAbsent(from, k -> new LinkedHashSet<>()).add(to);
+            SOURCES.computeIfAbsent(to, k -> new LinkedHashSet<>()).add(from);
+        }
+    }
+
+    public static boolean canTransition(String from, String to) {
+        return from != null && TRANSITIONS.getOrDefault(from, Set.of()).contains(to);
+    }
+
+    /**
+     * Estados desde los que se puede llegar a {@code target}; vacío si el estado no es alcanzable.
+     */
+    public static Set<String> sourcesFor(String target) {
+        return Collections.unmodifiableSet(SOURCES.getOrDefault(target, Set.of()));
+    }
+
+    /**
+     * true si el estado figura en la tabla (como origen o como destino).
+     */
+    public static boolean isKnownStatus(String status) {
+        return TRANSITIONS.containsKey(status) || SOURCES.containsKey(status);
+    }
+
+    public static boolean isBulkTarget(String target) {
+        return BULK_TARGETS.contains(target);
+    }
+
+    /**
+     * Texto para OrderStateException, ej. "en camino/pendiente de entrega".
+     */
+    public static String describeSources(String target) {
+        return String.join("/", sourcesFor(target));
+    }
+}
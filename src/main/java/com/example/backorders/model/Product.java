@@ -1,18 +1,29 @@
 package com.example.backorders.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
+// Los productos de los items (ManyToOne LAZY, solo en escrituras de stock) se cargan de a lotes, no uno por uno
 @Entity
 @Table(name = "products")
+@BatchSize(size = Order.BATCH_SIZE)
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String name;
-    private Double price;
+    // Precio en centavos; null si el producto todavía no tiene precio
+    @Column(name = "price_cents")
+    private Long priceCents;
     private Integer stock;
 
+    // Control optimista para las escrituras que leen y modifican el producto (catálogo). La reposición
+    // de stock es un UPDATE atómico (ProductRepository.addStock) que solo incrementa la versión
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     // --- Getters y Setters ---
 
     public Long getId() {
@@ -31,12 +42,16 @@ public class Product {
         this.name = name;
     }
 
-    public Double getPrice() {
-        return price;
+    public Long getPriceCents() {
+        return priceCents;
+    }
+
+    public void setPriceCents(Long priceCents) {
+        this.priceCents = priceCents;
     }
 
-    public void setPrice(Double price) {
-        this.price = price;
+    public long getVersion() {
+        return version;
     }
 
     public Integer getStock() {
@@ -0,0 +1,56 @@
+package com.example.backorders.money;
+
+import java.math.BigDecimal;
+
+/**
+ * Importes en centavos (long). Todo el dinero del modelo, los DTO y los recibos se guarda y se
+ * suma así: las cuentas son exactas (0.10 * 3 da 30 centavos, no 0.30000000000000004) y no hay
+ * Double que encajonar en cada getter.
+ *
+ * La conversión a decimal queda en los bordes: JSON/CBOR (MoneyJson) y texto (recibos).
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * Decimal exacto a centavos. Falla con más de dos decimales distintos de cero o si no entra en un long.
+     */
+    public static long fromDecimal(BigDecimal amount) {
+        try {
+            return amount.movePointRight(SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Importe inválido: " + amount.toPlainString());
+        }
+    }
+
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Agrega "1234.05" (o "-0.50") al StringBuilder sin armar objetos intermedios.
+     */
+    public static StringBuilder appendTo(StringBuilder sb, long cents) {
+        long units = cents / 100;
+        long fraction = cents % 100;
+        if (cents < 0) {
+            // Sin Math.abs(cents): no hay valor positivo para Long.MIN_VALUE
+            sb.append('-');
+            units = -units;
+            fraction = -fraction;
+        }
+        sb.append(units).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction);
+    }
+
+    public static String format(long cents) {
+        return appendTo(new StringBuilder(24), cents).toString();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.backorders.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Centavos en JSON/CBOR como número decimal ({@code 1250} se escribe {@code 12.50}): los clientes
+ * siguen viendo el mismo importe que antes del cambio a centavos.
+ *
+ * Al leer se usa el texto del número, no un double, así que 0.1 llega como 10 centavos exactos.
+ * Más de dos decimales es un error de formato (400).
+ */
+public final class MoneyJson {
+
+    private MoneyJson() {
+    }
+
+    public static final class Serializer extends JsonSerializer<Long> {
+        @Override
+        public void serialize(Long cents, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeNumber(Money.toDecimal(cents));
+        }
+    }
+
+    public static final class Deserializer extends JsonDeserializer<Long> {
+        @Override
+        public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            BigDecimal amount;
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                amount = p.getDecimalValue();
+            } else if (token == JsonToken.VALUE_STRING) {
+                try {
+                    amount = new BigDecimal(p.getText().trim());
+                } catch (NumberFormatException e) {
+                    throw ctxt.weirdStringException(p.getText(), Long.class, "Importe inválido");
+                }
+            } else {
+                return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+            }
+            try {
+                return Money.fromDecimal(amount);
+            } catch (IllegalArgumentException e) {
+                throw ctxt.weirdNumberException(amount, Long.class, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.backorders.money;
+
+import com.example.backorders.model.OrderItem;
+
+import java.util.List;
+
+/**
+ * Subtotal, descuento y total de los items de una orden, en centavos.
+ *
+ * Recorre la lista por índice y suma en long: no crea iteradores, Double ni BigDecimal, así que
+ * no genera basura aunque se llame por cada orden de una carga masiva. Un desborde lanza
+ * ArithmeticException en vez de devolver un total negativo.
+ *
+ * El descuento de un item es un importe sobre toda la línea (no por unidad) y nunca la deja en
+ * negativo. Un item sin precio (anterior a la copia del producto) suma 0.
+ */
+public final class OrderTotals {
+
+    private OrderTotals() {
+    }
+
+    /**
+     * Precio por cantidad, sin descuento.
+     */
+    public static long grossCents(long unitCents, int quantity) {
+        return Math.multiplyExact(unitCents, (long) quantity);
+    }
+
+    /**
+     * Precio por cantidad menos el descuento de la línea, como mínimo 0.
+     */
+    public static long lineCents(long unitCents, int quantity, long discountCents) {
+        long gross = grossCents(unitCents, quantity);
+        return gross - Math.min(Math.max(discountCents, 0), gross);
+    }
+
+    public static long subtotalCents(List<OrderItem> items) {
+        long sum = 0;
+        for (int i = 0, n = items.size(); i < n; i++) {
+            OrderItem item = items.get(i);
+            sum = Math.addExact(sum, grossCents(unitCents(item), quantity(item)));
+        }
+        return sum;
+    }
+
+    /**
+     * Descuento efectivamente aplicado: subtotal - total.
+     */
+    public static long discountCents(List<OrderItem> items) {
+        long sum = 0;
+        for (int i = 0, n = items.size(); i < n; i++) {
+            OrderItem item = items.get(i);
+            long gross = grossCents(unitCents(item), quantity(item));
+            sum = Math.addExact(sum, gross - lineCents(unitCents(item), quantity(item), item.getDiscountCents()));
+        }
+        return sum;
+    }
+
+    public static long totalCents(List<OrderItem> items) {
+        long sum = 0;
+        for (int i = 0, n = items.size(); i < n; i++) {
+            OrderItem item = items.get(i);
+            sum = Math.addExact(sum, lineCents(unitCents(item), quantity(item), item.getDiscountCents()));
+        }
+        return sum;
+    }
+
+    private static long unitCents(OrderItem item) {
+        Long cents = item.getPriceCents();
+        return cents != null ? cents : 0;
+    }
+
+    private static int quantity(OrderItem item) {
+        Integer quantity = item.getQuantity();
+        return quantity != null ? quantity : 0;
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.backorders.reconciliation;
+
+import com.example.backorders.dto.ReconciliationMismatchDTO;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Recorre el archivo de liquidación de la pasarela y lo cruza contra un PaidOrderIndex.
+ *
+ * Formato: una línea por pago, {@code orderId,monto[,...]}, monto con punto y hasta dos
+ * decimales; se toleran espacios alrededor de cada campo (exportes de ancho fijo), CRLF y una
+ * cabecera en la primera línea. Las columnas después del monto se ignoran.
+ *
+ * El archivo se lee con memoria mapeada y se divide con fork-join en tramos de {@code leafBytes};
+ * cada tramo mapea solo su parte (más un margen para terminar la última línea), así que el
+ * archivo puede superar los 2 GB de un MappedByteBuffer. Una línea pertenece al tramo donde
+ * empieza. El parseo trabaja sobre bytes, sin crear Strings por línea.
+ *
+ * Solo se cruzan las líneas con orderId en (afterId, upToId]: el servicio carga las órdenes
+ * pagadas por bloques de ids y hace una pasada por bloque, con memoria acotada al bloque.
+ */
+public final class LedgerScanner {
+
+    // Largo máximo de una línea; una más larga se informa como inválida
+    static final int MAX_LINE = 4096;
+
+    private final ForkJoinPool pool;
+    private final int leafBytes;
+
+    public LedgerScanner(ForkJoinPool pool, int leafBytes) {
+        if (leafBytes < MAX_LINE) {
+            throw new IllegalArgumentException("leafBytes debe ser al menos " + MAX_LINE);
+        }
+        this.pool = pool;
+        this.leafBytes = leafBytes;
+    }
+
+    /**
+     * Totales de una pasada. {@code lines} (y las líneas inválidas sin id) solo se cuentan si la
+     * pasada se pidió con {@code countLines}, para no repetirlos en cada bloque.
+     */
+    public static final class Counts {
+        public long lines;
+        public long matched;
+        public long extra;
+        public long amountMismatch;
+        public long duplicate;
+        public long malformed;
+
+        public Counts add(Counts o) {
+            lines += o.lines;
+            matched += o.matched;
+            extra += o.extra;
+            amountMismatch += o.amountMismatch;
+            duplicate += o.duplicate;
+            malformed += o.malformed;
+            return this;
+        }
+    }
+
+    /**
+     * Una pasada sobre el archivo. {@code listener} recibe cada diferencia desde varios hilos.
+     */
+    public Counts scan(Path file, PaidOrderIndex index, long afterId, long upToId, boolean countLines,
+                       Consumer<ReconciliationMismatchDTO> listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Pass pass = new Pass(channel, size, index, afterId, upToId, countLines, listener);
+            try {
+                return pool.invoke(new Segment(pass, 0, size));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private record Pass(FileChannel channel, long size, PaidOrderIndex index, long afterId, long upToId,
+                        boolean countLines, Consumer<ReconciliationMismatchDTO> listener) {
+    }
+
+    private final class Segment extends RecursiveTask<Counts> {
+        private final Pass pass;
+        private final long start;
+        private final long end;
+
+        Segment(Pass pass, long start, long end) {
+            this.pass = pass;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (end - start <= leafBytes) {
+                try {
+                    return scanLeaf(pass, start, end);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            long mid = start + (end - start) / 2;
+            Segment left = new Segment(pass, start, mid);
+            left.fork();
+            Counts right = new Segment(pass, mid, end).compute();
+            return right.add(left.join());
+        }
+    }
+
+    private static Counts scanLeaf(Pass pass, long start, long end) throws IOException {
+        Counts counts = new Counts();
+        if (start >= end) {
+            return counts;
+        }
+        // Un byte antes (para saber si el tramo empieza en inicio de línea) y un margen después
+        long base = Math.max(0, start - 1);
+        long limit = Math.min(pass.size(), end + MAX_LINE);
+        MappedByteBuffer buf = pass.channel().map(FileChannel.MapMode.READ_ONLY, base, limit - base);
+        int bufLimit = (int) (limit - base);
+        int pos = (int) (start - base);
+        int stop = (int) (end - base);
+
+        if (start > 0 && buf.get(pos - 1) != '\n') {
+            // La línea empezó en el tramo anterior
+            while (pos < bufLimit && buf.get(pos) != '\n') {
+                pos++;
+            }
+            pos++;
+        }
+
+        while (pos < stop) {
+            int eol = pos;
+            while (eol < bufLimit && buf.get(eol) != '\n') {
+                eol++;
+            }
+            if (eol == bufLimit && limit < pass.size()) {
+                // No terminó dentro del margen: línea demasiado larga, ocupa el resto del tramo
+                malformed(pass, counts, base + pos, false);
+                return counts;
+            }
+            processLine(pass, counts, buf, pos, eol, base + pos);
+            pos = eol + 1;
+        }
+        return counts;
+    }
+
+    private static void processLine(Pass pass, Counts counts, MappedByteBuffer buf, int from, int to, long offset) {
+        if (to > from && buf.get(to - 1) == '\r') {
+            to--;
+        }
+        int p = skipSpaces(buf, from, to);
+        if (p == to) {
+            return; // línea vacía
+        }
+        if (pass.countLines()) {
+            counts.lines++;
+        }
+
+        // orderId
+        long id = 0;
+        int digits = 0;
+        while (p < to && isDigit(buf.get(p)) && digits < 18) {
+            id = id * 10 + (buf.get(p) - '0');
+            p++;
+            digits++;
+        }
+        if (digits == 0 || (p < to && isDigit(buf.get(p)))) {
+            if (offset == 0 && digits == 0) {
+                // Cabecera
+                if (pass.countLines()) {
+                    counts.lines--;
+                }
+                return;
+            }
+            malformed(pass, counts, offset, false);
+            return;
+        }
+        if (id <= pass.afterId() || id > pass.upToId()) {
+            return; // Otro bloque
+        }
+
+        // monto en centavos (un error acá se informa en la pasada del bloque del id)
+        p = skipSpaces(buf, p, to);
+        if (p == to || buf.get(p) != ',') {
+            malformed(pass, counts, offset, true);
+            return;
+        }
+        p = skipSpaces(buf, p + 1, to);
+        boolean negative = p < to && buf.get(p) == '-';
+        if (negative) {
+            p++;
+        }
+        long units = 0;
+        int unitDigits = 0;
+        while (p < to && isDigit(buf.get(p)) && unitDigits < 15) {
+            units = units * 10 + (buf.get(p) - '0');
+            p++;
+            unitDigits++;
+        }
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (p < to && buf.get(p) == '.') {
+            p++;
+            while (p < to && isDigit(buf.get(p)) && fractionDigits < 2) {
+                fraction = fraction * 10 + (buf.get(p) - '0');
+                p++;
+                fractionDigits++;
+            }
+        }
+        p = skipSpaces(buf, p, to);
+        if ((unitDigits == 0 && fractionDigits == 0) || (p < to && buf.get(p) != ',')) {
+            malformed(pass, counts, offset, true);
+            return;
+        }
+        long cents = units * 100 + (fractionDigits == 1 ? fraction * 10 : fraction);
+        if (negative) {
+            cents = -cents;
+        }
+
+        PaidOrderIndex index = pass.index();
+        int slot = index.slotOf(id);
+        if (slot < 0) {
+            counts.extra++;
+            pass.listener().accept(new ReconciliationMismatchDTO(ReconciliationMismatchDTO.EXTRA, id, null, cents, offset));
+            return;
+        }
+        if (index.hit(slot) > 0) {
+            counts.duplicate++;
+            pass.listener().accept(new ReconciliationMismatchDTO(ReconciliationMismatchDTO.DUPLICATE, id,
+                    index.centsAt(slot), cents, offset));
+            return;
+        }
+        if (index.centsAt(slot) != cents) {
+            counts.amountMismatch++;
+            pass.listener().accept(new ReconciliationMismatchDTO(ReconciliationMismatchDTO.AMOUNT, id,
+                    index.centsAt(slot), cents, offset));
+            return;
+        }
+        counts.matched++;
+    }
+
+    // Sin id legible la línea no pertenece a ningún bloque: se informa solo en la pasada que cuenta líneas
+    private static void malformed(Pass pass, Counts counts, long offset, boolean idInRange) {
+        if (idInRange || pass.countLines()) {
+            counts.malformed++;
+            pass.listener().accept(new ReconciliationMismatchDTO(ReconciliationMismatchDTO.MALFORMED, null, null, null, offset));
+        }
+    }
+
+    private static int skipSpaces(MappedByteBuffer buf, int p, int to) {
+        while (p < to && (buf.get(p) == ' ' || buf.get(p) == '\t')) {
+            p++;
+        }
+        return p;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.backorders.reconciliation;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Mapa orderId -> importe en centavos sobre arreglos primitivos (direccionamiento abierto,
+ * sondeo lineal), sin objetos por entrada: un bloque de un millón de órdenes ocupa ~40 MB.
+ *
+ * Se carga desde un solo hilo y después se consulta desde varios. Cada posición tiene además
+ * un contador de apariciones en el archivo de la pasarela, para detectar órdenes faltantes
+ * (0 apariciones) y duplicadas (más de una).
+ *
+ * La clave 0 marca una posición libre: los ids de orden son siempre positivos.
+ */
+public final class PaidOrderIndex {
+
+    private static final long FREE = 0;
+
+    private final long[] keys;
+    private final long[] cents;
+    private final AtomicIntegerArray hits;
+    private final int maxEntries;
+    private final int shift;
+    private int size;
+
+    public PaidOrderIndex(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries debe ser mayor a 0");
+        }
+        // Factor de carga <= 0.5: sondeos cortos incluso con ids consecutivos
+        int capacity = Integer.highestOneBit(Math.max(2, maxEntries) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.cents = new long[capacity];
+        this.hits = new AtomicIntegerArray(capacity);
+        this.maxEntries = maxEntries;
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    public void put(long orderId, long amountCents) {
+        if (orderId <= 0) {
+            throw new IllegalArgumentException("Id de orden inválido: " + orderId);
+        }
+        int mask = keys.length - 1;
+        for (int i = index(orderId); ; i = (i + 1) & mask) {
+            if (keys[i] == orderId) {
+                cents[i] = amountCents;
+                return;
+            }
+            if (keys[i] == FREE) {
+                if (size == maxEntries) {
+                    throw new IllegalStateException("PaidOrderIndex lleno (" + maxEntries + ")");
+                }
+                keys[i] = orderId;
+                cents[i] = amountCents;
+                size++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Posición de la orden, o -1 si no está.
+     */
+    public int slotOf(long orderId) {
+        int mask = keys.length - 1;
+        for (int i = index(orderId); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == orderId) {
+                return i;
+            }
+            if (k == FREE) {
+                return -1;
+            }
+        }
+    }
+
+    public long centsAt(int slot) {
+        return cents[slot];
+    }
+
+    public long orderIdAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Registra una aparición en el archivo y devuelve cuántas había antes.
+     */
+    public int hit(int slot) {
+        return hits.getAndIncrement(slot);
+    }
+
+    public int hitsAt(int slot) {
+        return hits.get(slot);
+    }
+
+    public boolean isUsed(int slot) {
+        return keys[slot] != FREE;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Vacía el índice para reutilizarlo con el siguiente bloque (sin volver a reservar memoria).
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        Arrays.fill(cents, 0);
+        resetHits();
+        size = 0;
+    }
+
+    /**
+     * Vuelve a 0 los contadores de apariciones, conservando las órdenes cargadas.
+     */
+    public void resetHits() {
+        for (int i = 0; i < hits.length(); i++) {
+            hits.set(i, 0);
+        }
+    }
+
+    // Hash de Fibonacci: los bits altos del producto reparten bien ids consecutivos
+    private int index(long orderId) {
+        return (int) ((orderId * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.backorders.security;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JwtDecoder que guarda los tokens ya validados para no verificar la firma en cada petición.
+ * La clave es el SHA-256 del token (nunca se guarda el token en claro) y cada entrada
+ * vence en el "exp" del token, o tras maxTtl si el token no trae "exp".
+ * Los tokens inválidos no se cachean: siempre pasan por el decoder delegado.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final int maxEntries;
+    private final Duration maxTtl;
+    private final Clock clock;
+    private final Map<String, CachedJwt> cache = new ConcurrentHashMap<>();
+
+    public CachingJwtDecoder(JwtDecoder delegate, int maxEntries, Duration maxTtl, Clock clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries debe ser mayor a 0");
+        }
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.maxTtl = maxTtl;
+        this.clock = clock;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String key = digest(token);
+        Instant now = clock.instant();
+
+        CachedJwt cached = cache.get(key);
+        if (cached != null) {
+            if (now.isBefore(cached.expiresAt())) {
+                return cached.jwt();
+            }
+            cache.remove(key, cached);
+        }
+
+        // Primera vez (o vencido): se valida firma y claims con el decoder real
+        Jwt jwt = delegate.decode(token);
+
+        Instant limit = now.plus(maxTtl);
+        Instant expiresAt = jwt.getExpiresAt() != null && jwt.getExpiresAt().isBefore(limit)
+                ? jwt.getExpiresAt()
+                : limit;
+        if (now.isBefore(expiresAt)) {
+            if (cache.size() >= maxEntries) {
+                evict(now);
+            }
+            cache.put(key, new CachedJwt(jwt, expiresAt));
+        }
+        return jwt;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Libera espacio: primero los tokens vencidos y, si no alcanza, entradas arbitrarias
+     * hasta dejar el cache al 90% de su capacidad.
+     */
+    private void evict(Instant now) {
+        cache.values().removeIf(entry -> !now.isBefore(entry.expiresAt()));
+
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        Iterator<String> it = cache.keySet().iterator();
+        while (cache.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private record CachedJwt(Jwt jwt, Instant expiresAt) {
+    }
+}
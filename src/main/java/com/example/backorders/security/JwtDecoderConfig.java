@@ -0,0 +1,68 @@
+package com.example.backorders.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.net.URL;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Reemplaza el JwtDecoder por defecto del resource server por uno con JWK Set local
+ * y cache de tokens ya verificados. Se activa solo si está configurado el jwk-set-uri.
+ */
+@Configuration
+@ConditionalOnProperty("spring.security.oauth2.resourceserver.jwt.jwk-set-uri")
+public class JwtDecoderConfig {
+
+    @Bean
+    public RefreshingJwkSetSource jwkSetSource(
+            @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+            @Value("${back-orders.security.jwk-refresh-interval:PT5M}") Duration refreshInterval,
+            @Value("${back-orders.security.jwk-min-refresh-interval:PT30S}") Duration minRefreshInterval) {
+        return new RefreshingJwkSetSource(
+                () -> JWKSet.load(new URL(jwkSetUri), 2000, 2000, 512 * 1024),
+                refreshInterval,
+                minRefreshInterval);
+    }
+
+    @Bean
+    public JwtDecoder jwtDecoder(
+            RefreshingJwkSetSource jwkSetSource,
+            @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri:}") String issuer,
+            @Value("${back-orders.security.jwt-cache.max-entries:10000}") int maxEntries,
+            @Value("${back-orders.security.jwt-cache.max-ttl:PT15M}") Duration maxTtl) {
+        OAuth2TokenValidator<Jwt> validator = issuer.isBlank()
+                ? JwtValidators.createDefault()
+                : JwtValidators.createDefaultWithIssuer(issuer);
+        return new CachingJwtDecoder(nimbusDecoder(jwkSetSource, validator), maxEntries, maxTtl, Clock.systemUTC());
+    }
+
+    /**
+     * Decoder que verifica firma RS256 contra el JWK Set dado y aplica los validadores de Spring.
+     */
+    static NimbusJwtDecoder nimbusDecoder(JWKSource<SecurityContext> jwkSource, OAuth2TokenValidator<Jwt> validator) {
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+        // Los claims los valida Spring (exp, nbf, iss) con el validator configurado abajo
+        processor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+        decoder.setJwtValidator(validator);
+        return decoder;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.backorders.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Habilita @PreAuthorize en los endpoints de administración, logística, migración y finanzas.
+ *
+ * Los roles llegan en el claim back-orders.security.roles-claim del JWT (por defecto "roles") y se
+ * mapean a ROLE_*: {"roles": ["ADMIN"]} cumple hasRole('ADMIN'). Los scopes se siguen mapeando a
+ * SCOPE_* como antes.
+ */
+@Configuration
+@EnableMethodSecurity
+public class MethodSecurityConfig {
+
+    @Bean
+    public JwtAuthenticationConverter jwtAuthenticationConverter(
+            @Value("${back-orders.security.roles-claim:roles}") String rolesClaim) {
+        JwtGrantedAuthoritiesConverter scopes = new JwtGrantedAuthoritiesConverter();
+        JwtGrantedAuthoritiesConverter roles = new JwtGrantedAuthoritiesConverter();
+        roles.setAuthoritiesClaimName(rolesClaim);
+        roles.setAuthorityPrefix("ROLE_");
+
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(jwt -> {
+            Collection<GrantedAuthority> authorities = new ArrayList<>(scopes.convert(jwt));
+            authorities.addAll(roles.convert(jwt));
+            return authorities;
+        });
+        return converter;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.backorders.security;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fuente de claves públicas (JWK Set) que se mantiene en memoria y se refresca en segundo plano.
+ * Así la validación de un token nunca espera una llamada HTTP al servidor de identidad, salvo
+ * cuando llega un "kid" desconocido (rotación de claves), que fuerza una recarga inmediata
+ * limitada a una cada minRefreshInterval.
+ */
+public class RefreshingJwkSetSource implements JWKSource<SecurityContext>, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshingJwkSetSource.class);
+
+    private final Callable<JWKSet> loader;
+    private final Duration minRefreshInterval;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile JWKSet jwkSet;
+    private volatile long lastRefreshNanos;
+
+    public RefreshingJwkSetSource(Callable<JWKSet> loader, Duration refreshInterval, Duration minRefreshInterval) {
+        this.loader = loader;
+        this.minRefreshInterval = minRefreshInterval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "jwk-set-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = refreshInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::backgroundRefresh, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector selector, SecurityContext context) throws KeySourceException {
+        JWKSet current = jwkSet;
+        if (current == null) {
+            current = refresh(true);
+        }
+
+        List<JWK> matches = selector.select(current);
+        if (matches.isEmpty()) {
+            // Posible rotación de claves: recargar una vez y volver a buscar
+            current = refresh(false);
+            matches = selector.select(current);
+        }
+        return matches;
+    }
+
+    private synchronized JWKSet refresh(boolean force) throws KeySourceException {
+        boolean tooSoon = jwkSet != null
+                && System.nanoTime() - lastRefreshNanos < minRefreshInterval.toNanos();
+        if (!force && tooSoon) {
+            return jwkSet;
+        }
+        if (force && jwkSet != null) {
+            // Otro hilo ya cargó el JWK Set mientras esperábamos el lock
+            return jwkSet;
+        }
+        try {
+            jwkSet = loader.call();
+            lastRefreshNanos = System.nanoTime();
+            return jwkSet;
+        } catch (Exception e) {
+            if (jwkSet != null) {
+                log.warn("No se pudo recargar el JWK Set, se mantienen las claves anteriores: {}", e.getMessage());
+                return jwkSet;
+            }
+            throw new KeySourceException("No se pudo obtener el JWK Set", e);
+        }
+    }
+
+    private void backgroundRefresh() {
+        try {
+            JWKSet loaded = loader.call();
+            synchronized (this) {
+                jwkSet = loaded;
+                lastRefreshNanos = System.nanoTime();
+            }
+        } catch (Exception e) {
+            log.warn("Fallo el refresco periódico del JWK Set: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
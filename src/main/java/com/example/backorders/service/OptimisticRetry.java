@@ -0,0 +1,97 @@
+package com.example.backorders.service;
+
+import com.example.backorders.exceptions.OrderConflictException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Reintenta una operación transaccional completa cuando choca con otra que modificó las mismas
+ * filas: versión vieja (@Version en Order/Product), lock que no se pudo tomar o deadlock.
+ *
+ * Se usa fuera de la transacción (ShardedOrderService): cada intento vuelve a leer la orden, así
+ * que una transición que dejó de ser válida (ej. pagar una orden que otro acaba de cancelar) se
+ * resuelve como estado inválido y no como conflicto.
+ *
+ * Espera entre intentos con backoff exponencial y jitter completo (al azar entre 0 y
+ * initial-backoff * 2^intento, hasta max-backoff) para que los que chocaron no vuelvan a
+ * chocar juntos. Después de max-attempts lanza OrderConflictException (409).
+ *
+ * Métricas: orders.concurrency.retries y orders.concurrency.exhausted.
+ */
+@Component
+public class OptimisticRetry {
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final Counter retries;
+    private final Counter exhausted;
+
+    public OptimisticRetry(
+            MeterRegistry meterRegistry,
+            @Value("${back-orders.concurrency.max-attempts:5}") int maxAttempts,
+            @Value("${back-orders.concurrency.initial-backoff:PT0.005S}") Duration initialBackoff,
+            @Value("${back-orders.concurrency.max-backoff:PT0.2S}") Duration maxBackoff) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("back-orders.concurrency.max-attempts debe ser mayor a 0");
+        }
+        if (initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException("back-orders.concurrency.max-backoff debe ser >= initial-backoff >= 0");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.retries = Counter.builder("orders.concurrency.retries")
+                .description("Operaciones repetidas por conflicto de concurrencia")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("orders.concurrency.exhausted")
+                .description("Operaciones que agotaron los reintentos (409)")
+                .register(meterRegistry);
+    }
+
+    public <T> T run(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    throw new OrderConflictException(
+                            "La orden fue modificada por otra operación; reintente", e);
+                }
+                retries.increment();
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    private void backoff(int attempt, ConcurrencyFailureException cause) {
+        long ceiling = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        long nanos = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrderConflictException("Interrumpido esperando para reintentar", cause);
+        }
+    }
+
+    public double retryCount() {
+        return retries.count();
+    }
+
+    public double exhaustedCount() {
+        return exhausted.count();
+    }
+}
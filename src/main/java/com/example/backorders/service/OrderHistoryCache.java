@@ -0,0 +1,197 @@
+package com.example.backorders.service;
+
+import com.example.backorders.events.OrderStatusChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Cache de la primera página del historial de un usuario, ya serializada a JSON.
+ *
+ * Invalidación por generación: cada usuario cae en un contador de un arreglo fijo y cada entrada
+ * guarda la generación con la que se generó. Un cambio de estado solo incrementa el contador
+ * (O(1), sin recorrer el cache); las entradas viejas dejan de coincidir y se descartan al leerlas
+ * o al liberar espacio. Dos usuarios que comparten contador se invalidan juntos, nunca de menos.
+ *
+ * La generación se lee antes de consultar la base: si la orden cambia mientras se arma la
+ * respuesta, la entrada nace vieja. Cada entrada vence además a los {@code ttl}, porque los
+ * cambios hechos por otras instancias no llegan a este contador.
+ *
+ * Métrica: orders.history.cache{endpoint, result=hit|miss}.
+ */
+@Service
+public class OrderHistoryCache {
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final long maxBytes;
+    private final Duration ttl;
+    private final Clock clock;
+
+    private final AtomicLongArray generations;
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OrderHistoryCache(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${back-orders.history-cache.max-bytes:67108864}") long maxBytes,
+            @Value("${back-orders.history-cache.ttl:PT1M}") Duration ttl,
+            @Value("${back-orders.history-cache.generation-stripes:65536}") int stripes) {
+        this(objectMapper, meterRegistry, maxBytes, ttl, stripes, Clock.systemUTC());
+    }
+
+    OrderHistoryCache(ObjectMapper objectMapper, MeterRegistry meterRegistry, long maxBytes,
+                      Duration ttl, int stripes, Clock clock) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("back-orders.history-cache.max-bytes debe ser mayor a 0");
+        }
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("back-orders.history-cache.generation-stripes debe ser potencia de 2");
+        }
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.maxBytes = maxBytes;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.generations = new AtomicLongArray(stripes);
+    }
+
+    /**
+     * Devuelve el JSON cacheado para la combinación usuario + filtros, o lo genera con
+     * {@code loader}, lo serializa y lo guarda.
+     */
+    public byte[] getOrLoad(String endpoint, String userId, String status, String fechaInicio, int size,
+                            Supplier<?> loader) {
+        Key key = new Key(endpoint, userId, status, fechaInicio, size);
+        int stripe = stripe(userId);
+        long generation = generations.get(stripe);
+        Instant now = clock.instant();
+
+        Entry cached = cache.get(key);
+        if (cached != null) {
+            if (cached.generation() == generation && now.isBefore(cached.expiresAt())) {
+                count(endpoint, true);
+                return cached.body();
+            }
+            remove(key, cached);
+        }
+        count(endpoint, false);
+
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(loader.get());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el historial", e);
+        }
+
+        if (body.length <= maxBytes / 10) {
+            if (totalBytes.get() + body.length > maxBytes) {
+                evict(now);
+            }
+            Entry entry = new Entry(body, generation, now.plus(ttl));
+            Entry previous = cache.put(key, entry);
+            totalBytes.addAndGet(body.length - (previous != null ? previous.body().length : 0));
+        }
+        return body;
+    }
+
+    /**
+     * Invalida todo el historial cacheado del usuario. O(1): solo incrementa su generación.
+     */
+    public void invalidate(String userId) {
+        if (userId != null) {
+            generations.incrementAndGet(stripe(userId));
+        }
+    }
+
+    // Después del commit: invalidar antes permitiría que una lectura concurrente vuelva a cachear el estado viejo
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    /**
+     * Proporción de aciertos del endpoint desde el arranque (0 si todavía no hubo lecturas).
+     */
+    public double hitRate(String endpoint) {
+        Counter[] pair = counters.get(endpoint);
+        if (pair == null) {
+            return 0;
+        }
+        double hits = pair[0].count();
+        double total = hits + pair[1].count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    public long totalBytes() {
+        return totalBytes.get();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Libera espacio: primero las entradas vencidas o de una generación anterior y, si no alcanza,
+     * entradas arbitrarias hasta dejar el cache al 90% de maxBytes.
+     */
+    private void evict(Instant now) {
+        for (Map.Entry<Key, Entry> e : cache.entrySet()) {
+            Entry entry = e.getValue();
+            if (!now.isBefore(entry.expiresAt()) || entry.generation() != generations.get(stripe(e.getKey().userId()))) {
+                remove(e.getKey(), entry);
+            }
+        }
+
+        long target = maxBytes - maxBytes / 10;
+        Iterator<Map.Entry<Key, Entry>> it = cache.entrySet().iterator();
+        while (totalBytes.get() > target && it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            remove(e.getKey(), e.getValue());
+        }
+    }
+
+    private void remove(Key key, Entry entry) {
+        if (cache.remove(key, entry)) {
+            totalBytes.addAndGet(-entry.body().length);
+        }
+    }
+
+    private int stripe(String userId) {
+        int h = userId.hashCode();
+        return (h ^ (h >>> 16)) & (generations.length() - 1);
+    }
+
+    private void count(String endpoint, boolean hit) {
+        Counter[] pair = counters.computeIfAbsent(endpoint, e -> new Counter[]{
+                Counter.builder("orders.history.cache").tag("endpoint", e).tag("result", "hit").register(meterRegistry),
+                Counter.builder("orders.history.cache").tag("endpoint", e).tag("result", "miss").register(meterRegistry)
+        });
+        pair[hit ? 0 : 1].increment();
+    }
+
+    private record Key(String endpoint, String userId, String status, String fechaInicio, int size) {
+    }
+
+    private record Entry(byte[] body, long generation, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.backorders.service;
+
+import com.example.backorders.Repositories.ProductRepository;
+import com.example.backorders.dto.OrderIngestErrorDTO;
+import com.example.backorders.dto.OrderIngestLineDTO;
+import com.example.backorders.dto.OrderIngestResponseDTO;
+import com.example.backorders.dto.OrderItemDTO;
+import com.example.backorders.events.OrderStatusChangedEvent;
+import com.example.backorders.model.Order;
+import com.example.backorders.model.OrderItem;
+import com.example.backorders.model.Product;
+import com.example.backorders.money.OrderTotals;
+import com.example.backorders.sharding.ShardRouter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carga masiva de órdenes (migración desde el checkout) a partir de un stream NDJSON.
+ *
+ * Las líneas se leen de a una y se agrupan en lotes de {@code batchSize}. Cada lote corre en su
+ * propia transacción: bloquea una vez los productos involucrados, valida y descuenta el stock
+ * agregado por producto y persiste las órdenes con ids de secuencia (pooled), de modo que
+ * Hibernate envía los INSERT en lotes JDBC. Un error en una línea solo descarta esa línea.
+ * Cada orden creada se publica como OrderStatusChangedEvent sin estado origen.
+ *
+ * Solo entran órdenes pendientes a precio de catálogo: el pago y las demás transiciones pasan por
+ * sus flujos normales, y el precio de un item, si viene, tiene que coincidir con el del producto.
+ */
+@Service
+@Lazy
+public class OrderIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIngestionService.class);
+
+    private final ObjectReader lineReader;
+    private final EntityManager entityManager;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public OrderIngestionService(
+            ObjectMapper objectMapper,
+            EntityManager entityManager,
+            ProductRepository productRepository,
+            PlatformTransactionManager transactionManager,
+            ShardRouter shardRouter,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${back-orders.ingest.batch-size:500}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("back-orders.ingest.batch-size debe ser mayor a 0");
+        }
+        this.lineReader = objectMapper.readerFor(OrderIngestLineDTO.class);
+        this.entityManager = entityManager;
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouter = shardRouter;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    private record Line(long number, OrderIngestLineDTO order) {
+    }
+
+    private record BatchResult(int created, List<OrderIngestErrorDTO> errors) {
+    }
+
+    public OrderIngestResponseDTO ingest(InputStream body) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<OrderIngestErrorDTO> errors = new ArrayList<>();
+        List<Line> batch = new ArrayList<>(batchSize);
+        long received = 0;
+        long created = 0;
+        long number = 0;
+
+        String raw;
+        while ((raw = reader.readLine()) != null) {
+            number++;
+            if (raw.isBlank()) {
+                continue;
+            }
+            received++;
+
+            OrderIngestLineDTO order;
+            try {
+                order = lineReader.readValue(raw);
+                validate(order);
+            } catch (JsonProcessingException e) {
+                errors.add(new OrderIngestErrorDTO(number, null, "JSON inválido: " + e.getOriginalMessage()));
+                continue;
+            } catch (IllegalArgumentException e) {
+                errors.add(new OrderIngestErrorDTO(number, externalIdOf(raw), e.getMessage()));
+                continue;
+            }
+
+            batch.add(new Line(number, order));
+            if (batch.size() == batchSize) {
+                created += flush(batch, errors);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            created += flush(batch, errors);
+        }
+
+        errors.sort((a, b) -> Long.compare(a.getLine(), b.getLine()));
+        return new OrderIngestResponseDTO(received, created, received - created, errors);
+    }
+
+    // externalId de una línea que parseó pero no pasó la validación
+    private String externalIdOf(String raw) {
+        try {
+            return lineReader.<OrderIngestLineDTO>readValue(raw).getExternalId();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void validate(OrderIngestLineDTO order) {
+        if (order.getUserId() == null || order.getUserId().isBlank()) {
+            throw new IllegalArgumentException("userId es obligatorio");
+        }
+        // Un estado distinto salteaba el pago ("pagada") o descontaba stock de una orden cancelada
+        if (order.getStatus() != null && !Order.STATUS_PENDING.equals(order.getStatus())) {
+            throw new IllegalArgumentException("Solo se cargan órdenes pendientes: " + order.getStatus());
+        }
+        if (order.getItems() == null || order.getItems().isEmpty()) {
+            throw new IllegalArgumentException("La orden debe tener al menos un item");
+        }
+        for (OrderItemDTO item : order.getItems()) {
+            if (item.getProductId() == null) {
+                throw new IllegalArgumentException("productId es obligatorio en cada item");
+            }
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Cantidad inválida para el producto " + item.getProductId());
+            }
+            if (item.getPriceCents() != null && item.getPriceCents() < 0) {
+                throw new IllegalArgumentException("Precio inválido para el producto " + item.getProductId());
+            }
+        }
+    }
+
+    /**
+     * Persiste un lote (separado por shard del usuario). Si la transacción de un shard falla,
+     * todas sus líneas se informan como error y se sigue con el resto.
+     */
+    private int flush(List<Line> batch, List<OrderIngestErrorDTO> errors) {
+        Map<Integer, List<Line>> byShard = new LinkedHashMap<>();
+        for (Line line : batch) {
+            byShard.computeIfAbsent(shardRouter.shardForUser(line.order().getUserId()), s -> new ArrayList<>()).add(line);
+        }
+
+        int created = 0;
+        for (Map.Entry<Integer, List<Line>> entry : byShard.entrySet()) {
+            List<Line> lines = entry.getValue();
+            try {
+                BatchResult result = shardRouter.onShard(entry.getKey(),
+                        () -> transactionTemplate.execute(tx -> insertBatch(lines)));
+                created += result.created();
+                errors.addAll(result.errors());
+            } catch (RuntimeException e) {
+                // El detalle (SQL, driver) va al log una vez; al cliente solo un mensaje fijo por línea
+                log.warn("Falló el lote de {} órdenes en el shard {} (líneas {}-{})", lines.size(), entry.getKey(),
+                        lines.get(0).number(), lines.get(lines.size() - 1).number(), e);
+                for (Line line : lines) {
+                    errors.add(new OrderIngestErrorDTO(line.number(), line.order().getExternalId(),
+                            "Error al guardar el lote"));
+                }
+            }
+        }
+        return created;
+    }
+
+    private BatchResult insertBatch(List<Line> lines) {
+        // Stock pedido por producto en todo el lote: se carga y bloquea cada producto una sola vez
+        Map<Long, Integer> demand = new HashMap<>();
+        for (Line line : lines) {
+            for (OrderItemDTO item : line.order().getItems()) {
+                demand.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        Map<Long, Integer> remaining = new HashMap<>();
+        for (Product p : productRepository.findAllByIdInForUpdate(demand.keySet())) {
+            products.put(p.getId(), p);
+            remaining.put(p.getId(), p.getStock() != null ? p.getStock() : 0);
+        }
+
+        List<OrderIngestErrorDTO> errors = new ArrayList<>();
+        int created = 0;
+        for (Line line : lines) {
+            OrderIngestLineDTO dto = line.order();
+
+            Map<Long, Integer> needed = new HashMap<>();
+            for (OrderItemDTO item : dto.getItems()) {
+                needed.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+            String error = checkLine(dto, needed, products, remaining);
+            if (error != null) {
+                errors.add(new OrderIngestErrorDTO(line.number(), dto.getExternalId(), error));
+                continue;
+            }
+            needed.forEach((productId, qty) -> remaining.merge(productId, -qty, Integer::sum));
+
+            Order order = toOrder(dto, products);
+            entityManager.persist(order);
+            // Se entrega después del commit del lote: invalida el historial del usuario y suma a los agregados
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getId(), order.getUserId(), null,
+                    order.getStatus(), order.getCreatedAt(), order.getTotalCents()));
+            created++;
+        }
+
+        // Un UPDATE por producto con el stock final del lote
+        remaining.forEach((productId, stock) -> {
+            Product p = products.get(productId);
+            if (p.getStock() == null || p.getStock() != stock.intValue()) {
+                p.setStock(stock);
+            }
+        });
+
+        entityManager.flush();
+        entityManager.clear();
+        return new BatchResult(created, errors);
+    }
+
+    private static String checkLine(OrderIngestLineDTO dto, Map<Long, Integer> needed,
+                                    Map<Long, Product> products, Map<Long, Integer> remaining) {
+        for (Map.Entry<Long, Integer> e : needed.entrySet()) {
+            Integer available = remaining.get(e.getKey());
+            if (available == null) {
+                return "Producto no encontrado: " + e.getKey();
+            }
+            if (available < e.getValue()) {
+                return "Stock insuficiente para el producto " + e.getKey();
+            }
+        }
+        long total = 0;
+        for (OrderItemDTO item : dto.getItems()) {
+            Long price = products.get(item.getProductId()).getPriceCents();
+            if (price == null) {
+                return "El producto " + item.getProductId() + " no tiene precio";
+            }
+            if (item.getPriceCents() != null && !item.getPriceCents().equals(price)) {
+                return "El precio del producto " + item.getProductId() + " no coincide con el catálogo";
+            }
+            try {
+                total = Math.addExact(total, OrderTotals.grossCents(price, item.getQuantity()));
+            } catch (ArithmeticException e) {
+                return "El total de la orden está fuera de rango";
+            }
+        }
+        return null;
+    }
+
+    private static Order toOrder(OrderIngestLineDTO dto, Map<Long, Product> products) {
+        Order order = new Order();
+        order.setUserId(dto.getUserId());
+        order.setStatus(Order.STATUS_PENDING);
+        order.setCreatedAt(dto.getCreatedAt() != null ? dto.getCreatedAt() : new Date());
+
+        List<OrderItem> items = new ArrayList<>(dto.getItems().size());
+        for (OrderItemDTO it : dto.getItems()) {
+            Product product = products.get(it.getProductId());
+
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setQuantity(it.getQuantity());
+            item.setPriceCents(product.getPriceCents());
+            items.add(item);
+        }
+        order.setItems(items);
+        order.setTotalCents(OrderTotals.totalCents(items));
+        return order;
+    }
+}
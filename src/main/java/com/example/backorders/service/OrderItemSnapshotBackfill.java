@@ -0,0 +1,99 @@
+package com.example.backorders.service;
+
+import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.sharding.ShardRouter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Completa product_name (y price, si faltaba) en los order_items creados antes de guardar la copia
+ * del producto en cada item. Los items nuevos la reciben al insertarse (OrderItem @PrePersist).
+ *
+ * Corre una vez al arrancar, en un hilo aparte, recorriendo cada shard por id de a {@code chunk-size}
+ * items, cada bloque en su transacción. Es idempotente: solo toca items sin copia, así que varias
+ * instancias pueden correrlo a la vez y una corrida cortada se retoma en el próximo arranque.
+ *
+ * El nombre que se copia es el actual del producto: para órdenes viejas no hay otro dato.
+ */
+@Service
+public class OrderItemSnapshotBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderItemSnapshotBackfill.class);
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter router;
+    private final boolean enabled;
+    private final int chunkSize;
+
+    public OrderItemSnapshotBackfill(
+            OrderRepository orderRepository,
+            PlatformTransactionManager transactionManager,
+            ShardRouter router,
+            @Value("${back-orders.item-snapshot-backfill.enabled:true}") boolean enabled,
+            @Value("${back-orders.item-snapshot-backfill.chunk-size:1000}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("back-orders.item-snapshot-backfill.chunk-size debe ser mayor a 0");
+        }
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.router = router;
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread t = new Thread(() -> {
+            try {
+                long updated = backfill();
+                if (updated > 0) {
+                    log.info("Copia del producto completada en {} items", updated);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Backfill de items incompleto, se reintenta en el próximo arranque: {}", e.getMessage());
+            }
+        }, "item-snapshot-backfill");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Completa todos los items pendientes de todos los shards. Devuelve cuántos actualizó.
+     */
+    public long backfill() {
+        long updated = 0;
+        for (long shardUpdated : router.onAllShards(this::backfillShard)) {
+            updated += shardUpdated;
+        }
+        return updated;
+    }
+
+    private long backfillShard(int shard) {
+        long updated = 0;
+        long after = 0;
+        while (true) {
+            long cursor = after;
+            List<Long> ids = orderRepository.findItemIdsWithoutSnapshot(cursor, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                return updated;
+            }
+            Integer count = transactionTemplate.execute(tx -> orderRepository.captureItemSnapshots(ids));
+            updated += count != null ? count : 0;
+            after = ids.get(ids.size() - 1);
+        }
+    }
+}
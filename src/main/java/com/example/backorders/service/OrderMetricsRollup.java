@@ -0,0 +1,302 @@
+package com.example.backorders.service;
+
+import com.example.backorders.Repositories.DailyStatView;
+import com.example.backorders.Repositories.OrderDailyStatRepository;
+import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.dto.OrderDailyMetricDTO;
+import com.example.backorders.events.OrderStatusChangedEvent;
+import com.example.backorders.model.OrderDailyStat;
+import com.example.backorders.sharding.ShardRouter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cantidad de órdenes e importe por día de creación y estado, sin recorrer la tabla de órdenes.
+ *
+ * - Cada transición (OrderStatusChangedEvent, después del commit) resta uno en (día, estado origen)
+ *   y suma uno en (día, estado destino) sobre LongAdder: sin locks ni contención entre peticiones.
+ * - Cada {@code flush-interval} los deltas se suman a order_daily_stats (una fila por día y estado,
+ *   en el shard de la orden) y se vuelve a leer la tabla, que incluye lo de otras instancias.
+ * - Una lectura combina lo persistido con los deltas pendientes: O(días × estados), sin importar
+ *   cuántas órdenes haya.
+ * - rebuild() recalcula la tabla con un GROUP BY sobre orders: sirve si hubo órdenes escritas por
+ *   fuera de este servicio o si se perdieron deltas (caída antes del flush). Por cada shard descarta
+ *   solo los deltas tomados antes de empezar su GROUP BY; los que llegan después quedan pendientes.
+ *   Una transición que confirma después del GROUP BY no se pierde: su evento llega después y se
+ *   suma en el próximo flush. Sí puede contarse dos veces una que confirmó antes del GROUP BY pero
+ *   cuyo evento llegó después de tomar los deltas (la ventana entre el commit y el listener), así
+ *   que conviene correrlo con poco tráfico.
+ *
+ * El día es la fecha local de createdAt en la zona de la JVM, igual que en los filtros por fecha.
+ * Los importes se guardan en centavos.
+ */
+@Service
+public class OrderMetricsRollup {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderMetricsRollup.class);
+
+    private final OrderRepository orderRepository;
+    private final OrderDailyStatRepository statRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter router;
+    private final ZoneId zone;
+    private final int maxDays;
+
+    // Deltas todavía no persistidos, por día y estado, con un par de contadores por shard.
+    // No se eliminan al persistir (un hilo podría estar sumando sobre la entrada): son días × estados.
+    private final Map<LocalDate, Map<String, Delta>> deltas = new ConcurrentHashMap<>();
+
+    // Lo persistido (todos los shards sumados), por día y estado. null hasta la primera lectura.
+    private volatile Map<LocalDate, Map<String, long[]>> persisted;
+
+    // Las lecturas toman el lock compartido; flush y rebuild el exclusivo, para que ningún delta
+    // se vea dos veces (en la tabla y pendiente) ni ninguna vez. Las transiciones no lo toman.
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static final class Delta {
+        final LongAdder[] orders;
+        final LongAdder[] cents;
+
+        Delta(int shards) {
+            orders = new LongAdder[shards];
+            cents = new LongAdder[shards];
+            for (int i = 0; i < shards; i++) {
+                orders[i] = new LongAdder();
+                cents[i] = new LongAdder();
+            }
+        }
+    }
+
+    public OrderMetricsRollup(
+            OrderRepository orderRepository,
+            OrderDailyStatRepository statRepository,
+            PlatformTransactionManager transactionManager,
+            ShardRouter router,
+            @Value("${back-orders.metrics.max-days:366}") int maxDays) {
+        this.orderRepository = orderRepository;
+        this.statRepository = statRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.router = router;
+        this.zone = ZoneId.systemDefault();
+        this.maxDays = maxDays;
+    }
+
+    // Después del commit: una transición que se revierte no debe contarse
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        if (event.createdAt() == null) {
+            return;
+        }
+        int shard = Math.max(router.shardForOrder(event.orderId()), 0);
+        LocalDate day = dayOf(event.createdAt());
+        long cents = event.totalCents();
+
+        if (event.fromStatus() != null) {
+            add(day, event.fromStatus(), shard, -1, -cents);
+        }
+        if (event.toStatus() != null) {
+            add(day, event.toStatus(), shard, 1, cents);
+        }
+    }
+
+    private void add(LocalDate day, String status, int shard, long orders, long cents) {
+        Delta delta = deltas.computeIfAbsent(day, d -> new ConcurrentHashMap<>())
+                .computeIfAbsent(status, s -> new Delta(router.shardCount()));
+        delta.orders[shard].add(orders);
+        delta.cents[shard].add(cents);
+    }
+
+    /**
+     * Órdenes e importe por día y estado en [from, to] (yyyy-MM-dd, ambos incluidos).
+     * {@code status} es opcional. Solo se devuelven combinaciones con órdenes.
+     */
+    public List<OrderDailyMetricDTO> daily(String from, String to, String status) {
+        LocalDate start = parseDay(from);
+        LocalDate end = parseDay(to);
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("La fecha final es anterior a la inicial");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= maxDays) {
+            throw new IllegalArgumentException("Máximo " + maxDays + " días por consulta");
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<LocalDate, Map<String, long[]>> table = persistedOrLoad();
+            List<OrderDailyMetricDTO> result = new ArrayList<>();
+            for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+                Map<String, long[]> byStatus = new TreeMap<>();
+                table.getOrDefault(day, Map.of()).forEach((s, v) -> byStatus.put(s, v.clone()));
+                deltas.getOrDefault(day, Map.of()).forEach((s, delta) -> {
+                    long[] v = byStatus.computeIfAbsent(s, k -> new long[2]);
+                    for (int shard = 0; shard < delta.orders.length; shard++) {
+                        v[0] += delta.orders[shard].sum();
+                        v[1] += delta.cents[shard].sum();
+                    }
+                });
+                for (Map.Entry<String, long[]> e : byStatus.entrySet()) {
+                    long[] v = e.getValue();
+                    if (v[0] != 0 && (status == null || status.equalsIgnoreCase(e.getKey()))) {
+                        result.add(new OrderDailyMetricDTO(day, e.getKey(), v[0], v[1]));
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Suma los deltas pendientes a order_daily_stats y recarga la tabla. Un shard que falla
+     * conserva sus deltas para el próximo intento.
+     */
+    @Scheduled(fixedDelayString = "${back-orders.metrics.flush-interval:PT10S}",
+               initialDelayString = "${back-orders.metrics.flush-interval:PT10S}")
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            for (int shard = 0; shard < router.shardCount(); shard++) {
+                flushShard(shard);
+            }
+            persisted = load();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void flushShard(int shard) {
+        Map<OrderDailyStat.Key, long[]> taken = takeDeltas(shard);
+        if (taken.isEmpty()) {
+            return;
+        }
+
+        try {
+            router.onShard(shard, () -> transactionTemplate.execute(tx -> {
+                taken.forEach((key, v) -> {
+                    if (statRepository.addDelta(key.getStatDate(), key.getStatus(), v[0], v[1]) == 0) {
+                        statRepository.save(new OrderDailyStat(key.getStatDate(), key.getStatus(), v[0], v[1]));
+                    }
+                });
+                return null;
+            }));
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron guardar los agregados del shard {}: {}", shard, e.getMessage());
+            restoreDeltas(shard, taken);
+        }
+    }
+
+    /**
+     * Recalcula order_daily_stats en cada shard con un GROUP BY sobre orders. Descarta los deltas
+     * del shard tomados antes de abrir la transacción (ya están reflejados en las órdenes que ve el
+     * GROUP BY); los que llegan mientras corre quedan para el próximo flush. Si el shard falla, los
+     * deltas tomados se devuelven.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            router.onAllShards(shard -> {
+                // Antes de la transacción: con REPEATABLE READ la foto se tomaría en la primera sentencia
+                Map<OrderDailyStat.Key, long[]> taken = takeDeltas(shard);
+                try {
+                    return transactionTemplate.execute(tx -> {
+                        statRepository.deleteAllStats();
+                        List<DailyStatView> rows = orderRepository.aggregateByDayAndStatus();
+                        for (DailyStatView row : rows) {
+                            statRepository.save(new OrderDailyStat(row.getStatDate(), row.getStatus(),
+                                    row.getOrderCount(), row.getRevenueCents()));
+                        }
+                        return rows.size();
+                    });
+                } catch (RuntimeException e) {
+                    restoreDeltas(shard, taken);
+                    throw e;
+                }
+            });
+            persisted = load();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // sumThenReset toma cada celda con getAndSet: una suma concurrente queda en el valor
+    // tomado o en el contador, nunca se pierde
+    private Map<OrderDailyStat.Key, long[]> takeDeltas(int shard) {
+        Map<OrderDailyStat.Key, long[]> taken = new HashMap<>();
+        deltas.forEach((day, byStatus) -> byStatus.forEach((status, delta) -> {
+            long orders = delta.orders[shard].sumThenReset();
+            long cents = delta.cents[shard].sumThenReset();
+            if (orders != 0 || cents != 0) {
+                taken.put(new OrderDailyStat.Key(day, status), new long[]{orders, cents});
+            }
+        }));
+        return taken;
+    }
+
+    private void restoreDeltas(int shard, Map<OrderDailyStat.Key, long[]> taken) {
+        taken.forEach((key, v) -> {
+            Delta delta = deltas.get(key.getStatDate()).get(key.getStatus());
+            delta.orders[shard].add(v[0]);
+            delta.cents[shard].add(v[1]);
+        });
+    }
+
+    private Map<LocalDate, Map<String, long[]>> persistedOrLoad() {
+        Map<LocalDate, Map<String, long[]>> table = persisted;
+        if (table == null) {
+            // Primera lectura: se carga con el lock compartido; dos lecturas simultáneas cargan dos veces
+            table = load();
+            persisted = table;
+        }
+        return table;
+    }
+
+    private Map<LocalDate, Map<String, long[]>> load() {
+        Map<LocalDate, Map<String, long[]>> table = new HashMap<>();
+        for (List<OrderDailyStat> rows : router.onAllShards(shard -> statRepository.findAll())) {
+            for (OrderDailyStat row : rows) {
+                long[] v = table.computeIfAbsent(row.getStatDate(), d -> new HashMap<>())
+                        .computeIfAbsent(row.getStatus(), s -> new long[2]);
+                v[0] += row.getOrderCount();
+                v[1] += row.getRevenueCents();
+            }
+        }
+        return table;
+    }
+
+    private LocalDate dayOf(Date date) {
+        return date.toInstant().atZone(zone).toLocalDate();
+    }
+
+    private static LocalDate parseDay(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Las fechas from y to son obligatorias (yyyy-MM-dd)");
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Fechas inválidas. Formato esperado: yyyy-MM-dd");
+        }
+    }
+}
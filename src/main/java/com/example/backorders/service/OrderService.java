@@ -2,59 +2,89 @@ package com.example.backorders.service;
 
 import com.example.backorders.exceptions.DuplicatePaymentException;
 import com.example.backorders.exceptions.InsufficientFundsException;
+import com.example.backorders.exceptions.OrderConflictException;
 import com.example.backorders.exceptions.OrderStateException;
 import com.example.backorders.exceptions.PaymentApiException;
+import com.example.backorders.events.OrderStatusChangedEvent;
 import com.example.backorders.model.Order;
 import com.example.backorders.model.OrderItem;
-import com.example.backorders.model.Product;
+import com.example.backorders.model.OrderStateMachine;
 import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.Repositories.OrderStatusView;
 import com.example.backorders.Repositories.ProductRepository;
+import com.example.backorders.dto.BulkStatusUpdateResponseDTO;
+import com.example.backorders.dto.OrderDetailDTO;
 import com.example.backorders.dto.OrderSummaryDTO;
 import com.example.backorders.dto.OrderItemDTO;
+import com.example.backorders.dto.ProductOrderDTO;
+import com.example.backorders.dto.ProductOrdersPageDTO;
+import com.example.backorders.dto.StatusTransitionResultDTO;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeParseException;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.Cell;
-import com.itextpdf.layout.element.Paragraph;
-import com.itextpdf.layout.element.Table;
-import com.itextpdf.layout.properties.TextAlignment;
-import java.io.ByteArrayOutputStream;
-
+/**
+ * Las lecturas corren en transacciones readOnly y devuelven DTOs: la conexión se devuelve al pool
+ * antes de serializar la respuesta o renderizar el PDF (con open-in-view desactivado).
+ */
 @Service
 @Transactional
 public class OrderService {
 
+    // Máximo de órdenes por petición en bloque y tamaño de cada sentencia IN (...)
+    static final int MAX_BULK_ORDERS = 10_000;
+    static final int BULK_CHUNK_SIZE = 1_000;
+
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final PaymentService paymentService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReceiptRenderer receiptRenderer;
 
-    public OrderService(OrderRepository orderRepository, ProductRepository productRepository) {
+    public OrderService(OrderRepository orderRepository, ProductRepository productRepository,
+                        ApplicationEventPublisher eventPublisher, @Lazy ReceiptRenderer receiptRenderer) {
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.receiptRenderer = receiptRenderer;
         this.paymentService = new PaymentService();
     }
 
+    @Transactional(readOnly = true)
     public Optional<Order> getOrderById(Long id) {
         return orderRepository.findById(id);
     }
 
-    public Optional<Order> confirmDelivery(Long id, String userId) {
+    /**
+     * Copia inmutable de la orden, tomada en una transacción corta de solo lectura.
+     */
+    @Transactional(readOnly = true)
+    public Optional<OrderDetailDTO> getOrderDetails(Long id) {
+        return orderRepository.findById(id).map(OrderDetailDTO::from);
+    }
+
+    public Optional<OrderDetailDTO> confirmDelivery(Long id, String userId) {
         Optional<Order> orderOpt = orderRepository.findById(id);
         if (orderOpt.isEmpty()) {
             return Optional.empty();
@@ -68,16 +98,15 @@ public class OrderService {
         }
 
         String currentState = order.getStatus();
-        if (!Order.STATUS_IN_DELIVERY.equals(currentState) && !Order.STATUS_PENDING_DELIVERY.equals(currentState)) {
-            throw new OrderStateException(currentState, "en camino/pendiente de entrega");
+        if (!OrderStateMachine.canTransition(currentState, Order.STATUS_DELIVERED)) {
+            throw new OrderStateException(currentState, OrderStateMachine.describeSources(Order.STATUS_DELIVERED));
         }
 
         // Actualizar estado
-        order.setStatus(Order.STATUS_DELIVERED);
-        orderRepository.save(order);
+        changeStatus(order, Order.STATUS_DELIVERED);
         sendDeliveryConfirmationNotification(order);
 
-        return Optional.of(order);
+        return Optional.of(OrderDetailDTO.from(order));
     }
 
     private void sendDeliveryConfirmationNotification(Order order) {
@@ -85,6 +114,7 @@ public class OrderService {
                 ": Su orden #" + order.getId() + " ha sido confirmada como entregada.");
     }
 
+    @Transactional(readOnly = true)
     public List<OrderSummaryDTO> getOrdersByUserId(String userId) {
         List<Order> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
         List<OrderSummaryDTO> result = new ArrayList<>();
@@ -93,42 +123,43 @@ public class OrderService {
             List<OrderItemDTO> items = new ArrayList<>();
             if (o.getItems() != null) {
                 for (OrderItem it : o.getItems()) {
-                    Long pid = it.getProduct() != null ? it.getProduct().getId() : null;
-                    items.add(new OrderItemDTO(pid, it.getQuantity(), it.getPrice()));
+                    items.add(new OrderItemDTO(it.getProductId(), it.getQuantity(), it.getPriceCents()));
                 }
             }
-            result.add(new OrderSummaryDTO(o.getId(), o.getCreatedAt(), o.getStatus(), o.getTotalAmount(), items));
+            result.add(new OrderSummaryDTO(o.getId(), o.getCreatedAt(), o.getStatus(), o.getTotalCents(), items));
         }
 
         return result;
     }
 
-    public Optional<Order> cancelOrder(Long id) {
+    public Optional<OrderDetailDTO> cancelOrder(Long id) {
         Optional<Order> orderOpt = orderRepository.findById(id);
 
         if (orderOpt.isPresent()) {
             Order order = orderOpt.get();
 
-            if (!Order.STATUS_PENDING.equals(order.getStatus())) {
+            if (!OrderStateMachine.canTransition(order.getStatus(), Order.STATUS_CANCELLED)) {
                 return Optional.empty();
             }
 
-            // Reponer stock
+            // Marcar orden cancelada; el flush toma el lock de la fila (y valida la versión) antes del stock
+            changeStatus(order, Order.STATUS_CANCELLED);
+            orderRepository.flush();
+
+            // Reponer stock con un UPDATE atómico por producto (sin cargar Product): dos cancelaciones
+            // que comparten producto no chocan por la versión. Locks en el mismo orden que el
+            // vencimiento (orden, después productos por id) para no caer en un deadlock con él
+            Map<Long, Integer> restock = new TreeMap<>();
             List<OrderItem> items = order.getItems();
             if (items != null) {
                 for (OrderItem item : items) {
-                    Product product = item.getProduct();
-                    if (product != null) {
-                        product.setStock(product.getStock() + item.getQuantity());
-                        productRepository.save(product);
+                    if (item.getProductId() != null && item.getQuantity() != null) {
+                        restock.merge(item.getProductId(), item.getQuantity(), Integer::sum);
                     }
                 }
             }
-
-            // Marcar orden cancelada
-            order.setStatus(Order.STATUS_CANCELLED);
-            orderRepository.save(order);
-            return Optional.of(order);
+            restock.forEach(productRepository::addStock);
+            return Optional.of(OrderDetailDTO.from(order));
         }
 
         return Optional.empty();
@@ -140,17 +171,105 @@ public class OrderService {
         if (orderOpt.isEmpty()) return Optional.empty();
 
         Order order = orderOpt.get();
-        if (!Order.STATUS_PENDING.equals(order.getStatus())) {
+        if (!OrderStateMachine.canTransition(order.getStatus(), Order.STATUS_PAID)) {
             return Optional.empty();
         }
-        order.setStatus(Order.STATUS_PAID);
-        orderRepository.save(order);
+        changeStatus(order, Order.STATUS_PAID);
         return Optional.of(order);
     }
 
+    private void changeStatus(Order order, String target) {
+        String previous = order.getStatus();
+        order.setStatus(target);
+        orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getId(), order.getUserId(), previous, target,
+                order.getCreatedAt(), order.getTotalCents()));
+    }
+
+    // ==============================================================
+    // TRANSICIONES EN BLOQUE (logística)
+    // ==============================================================
+
+    /**
+     * Mueve muchas órdenes a {@code targetStatus} con sentencias UPDATE ... WHERE status IN (...)
+     * en bloques de BULK_CHUNK_SIZE, leyendo cada bloque con FOR UPDATE. Devuelve el resultado de
+     * cada orden: aplicada, estado inválido o no encontrada.
+     */
+    public BulkStatusUpdateResponseDTO bulkTransition(String targetStatus, Collection<Long> orderIds) {
+        validateBulkRequest(targetStatus, orderIds);
+
+        Set<String> sources = OrderStateMachine.sourcesFor(targetStatus);
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        List<StatusTransitionResultDTO> results = new ArrayList<>(ids.size());
+        int applied = 0;
+
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size()));
+            applied += transitionChunk(chunk, sources, targetStatus, results);
+        }
+
+        return new BulkStatusUpdateResponseDTO(targetStatus, applied, results.size() - applied, results);
+    }
+
+    static void validateBulkRequest(String targetStatus, Collection<Long> orderIds) {
+        if (!OrderStateMachine.isBulkTarget(targetStatus)) {
+            throw new IllegalArgumentException("Estado destino no permitido en bloque: " + targetStatus);
+        }
+        if (orderIds == null || orderIds.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos una orden");
+        }
+        if (orderIds.size() > MAX_BULK_ORDERS) {
+            throw new IllegalArgumentException("Máximo " + MAX_BULK_ORDERS + " órdenes por petición");
+        }
+    }
+
+    private int transitionChunk(List<Long> chunk, Set<String> sources, String target,
+                                List<StatusTransitionResultDTO> results) {
+        // Filas bloqueadas hasta el commit: nadie cambia el estado entre esta lectura y el UPDATE,
+        // así el estado previo del evento es el real y una confirmación concurrente espera (y reintenta)
+        Map<Long, OrderStatusView> current = new HashMap<>();
+        for (OrderStatusView view : orderRepository.lockStatusByIdIn(chunk)) {
+            current.put(view.getId(), view);
+        }
+
+        List<Long> eligible = new ArrayList<>();
+        for (Long id : chunk) {
+            OrderStatusView view = current.get(id);
+            if (view != null && sources.contains(view.getStatus())) {
+                eligible.add(id);
+            }
+        }
+
+        if (!eligible.isEmpty()) {
+            int updated = orderRepository.updateStatusWhereStatusIn(eligible, sources, target);
+            if (updated != eligible.size()) {
+                // Con las filas bloqueadas no debería pasar; si pasa no se sabe cuáles cambió este UPDATE,
+                // así que se deshace todo en vez de publicar eventos de transiciones que no ocurrieron
+                throw new OrderConflictException("Otra operación modificó órdenes del bloque; reintente", null);
+            }
+        }
+
+        int applied = 0;
+        for (Long id : chunk) {
+            OrderStatusView view = current.get(id);
+            if (view == null) {
+                results.add(new StatusTransitionResultDTO(id, null, StatusTransitionResultDTO.NOT_FOUND));
+            } else if (!sources.contains(view.getStatus())) {
+                results.add(new StatusTransitionResultDTO(id, view.getStatus(), StatusTransitionResultDTO.INVALID_STATE));
+            } else {
+                results.add(new StatusTransitionResultDTO(id, view.getStatus(), StatusTransitionResultDTO.APPLIED));
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(id, view.getUserId(), view.getStatus(), target,
+                        view.getCreatedAt(), view.getTotalCents()));
+                applied++;
+            }
+        }
+        return applied;
+    }
+
     // ==============================================================
     // FILTROS POR ESTADO + FECHA + PAGINACIÓN
     // ==============================================================
+    @Transactional(readOnly = true)
     public Page<OrderSummaryDTO> getOrdersByUserId(
             String userId,
             String status,
@@ -178,9 +297,9 @@ public class OrderService {
         List<OrderItemDTO> items = order.getItems() != null
                 ? order.getItems().stream()
                         .map(it -> new OrderItemDTO(
-                                it.getProduct() != null ? it.getProduct().getId() : null,
+                                it.getProductId(),
                                 it.getQuantity(),
-                                it.getPrice()))
+                                it.getPriceCents()))
                         .toList()
                 : List.of();
 
@@ -188,7 +307,7 @@ public class OrderService {
                 order.getId(),
                 order.getCreatedAt(),
                 order.getStatus(),
-                order.getTotalAmount(),
+                order.getTotalCents(),
                 items
         );
     }
@@ -197,22 +316,10 @@ public class OrderService {
      * Filtra órdenes por estado y rango de fechas (startDate/endDate en formato yyyy-MM-dd).
      * Ambos parámetros son opcionales; si se pasan vacíos/NULL no se aplican.
      */
+    @Transactional(readOnly = true)
     public List<com.example.backorders.dto.OrderSummaryDTO> getOrdersByFilter(String status, String startDate, String endDate) {
-        Date start = null;
-        Date end = null;
-
-        try {
-            if (startDate != null && !startDate.isBlank()) {
-                LocalDate sd = LocalDate.parse(startDate);
-                start = Date.from(sd.atStartOfDay(ZoneId.systemDefault()).toInstant());
-            }
-            if (endDate != null && !endDate.isBlank()) {
-                LocalDate ed = LocalDate.parse(endDate);
-                end = Date.from(ed.atTime(LocalTime.MAX).atZone(ZoneId.systemDefault()).toInstant());
-            }
-        } catch (DateTimeParseException ex) {
-            throw new IllegalArgumentException("Fechas inválidas. Formato esperado: yyyy-MM-dd");
-        }
+        Date start = parseStartDate(startDate);
+        Date end = parseEndDate(endDate);
 
         List<Order> orders = orderRepository.findByFilter(status, start, end);
         List<com.example.backorders.dto.OrderSummaryDTO> result = new ArrayList<>();
@@ -221,88 +328,83 @@ public class OrderService {
             List<com.example.backorders.dto.OrderItemDTO> items = new ArrayList<>();
             if (o.getItems() != null) {
                 for (com.example.backorders.model.OrderItem it : o.getItems()) {
-                    Long pid = it.getProduct() != null ? it.getProduct().getId() : null;
-                    items.add(new com.example.backorders.dto.OrderItemDTO(pid, it.getQuantity(), it.getPrice()));
+                    items.add(new com.example.backorders.dto.OrderItemDTO(it.getProductId(), it.getQuantity(), it.getPriceCents()));
                 }
             }
-            result.add(new com.example.backorders.dto.OrderSummaryDTO(o.getId(), o.getCreatedAt(), o.getStatus(), o.getTotalAmount(), items));
+            result.add(new com.example.backorders.dto.OrderSummaryDTO(o.getId(), o.getCreatedAt(), o.getStatus(), o.getTotalCents(), items));
         }
 
         return result;
     }
 
+    private static Date parseStartDate(String startDate) {
+        if (startDate == null || startDate.isBlank()) return null;
+        try {
+            LocalDate sd = LocalDate.parse(startDate);
+            return Date.from(sd.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Fechas inválidas. Formato esperado: yyyy-MM-dd");
+        }
+    }
+
+    private static Date parseEndDate(String endDate) {
+        if (endDate == null || endDate.isBlank()) return null;
+        try {
+            LocalDate ed = LocalDate.parse(endDate);
+            return Date.from(ed.atTime(LocalTime.MAX).atZone(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Fechas inválidas. Formato esperado: yyyy-MM-dd");
+        }
+    }
+
     // ==============================================================
-    // HU-5: GENERAR RECIBO DE PAGO EN PDF
+    // ÓRDENES QUE CONTIENEN UN PRODUCTO (recalls / faltantes)
     // ==============================================================
-    public byte[] generateReceiptPdf(Order order) {
-        try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            PdfWriter writer = new PdfWriter(baos);
-            PdfDocument pdf = new PdfDocument(writer);
-            Document document = new Document(pdf);
-
-            // === ENCABEZADO ===
-            document.add(new Paragraph("RECIBO DE PAGO")
-                    .setFontSize(20)
-                    .setBold()
-                    .setTextAlignment(TextAlignment.CENTER));
-
-            document.add(new Paragraph("IS2 E-COMMERCE")
-                    .setFontSize(12)
-                    .setTextAlignment(TextAlignment.CENTER));
-
-            document.add(new Paragraph("\n"));
-
-            // === DATOS PRINCIPALES ===
-            Table table = new Table(2).useAllAvailableWidth();
-            table.addCell(createCell("Orden ID:"));
-            table.addCell(createCell(order.getId().toString()));
-
-            table.addCell(createCell("Fecha:"));
-            table.addCell(createCell(order.getCreatedAt().toString()));
-
-            table.addCell(createCell("Estado:"));
-            table.addCell(createCell(order.getStatus()));
-
-            table.addCell(createCell("Total:"));
-            table.addCell(createCell("$" + order.getTotalAmount()));
-
-            document.add(table);
-            document.add(new Paragraph("\n"));
-
-            // === DETALLE DE PRODUCTOS ===
-            document.add(new Paragraph("Detalles:")
-                    .setBold()
-                    .setFontSize(14));
-
-            Table itemsTable = new Table(new float[]{3, 1, 2}).useAllAvailableWidth();
-            itemsTable.addHeaderCell("Producto");
-            itemsTable.addHeaderCell("Cant.");
-            itemsTable.addHeaderCell("Precio");
-
-            for (OrderItem item : order.getItems()) {
-                Product p = item.getProduct();
-                itemsTable.addCell(p != null ? p.getName() : "N/A");
-                itemsTable.addCell(String.valueOf(item.getQuantity()));
-                itemsTable.addCell("$" + item.getPrice());
+
+    static final int MAX_PRODUCT_PAGE_SIZE = 500;
+
+    /**
+     * Pagina por keyset (id DESC) las órdenes que contienen el producto: dentro de un shard las ids
+     * salen de una secuencia, así que es de la más nueva a la más vieja. El cursor es la id de la
+     * última orden de la página anterior.
+     */
+    @Transactional(readOnly = true)
+    public ProductOrdersPageDTO getOrdersByProduct(Long productId, String status, String startDate,
+                                                   String endDate, String cursor, int size) {
+        if (size <= 0 || size > MAX_PRODUCT_PAGE_SIZE) {
+            throw new IllegalArgumentException("size debe estar entre 1 y " + MAX_PRODUCT_PAGE_SIZE);
+        }
+
+        Long cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                cursorId = Long.parseLong(cursor);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Cursor inválido");
             }
+        }
 
-            document.add(itemsTable);
-            document.add(new Paragraph("\n¡Gracias por su compra!")
-                .setTextAlignment(TextAlignment.CENTER));
+        List<ProductOrderDTO> orders = orderRepository.findOrdersContainingProduct(
+                productId, status, parseStartDate(startDate), parseEndDate(endDate),
+                cursorId, PageRequest.of(0, size));
 
-            document.close();
-            return baos.toByteArray();
-        } catch (Exception e) {
-            throw new RuntimeException("Error generando PDF", e);
+        String nextCursor = null;
+        if (orders.size() == size) {
+            nextCursor = String.valueOf(orders.get(orders.size() - 1).getOrderId());
         }
+        return new ProductOrdersPageDTO(orders, nextCursor);
     }
 
-    private Cell createCell(String content) {
-        return new Cell().add(new Paragraph(content)).setPadding(5);
+    // ==============================================================
+    // HU-5: GENERAR RECIBO DE PAGO EN PDF
+    // ==============================================================
+    // Sin transacción: con la de la clase, cada recibo tendría una conexión tomada mientras se renderiza
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public byte[] generateReceiptPdf(OrderDetailDTO order) {
+        try {
+            return receiptRenderer.render(order);
+        } catch (Exception e) {
+            throw new RuntimeException("Error generando PDF", e);
+        }
     }
 }
-
-
-
-
@@ -0,0 +1,303 @@
+package com.example.backorders.service;
+
+import com.example.backorders.Repositories.OrderAmountView;
+import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.dto.ReconciliationMismatchDTO;
+import com.example.backorders.dto.ReconciliationReportDTO;
+import com.example.backorders.model.Order;
+import com.example.backorders.reconciliation.LedgerScanner;
+import com.example.backorders.reconciliation.PaidOrderIndex;
+import com.example.backorders.sharding.ShardRouter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Concilia las órdenes pagadas contra el archivo de liquidación de la pasarela.
+ *
+ * Las órdenes pagadas se cargan por bloques de {@code chunk-size} ids (keyset por id, shard por
+ * shard: los ids de cada shard son mayores que los del anterior) en un PaidOrderIndex reutilizado,
+ * y por cada bloque se recorre el archivo completo con LedgerScanner cruzando solo las líneas
+ * cuyo id cae en el bloque. Los bloques cubren rangos (anterior, último id] contiguos, así cada
+ * línea se clasifica en exactamente una pasada; las líneas con ids mayores al último pagado se
+ * clasifican en el último bloque o en una pasada final con el índice vacío.
+ *
+ * La memoria no depende del tamaño del archivo ni de la cantidad de órdenes: un índice de
+ * {@code chunk-size} entradas y las primeras {@code max-report-entries} diferencias. El detalle
+ * completo va a &lt;archivo&gt;.mismatches.csv en el mismo directorio.
+ *
+ * Una conciliación a la vez (las siguientes esperan). Es @Lazy: el pool fork-join y el índice
+ * se crean recién con la primera conciliación.
+ */
+@Lazy
+@Service
+public class PaymentReconciliationService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentReconciliationService.class);
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final ShardRouter router;
+    private final Path dir;
+    private final int chunkSize;
+    private final int pageSize;
+    private final int maxReportEntries;
+    private final ForkJoinPool pool;
+    private final LedgerScanner scanner;
+
+    // Se crea con la primera conciliación y se reutiliza (vaciándolo) en cada bloque
+    private PaidOrderIndex index;
+
+    public PaymentReconciliationService(
+            OrderRepository orderRepository,
+            PlatformTransactionManager transactionManager,
+            ShardRouter router,
+            @Value("${back-orders.reconciliation.dir:${java.io.tmpdir}/back-orders-ledgers}") Path dir,
+            @Value("${back-orders.reconciliation.chunk-size:1000000}") int chunkSize,
+            @Value("${back-orders.reconciliation.page-size:10000}") int pageSize,
+            @Value("${back-orders.reconciliation.parallelism:0}") int parallelism,
+            @Value("${back-orders.reconciliation.leaf-bytes:8388608}") int leafBytes,
+            @Value("${back-orders.reconciliation.max-report-entries:1000}") int maxReportEntries) {
+        if (chunkSize <= 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("chunk-size y page-size deben ser mayores a 0");
+        }
+        this.orderRepository = orderRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.router = router;
+        this.dir = dir.toAbsolutePath().normalize();
+        this.chunkSize = chunkSize;
+        this.pageSize = pageSize;
+        this.maxReportEntries = maxReportEntries;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                p -> {
+                    var t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                    t.setName("ledger-scan-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, null, false);
+        this.scanner = new LedgerScanner(pool, leafBytes);
+    }
+
+    /**
+     * Concilia {@code fileName} (nombre de un archivo dentro de {@code back-orders.reconciliation.dir}).
+     * Lanza IllegalArgumentException si el nombre no es válido o el archivo no existe.
+     */
+    public synchronized ReconciliationReportDTO reconcile(String fileName) {
+        Path ledger = resolve(fileName);
+        Path report = ledger.resolveSibling(ledger.getFileName() + ".mismatches.csv");
+        Path tmp = ledger.resolveSibling(ledger.getFileName() + ".mismatches.csv.tmp");
+        long started = System.nanoTime();
+
+        if (index == null) {
+            index = new PaidOrderIndex(chunkSize);
+        }
+
+        ReconciliationReportDTO result = new ReconciliationReportDTO();
+        try (MismatchSink sink = new MismatchSink(tmp, maxReportEntries)) {
+            LedgerScanner.Counts totals = new LedgerScanner.Counts();
+            long missing = 0;
+            int passes = 0;
+            long coveredUpTo = 0;
+
+            for (int shard = 0; shard < router.shardCount(); shard++) {
+                long after = coveredUpTo;
+                while (true) {
+                    index.clear();
+                    long last = loadChunk(shard, after);
+                    if (index.size() == 0) {
+                        break;
+                    }
+                    boolean exhausted = index.size() < chunkSize;
+                    // El último bloque de todos también clasifica los ids mayores al último pagado
+                    long upTo = exhausted && shard == router.shardCount() - 1 ? Long.MAX_VALUE : last;
+
+                    totals.add(scanner.scan(ledger, index, coveredUpTo, upTo, passes == 0, sink));
+                    missing += reportMissing(sink);
+                    passes++;
+                    coveredUpTo = upTo;
+                    after = last;
+                    if (exhausted) {
+                        break;
+                    }
+                }
+            }
+            if (coveredUpTo != Long.MAX_VALUE) {
+                index.clear();
+                totals.add(scanner.scan(ledger, index, coveredUpTo, Long.MAX_VALUE, passes == 0, sink));
+                passes++;
+            }
+
+            result.setLineas(totals.lines);
+            result.setCoincidencias(totals.matched);
+            result.setFaltantes(missing);
+            result.setSobrantes(totals.extra);
+            result.setMontosDistintos(totals.amountMismatch);
+            result.setDuplicadas(totals.duplicate);
+            result.setLineasInvalidas(totals.malformed);
+            result.setPasadas(passes);
+            result.setDiferencias(sink.firstEntries());
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(tmp);
+            if (e instanceof IOException io) {
+                throw new UncheckedIOException("No se pudo conciliar " + fileName, io);
+            }
+            throw (RuntimeException) e;
+        } finally {
+            index.clear();
+        }
+
+        try {
+            Files.move(tmp, report, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el reporte " + report, e);
+        }
+        result.setArchivo(ledger.getFileName().toString());
+        result.setReporte(report.getFileName().toString());
+        result.setMilisegundos((System.nanoTime() - started) / 1_000_000);
+        log.info("Conciliación de {}: {} líneas, {} coincidencias, {} faltantes, {} sobrantes, {} montos distintos en {} pasadas ({} ms)",
+                result.getArchivo(), result.getLineas(), result.getCoincidencias(), result.getFaltantes(),
+                result.getSobrantes(), result.getMontosDistintos(), result.getPasadas(), result.getMilisegundos());
+        return result;
+    }
+
+    /**
+     * Directorio donde se buscan los archivos de la pasarela y se dejan los reportes.
+     */
+    public Path directory() {
+        return dir;
+    }
+
+    // Carga en el índice hasta chunk-size órdenes pagadas del shard con id > after, por páginas.
+    // Devuelve el último id cargado.
+    private long loadChunk(int shard, long after) {
+        long last = after;
+        while (index.size() < chunkSize) {
+            int limit = Math.min(pageSize, chunkSize - index.size());
+            long cursor = last;
+            List<OrderAmountView> page = router.onShard(shard, () -> readOnlyTx.execute(tx ->
+                    orderRepository.findAmountsByStatusAfter(Order.STATUS_PAID, cursor, PageRequest.of(0, limit))));
+            for (OrderAmountView row : page) {
+                index.put(row.getId(), row.getTotalCents());
+                last = row.getId();
+            }
+            if (page.size() < limit) {
+                break;
+            }
+        }
+        return last;
+    }
+
+    // Órdenes del bloque que no aparecieron en el archivo
+    private long reportMissing(Consumer<ReconciliationMismatchDTO> sink) {
+        long missing = 0;
+        for (int slot = 0; slot < index.capacity(); slot++) {
+            if (index.isUsed(slot) && index.hitsAt(slot) == 0) {
+                missing++;
+                sink.accept(new ReconciliationMismatchDTO(ReconciliationMismatchDTO.MISSING,
+                        index.orderIdAt(slot), index.centsAt(slot), null, null));
+            }
+        }
+        return missing;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Path resolve(String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("El parámetro file es obligatorio");
+        }
+        Path file = dir.resolve(fileName).normalize();
+        // Solo archivos directamente dentro del directorio configurado
+        if (!dir.equals(file.getParent()) || fileName.contains("/") || fileName.contains("\\")) {
+            throw new IllegalArgumentException("Nombre de archivo inválido: " + fileName);
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("No existe el archivo de liquidación " + fileName);
+        }
+        return file;
+    }
+
+    /**
+     * Destino de las diferencias: todas al CSV y las primeras N en memoria para la respuesta.
+     * Lo llaman varios hilos del pool a la vez.
+     */
+    private static final class MismatchSink implements Consumer<ReconciliationMismatchDTO>, AutoCloseable {
+        private final BufferedWriter writer;
+        private final int maxEntries;
+        private final List<ReconciliationMismatchDTO> first = new ArrayList<>();
+
+        MismatchSink(Path file, int maxEntries) throws IOException {
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            this.maxEntries = maxEntries;
+            writer.write("tipo,orderId,montoOrdenCentavos,montoPasarelaCentavos,offset\n");
+        }
+
+        @Override
+        public synchronized void accept(ReconciliationMismatchDTO m) {
+            if (first.size() < maxEntries) {
+                first.add(m);
+            }
+            try {
+                writer.write(m.getTipo());
+                writer.write(',');
+                writer.write(text(m.getOrderId()));
+                writer.write(',');
+                writer.write(text(m.getMontoOrdenCentavos()));
+                writer.write(',');
+                writer.write(text(m.getMontoPasarelaCentavos()));
+                writer.write(',');
+                writer.write(text(m.getOffset()));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized List<ReconciliationMismatchDTO> firstEntries() {
+            return List.copyOf(first);
+        }
+
+        private static String text(Long value) {
+            return value != null ? value.toString() : "";
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+}
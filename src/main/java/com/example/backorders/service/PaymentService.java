@@ -9,6 +9,9 @@ import com.example.backorders.exceptions.*;
  */
 public class PaymentService {
 
+    // Montos en centavos: 10000.00
+    private static final long MAX_AMOUNT_CENTS = 1_000_000;
+
     /**
      * Procesa el pago de la orden. Lanza una excepción específica si ocurre un fallo.
      */
@@ -17,8 +20,8 @@ public class PaymentService {
             throw new PaymentApiException("Orden nula");
         }
 
-        Double amount = order.getTotalAmount();
-        if (amount == null || amount < 0) {
+        long amount = order.getTotalCents();
+        if (amount < 0) {
             throw new PaymentApiException("Monto de la orden inválido");
         }
 
@@ -32,7 +35,7 @@ public class PaymentService {
             throw new PaymentApiException("Error de conexión con la pasarela de pagos");
         }
 
-        if (amount > 10000) {
+        if (amount > MAX_AMOUNT_CENTS) {
             throw new InsufficientFundsException("Saldo insuficiente");
         }
 
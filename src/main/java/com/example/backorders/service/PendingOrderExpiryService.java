@@ -0,0 +1,187 @@
+package com.example.backorders.service;
+
+import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.Repositories.OrderStatusView;
+import com.example.backorders.Repositories.ProductQuantityView;
+import com.example.backorders.Repositories.ProductRepository;
+import com.example.backorders.events.OrderStatusChangedEvent;
+import com.example.backorders.model.Order;
+import com.example.backorders.sharding.ShardRouter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cancela en segundo plano las órdenes que quedaron en "pendiente" más de {@code ttl},
+ * reponiendo su stock igual que cancelOrder.
+ *
+ * - Recorre el índice (status, created_at) de a bloques de {@code chunkSize}, cada uno en su transacción.
+ * - Cada bloque toma las filas con SELECT ... FOR UPDATE SKIP LOCKED: si hay varias instancias,
+ *   cada una procesa órdenes distintas y ninguna se cancela dos veces.
+ * - El stock se repone con un UPDATE por producto (suma de todas las órdenes del bloque),
+ *   no uno por item.
+ * - Se limita a {@code maxDutyCycle} del tiempo: después de cada bloque duerme en proporción a lo
+ *   que tardó, para no competir con las peticiones de usuarios por conexiones y locks.
+ *
+ * Métricas: orders.expiry.backlog (pendientes vencidas al inicio de la última corrida),
+ * orders.expiry.expired (órdenes canceladas) y orders.expiry.chunk (duración de cada bloque).
+ */
+@Service
+public class PendingOrderExpiryService {
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+    private final double maxDutyCycle;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final Counter expiredCounter;
+    private final Timer chunkTimer;
+
+    public PendingOrderExpiryService(
+            OrderRepository orderRepository,
+            ProductRepository productRepository,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            ShardRouter shardRouter,
+            MeterRegistry meterRegistry,
+            @Value("${back-orders.expiry.enabled:true}") boolean enabled,
+            @Value("${back-orders.expiry.ttl:PT30M}") Duration ttl,
+            @Value("${back-orders.expiry.chunk-size:200}") int chunkSize,
+            @Value("${back-orders.expiry.max-chunks-per-run:50}") int maxChunksPerRun,
+            @Value("${back-orders.expiry.max-duty-cycle:0.25}") double maxDutyCycle) {
+        if (chunkSize <= 0 || maxChunksPerRun <= 0) {
+            throw new IllegalArgumentException("back-orders.expiry.chunk-size y max-chunks-per-run deben ser mayores a 0");
+        }
+        if (maxDutyCycle <= 0 || maxDutyCycle > 1) {
+            throw new IllegalArgumentException("back-orders.expiry.max-duty-cycle debe estar en (0, 1]");
+        }
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.maxDutyCycle = maxDutyCycle;
+
+        meterRegistry.gauge("orders.expiry.backlog", backlog);
+        this.expiredCounter = Counter.builder("orders.expiry.expired")
+                .description("Órdenes pendientes canceladas por vencimiento")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("orders.expiry.chunk")
+                .description("Duración de cada bloque de vencimiento")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${back-orders.expiry.interval:PT1M}",
+               initialDelayString = "${back-orders.expiry.interval:PT1M}")
+    public void scheduledRun() {
+        if (enabled) {
+            expireStaleOrders();
+        }
+    }
+
+    /**
+     * Una corrida: en cada shard, bloques hasta vaciar el backlog o llegar a maxChunksPerRun.
+     * Devuelve la cantidad de órdenes canceladas.
+     *
+     * Los shards se recorren de a uno en el hilo que llama (el del scheduler) y no con onAllShards:
+     * throttle() duerme y ocuparía hilos del pool compartido de consultas a todos los shards.
+     */
+    public int expireStaleOrders() {
+        Date cutoff = new Date(System.currentTimeMillis() - ttl.toMillis());
+
+        long pending = 0;
+        long expired = 0;
+        for (int shard = 0; shard < shardRouter.shardCount() && !Thread.currentThread().isInterrupted(); shard++) {
+            long shardPending = shardRouter.onShard(shard,
+                    () -> orderRepository.countByStatusAndCreatedAtBefore(Order.STATUS_PENDING, cutoff));
+            pending += shardPending;
+            if (shardPending > 0) {
+                expired += shardRouter.onShard(shard, () -> expireOnShard(cutoff));
+            }
+        }
+        backlog.set(pending);
+        return (int) expired;
+    }
+
+    private long expireOnShard(Date cutoff) {
+        long expired = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun && !Thread.currentThread().isInterrupted(); chunk++) {
+            long start = System.nanoTime();
+            Integer count = transactionTemplate.execute(tx -> expireChunk(cutoff));
+            long elapsed = System.nanoTime() - start;
+            chunkTimer.record(Duration.ofNanos(elapsed));
+
+            expired += count;
+            expiredCounter.increment(count);
+            if (count < chunkSize) {
+                break;
+            }
+            throttle(elapsed);
+        }
+        return expired;
+    }
+
+    private int expireChunk(Date cutoff) {
+        List<OrderStatusView> locked = orderRepository.lockByStatusCreatedBefore(
+                Order.STATUS_PENDING, cutoff, PageRequest.of(0, chunkSize));
+        if (locked.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = locked.stream().map(OrderStatusView::getId).toList();
+
+        // Misma reposición de stock que cancelOrder, sumada por producto
+        for (ProductQuantityView q : orderRepository.sumQuantitiesByProduct(ids)) {
+            productRepository.addStock(q.getProductId(), Math.toIntExact(q.getQuantity()));
+        }
+
+        orderRepository.updateStatusWhereStatusIn(ids, List.of(Order.STATUS_PENDING), Order.STATUS_CANCELLED);
+        for (OrderStatusView view : locked) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                    view.getId(), view.getUserId(), Order.STATUS_PENDING, Order.STATUS_CANCELLED,
+                    view.getCreatedAt(), view.getTotalCents()));
+        }
+        return ids.size();
+    }
+
+    // Trabajar a lo sumo maxDutyCycle del tiempo: con 0.25, por cada 100 ms de bloque se duermen 300 ms
+    private void throttle(long elapsedNanos) {
+        long sleepNanos = (long) (elapsedNanos * (1 - maxDutyCycle) / maxDutyCycle);
+        if (sleepNanos <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(sleepNanos).toMillis(), (int) (sleepNanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getBacklog() {
+        return backlog.get();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.backorders.service;
+
+import com.example.backorders.Repositories.ProductRepository;
+import com.example.backorders.dto.ProductStockDTO;
+import com.example.backorders.model.Product;
+import com.example.backorders.sharding.ShardRouter;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stock de un producto repartido entre shards.
+ *
+ * order_items referencia products por FK en la misma base, así que el catálogo existe en cada
+ * shard y las ventas y reposiciones descuentan el stock del shard de la orden, dentro de la misma
+ * transacción. Para no vender N veces el stock real, la fila de cada shard guarda solo su parte:
+ * el stock vendible es la suma. setTotalStock es la única forma de fijarlo; reparte el total en
+ * partes iguales (el resto, de a una unidad, en los primeros shards).
+ *
+ * Una parte agotada no toma stock de otro shard: si un shard se queda sin stock y otros no, se
+ * vuelve a repartir con setTotalStock(getStock().getTotal()).
+ */
+@Service
+public class ProductStockService {
+
+    private final ProductRepository productRepository;
+    private final ShardRouter router;
+    private final TransactionTemplate transactionTemplate;
+
+    public ProductStockService(ProductRepository productRepository, ShardRouter router,
+                               PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.router = router;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Optional<ProductStockDTO> getStock(Long productId) {
+        List<Optional<Product>> perShard = router.onAllShards(shard -> productRepository.findById(productId));
+        if (perShard.stream().anyMatch(Optional::isEmpty)) {
+            return Optional.empty();
+        }
+
+        List<Integer> stocks = new ArrayList<>(perShard.size());
+        long total = 0;
+        for (Optional<Product> p : perShard) {
+            int stock = p.get().getStock() != null ? p.get().getStock() : 0;
+            stocks.add(stock);
+            total += stock;
+        }
+        return Optional.of(new ProductStockDTO(productId, total, stocks));
+    }
+
+    /**
+     * Reparte {@code total} entre los shards. Devuelve vacío, sin tocar ningún shard, si el producto
+     * no existe en alguno.
+     */
+    public Optional<ProductStockDTO> setTotalStock(Long productId, int total) {
+        if (total < 0) {
+            throw new IllegalArgumentException("El stock no puede ser negativo");
+        }
+        if (getStock(productId).isEmpty()) {
+            return Optional.empty();
+        }
+
+        int[] shares = split(total, router.shardCount());
+        router.onAllShards(shard -> transactionTemplate.execute(tx -> productRepository.setStock(productId, shares[shard])));
+        return getStock(productId);
+    }
+
+    static int[] split(int total, int shards) {
+        int[] shares = new int[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            shares[shard] = total / shards + (shard < total % shards ? 1 : 0);
+        }
+        return shares;
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.backorders.service;
+
+import com.example.backorders.dto.OrderDetailDTO;
+import com.example.backorders.dto.OrderDetailItemDTO;
+import com.example.backorders.dto.ReceiptJobDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Genera recibos PDF en segundo plano sobre un pool acotado y los deja en ReceiptStore.
+ *
+ * El jobId es el hash de los datos que se imprimen en el recibo, así que pedir dos veces el mismo
+ * recibo devuelve el mismo job, y un recibo ya generado (incluso antes de un reinicio) se sirve
+ * directo desde disco sin volver a renderizar. En memoria solo quedan los jobs no terminados y los
+ * fallidos, estos últimos durante back-orders.receipts.failed-ttl (para que el cliente vea el error al
+ * consultar); después se descartan y un nuevo pedido vuelve a intentar.
+ *
+ * Los workers reciben la copia inmutable de la orden (OrderDetailDTO): renderizar no toma conexiones.
+ *
+ * Es @Lazy (pool de hilos y escaneo del almacén en disco) para no demorar el arranque.
+ */
+@Lazy
+@Service
+public class ReceiptJobService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReceiptJobService.class);
+
+    private record Job(String jobId, Long orderId, String userId, String estado, String error, long failedAt) {
+        ReceiptJobDTO toDTO() {
+            return new ReceiptJobDTO(jobId, orderId, estado, error);
+        }
+    }
+
+    private final OrderService orderService;
+    private final ReceiptStore store;
+    private final ThreadPoolExecutor executor;
+    private final long failedTtlMillis;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public ReceiptJobService(
+            OrderService orderService,
+            ReceiptStore store,
+            @Value("${back-orders.receipts.workers:2}") int workers,
+            @Value("${back-orders.receipts.queue-capacity:100}") int queueCapacity,
+            @Value("${back-orders.receipts.failed-ttl:PT10M}") Duration failedTtl) {
+        this.orderService = orderService;
+        this.store = store;
+        this.failedTtlMillis = failedTtl.toMillis();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "receipt-renderer-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Encola la generación del recibo de una orden ya validada (propietario y estado pagada).
+     * Lanza RejectedExecutionException si la cola está llena.
+     */
+    public ReceiptJobDTO submit(OrderDetailDTO order) {
+        String jobId = receiptKey(order);
+        removeExpiredFailures();
+
+        if (store.find(jobId).isPresent()) {
+            jobs.remove(jobId);
+            return new ReceiptJobDTO(jobId, order.getId(), ReceiptJobDTO.READY, null);
+        }
+
+        Job pending = new Job(jobId, order.getId(), order.getUserId(), ReceiptJobDTO.PENDING, null, 0);
+        Job existing = jobs.putIfAbsent(jobId, pending);
+        if (existing != null && !ReceiptJobDTO.FAILED.equals(existing.estado())) {
+            return existing.toDTO();
+        }
+        if (existing != null) {
+            // Reintento de un job fallido
+            jobs.put(jobId, pending);
+        }
+
+        try {
+            executor.execute(() -> render(pending, order));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(jobId, pending);
+            throw e;
+        }
+        return pending.toDTO();
+    }
+
+    /**
+     * Estado del job, si existe y pertenece al usuario.
+     */
+    public Optional<ReceiptJobDTO> getJob(Long orderId, String jobId, String userId) {
+        removeExpiredFailures();
+        Job job = jobs.get(jobId);
+        if (job != null) {
+            return job.orderId().equals(orderId) && job.userId().equals(userId)
+                    ? Optional.of(job.toDTO())
+                    : Optional.empty();
+        }
+        return findReceipt(orderId, jobId, userId)
+                .map(e -> new ReceiptJobDTO(jobId, orderId, ReceiptJobDTO.READY, null));
+    }
+
+    /**
+     * Recibo ya generado, si existe y pertenece al usuario.
+     */
+    public Optional<ReceiptStore.Entry> findReceipt(Long orderId, String jobId, String userId) {
+        if (!isValidKey(jobId)) {
+            return Optional.empty();
+        }
+        return store.find(jobId)
+                .filter(e -> e.orderId().equals(orderId) && e.userId().equals(userId));
+    }
+
+    public void transferReceipt(ReceiptStore.Entry entry, WritableByteChannel target) throws IOException {
+        store.transferTo(entry, target);
+    }
+
+    private void render(Job job, OrderDetailDTO order) {
+        jobs.replace(job.jobId(), job, withState(job, ReceiptJobDTO.RUNNING, null, 0));
+        try {
+            byte[] pdf = orderService.generateReceiptPdf(order);
+            store.put(job.jobId(), job.userId(), job.orderId(), pdf);
+            jobs.remove(job.jobId());
+        } catch (RuntimeException e) {
+            log.warn("Falló la generación del recibo de la orden {}: {}", job.orderId(), e.getMessage());
+            jobs.put(job.jobId(), withState(job, ReceiptJobDTO.FAILED, "Error generando PDF", System.currentTimeMillis()));
+        }
+    }
+
+    private static Job withState(Job job, String estado, String error, long failedAt) {
+        return new Job(job.jobId(), job.orderId(), job.userId(), estado, error, failedAt);
+    }
+
+    // Se recorre al recibir pedidos: el mapa solo tiene jobs en curso y fallas recientes
+    private void removeExpiredFailures() {
+        long expiredBefore = System.currentTimeMillis() - failedTtlMillis;
+        jobs.values().removeIf(job -> ReceiptJobDTO.FAILED.equals(job.estado()) && job.failedAt() <= expiredBefore);
+    }
+
+    int jobsInMemory() {
+        return jobs.size();
+    }
+
+    /**
+     * Clave del recibo: hash de todo lo que aparece impreso, para que un cambio en la orden
+     * genere un recibo nuevo en lugar de servir uno viejo.
+     */
+    static String receiptKey(OrderDetailDTO order) {
+        StringBuilder sb = new StringBuilder()
+                .append(order.getId()).append('|')
+                .append(order.getUserId()).append('|')
+                .append(order.getStatus()).append('|')
+                .append(order.getTotalCents()).append('|')
+                .append(order.getCreatedAt() != null ? order.getCreatedAt().getTime() : 0);
+        for (OrderDetailItemDTO item : order.getItems()) {
+            sb.append('|')
+                    .append(item.getProductName() != null ? item.getProductName() : "N/A").append(',')
+                    .append(item.getQuantity()).append(',')
+                    .append(item.getPriceCents());
+        }
+        return ReceiptStore.sha256(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // El jobId se usa como nombre de archivo: solo se aceptan hashes hexadecimales
+    private static boolean isValidKey(String jobId) {
+        return jobId != null && jobId.length() == 64 && jobId.chars().allMatch(c -> Character.digit(c, 16) >= 0);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
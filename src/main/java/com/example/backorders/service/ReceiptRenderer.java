@@ -0,0 +1,366 @@
+package com.example.backorders.service;
+
+import com.example.backorders.dto.OrderDetailDTO;
+import com.example.backorders.dto.OrderDetailItemDTO;
+import com.example.backorders.money.Money;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.layout.Canvas;
+import com.itextpdf.layout.element.Div;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.layout.LayoutArea;
+import com.itextpdf.layout.layout.LayoutContext;
+import com.itextpdf.layout.layout.LayoutResult;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.renderer.IRenderer;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Genera el recibo de pago en PDF a partir de una plantilla precompilada.
+ *
+ * Todo lo fijo (encabezado, esqueleto de la tabla de datos con sus etiquetas, título "Detalles:",
+ * cabecera de la tabla de productos y pie) se compila una sola vez, en el primer uso, y se guarda su
+ * content stream. Por cada recibo esos bloques solo se envuelven en un Form XObject, y los valores de la orden
+ * y las filas de productos se escriben directo en el canvas en posiciones fijas, sin pasar por el
+ * motor de maquetado. Las fuentes se parsean una vez (FontProgram compartido); cada documento crea
+ * su PdfFont a partir de ellas porque un PdfFont pertenece a un único PdfDocument.
+ *
+ * Es @Lazy: la plantilla se compila con el primer recibo y no en el arranque.
+ */
+@Lazy
+@Component
+public class ReceiptRenderer {
+
+    private static final PageSize PAGE = PageSize.A4;
+    private static final float MARGIN = 36;
+    private static final float CONTENT_WIDTH = PAGE.getWidth() - 2 * MARGIN;
+
+    private static final float FONT_SIZE = 12;
+    private static final float PADDING = 5;
+    private static final float ROW_HEIGHT = 24;
+    private static final float BORDER_WIDTH = 0.5f;
+
+    // Tabla de datos: 2 columnas iguales. Tabla de productos: proporción 3 / 1 / 2
+    private static final float SUMMARY_COL = CONTENT_WIDTH / 2;
+    private static final float[] ITEM_COLS = {CONTENT_WIDTH * 3 / 6, CONTENT_WIDTH / 6, CONTENT_WIDTH * 2 / 6};
+    private static final String[] SUMMARY_LABELS = {"Orden ID:", "Fecha:", "Estado:", "Total:"};
+    private static final String[] ITEM_HEADERS = {"Producto", "Cant.", "Precio"};
+
+    private record Fonts(PdfFont regular, PdfFont bold) {
+    }
+
+    private record StaticLine(String text, boolean bold, float fontSize, TextAlignment alignment) {
+    }
+
+    /**
+     * Bloque fijo ya dibujado: content stream, alto, qué nombre de recurso usa cada fuente
+     * (true = negrita) y los textos que contiene, por fuente.
+     */
+    private record StaticBlock(byte[] content, float height, Map<PdfName, Boolean> fontNames,
+                               List<String> regularTexts, List<String> boldTexts) {
+    }
+
+    private final FontProgram regularProgram;
+    private final FontProgram boldProgram;
+    private final StaticBlock header;
+    private final StaticBlock summaryTable;
+    private final StaticBlock detailsTitle;
+    private final StaticBlock itemsHeader;
+    private final StaticBlock footer;
+
+    public ReceiptRenderer() {
+        try {
+            this.regularProgram = FontProgramFactory.createFont(StandardFonts.HELVETICA);
+            this.boldProgram = FontProgramFactory.createFont(StandardFonts.HELVETICA_BOLD);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudieron cargar las fuentes del recibo", e);
+        }
+
+        this.header = compileText(List.of(
+                new StaticLine("RECIBO DE PAGO", true, 20, TextAlignment.CENTER),
+                new StaticLine("IS2 E-COMMERCE", false, 12, TextAlignment.CENTER),
+                new StaticLine("\n", false, 12, TextAlignment.LEFT)));
+        this.summaryTable = compileGrid(SUMMARY_LABELS.length, new float[]{SUMMARY_COL, SUMMARY_COL},
+                (canvas, fonts) -> {
+                    for (int row = 0; row < SUMMARY_LABELS.length; row++) {
+                        text(canvas, fonts.regular(), SUMMARY_LABELS[row], PADDING, rowBaseline(SUMMARY_LABELS.length, row));
+                    }
+                }, List.of(SUMMARY_LABELS));
+        this.detailsTitle = compileText(List.of(
+                new StaticLine("\n", false, 12, TextAlignment.LEFT),
+                new StaticLine("Detalles:", true, 14, TextAlignment.LEFT)));
+        this.itemsHeader = compileGrid(1, ITEM_COLS, (canvas, fonts) -> {
+            float x = 0;
+            for (int col = 0; col < ITEM_HEADERS.length; col++) {
+                text(canvas, fonts.regular(), ITEM_HEADERS[col], x + PADDING, rowBaseline(1, 0));
+                x += ITEM_COLS[col];
+            }
+        }, List.of(ITEM_HEADERS));
+        this.footer = compileText(List.of(
+                new StaticLine("\n¡Gracias por su compra!", false, 12, TextAlignment.CENTER)));
+    }
+
+    public byte[] render(OrderDetailDTO order) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdf = new PdfDocument(new PdfWriter(baos));
+        pdf.setDefaultPageSize(PAGE);
+        Fonts fonts = fontsFor(pdf);
+
+        Cursor cursor = new Cursor(pdf);
+
+        // === ENCABEZADO Y DATOS PRINCIPALES ===
+        cursor.place(header, fonts);
+        float summaryTop = cursor.y;
+        cursor.place(summaryTable, fonts);
+        String[] values = {
+                String.valueOf(order.getId()),
+                String.valueOf(order.getCreatedAt()),
+                order.getStatus(),
+                "$" + Money.format(order.getTotalCents())
+        };
+        for (int row = 0; row < values.length; row++) {
+            float baseline = summaryTop - (row + 1) * ROW_HEIGHT + baselineOffset();
+            text(cursor.canvas, fonts.regular(), fit(fonts.regular(), values[row], SUMMARY_COL),
+                    MARGIN + SUMMARY_COL + PADDING, baseline);
+        }
+
+        // === DETALLE DE PRODUCTOS ===
+        cursor.place(detailsTitle, fonts);
+        cursor.place(itemsHeader, fonts);
+
+        for (OrderDetailItemDTO item : order.getItems()) {
+            if (cursor.y - ROW_HEIGHT < MARGIN) {
+                // Página nueva: se repite la cabecera de la tabla como hacía Table.addHeaderCell
+                cursor.newPage();
+                cursor.place(itemsHeader, fonts);
+            }
+            itemRow(cursor, fonts.regular(),
+                    item.getProductName() != null ? item.getProductName() : "N/A",
+                    String.valueOf(item.getQuantity()),
+                    item.getPriceCents() != null ? "$" + Money.format(item.getPriceCents()) : "N/A");
+        }
+
+        // === PIE ===
+        if (cursor.y - footer.height() < MARGIN) {
+            cursor.newPage();
+        }
+        cursor.place(footer, fonts);
+
+        pdf.close();
+        return baos.toByteArray();
+    }
+
+    private static void itemRow(Cursor cursor, PdfFont font, String... cells) {
+        float bottom = cursor.y - ROW_HEIGHT;
+        PdfCanvas canvas = cursor.canvas;
+        drawGrid(canvas, MARGIN, bottom, 1, ITEM_COLS);
+
+        float x = MARGIN;
+        for (int col = 0; col < cells.length; col++) {
+            text(canvas, font, fit(font, cells[col], ITEM_COLS[col]), x + PADDING, bottom + baselineOffset());
+            x += ITEM_COLS[col];
+        }
+        cursor.y = bottom;
+    }
+
+    /**
+     * Posición vertical actual en la página, de arriba hacia abajo.
+     */
+    private static final class Cursor {
+        private final PdfDocument pdf;
+        private PdfCanvas canvas;
+        private float y;
+
+        Cursor(PdfDocument pdf) {
+            this.pdf = pdf;
+            newPage();
+        }
+
+        void newPage() {
+            canvas = new PdfCanvas(pdf.addNewPage());
+            y = PAGE.getHeight() - MARGIN;
+        }
+
+        void place(StaticBlock block, Fonts fonts) {
+            y -= block.height();
+            canvas.addXObjectAt(toXObject(block, fonts), MARGIN, y);
+        }
+    }
+
+    private static void text(PdfCanvas canvas, PdfFont font, String value, float x, float baseline) {
+        canvas.beginText()
+                .setFontAndSize(font, FONT_SIZE)
+                .moveText(x, baseline)
+                .showText(value)
+                .endText();
+    }
+
+    private static float baselineOffset() {
+        return PADDING + 3;
+    }
+
+    // Baseline de la fila {@code row} dentro de un bloque de {@code rows} filas (origen abajo)
+    private static float rowBaseline(int rows, int row) {
+        return (rows - row - 1) * ROW_HEIGHT + baselineOffset();
+    }
+
+    /**
+     * Recorta el texto con "..." si no entra en la columna (la tabla de layout lo partía en varias líneas).
+     */
+    private static String fit(PdfFont font, String value, float columnWidth) {
+        String text = value != null ? value : "";
+        float available = columnWidth - 2 * PADDING;
+        if (font.getWidth(text, FONT_SIZE) <= available) {
+            return text;
+        }
+        float ellipsis = font.getWidth("...", FONT_SIZE);
+        int end = text.length();
+        while (end > 0 && font.getWidth(text.substring(0, end), FONT_SIZE) + ellipsis > available) {
+            end--;
+        }
+        return text.substring(0, end) + "...";
+    }
+
+    private static void drawGrid(PdfCanvas canvas, float x, float bottom, int rows, float[] cols) {
+        canvas.setLineWidth(BORDER_WIDTH);
+        for (int row = 0; row < rows; row++) {
+            float cx = x;
+            for (float width : cols) {
+                canvas.rectangle(cx, bottom + row * ROW_HEIGHT, width, ROW_HEIGHT);
+                cx += width;
+            }
+        }
+        canvas.stroke();
+    }
+
+    private Fonts fontsFor(PdfDocument pdf) {
+        PdfFont regular = PdfFontFactory.createFont(regularProgram, PdfEncodings.WINANSI);
+        PdfFont bold = PdfFontFactory.createFont(boldProgram, PdfEncodings.WINANSI);
+        // Registrarlas para que se escriban al cerrar aunque solo las usen XObjects precompilados
+        return new Fonts(pdf.addFont(regular), pdf.addFont(bold));
+    }
+
+    /**
+     * Crea en el documento un Form XObject con el content stream precompilado del bloque.
+     */
+    private static PdfFormXObject toXObject(StaticBlock block, Fonts fonts) {
+        PdfDictionary fontResources = new PdfDictionary();
+        block.fontNames().forEach((name, bold) ->
+                fontResources.put(name, (bold ? fonts.bold() : fonts.regular()).getPdfObject()));
+        PdfDictionary resources = new PdfDictionary();
+        resources.put(PdfName.Font, fontResources);
+
+        // Marcar los glifos usados, igual que si el texto se hubiera escrito en este documento
+        block.regularTexts().forEach(fonts.regular()::convertToBytes);
+        block.boldTexts().forEach(fonts.bold()::convertToBytes);
+
+        PdfFormXObject xObject = new PdfFormXObject(new Rectangle(CONTENT_WIDTH, block.height()));
+        xObject.getPdfObject().put(PdfName.Resources, resources);
+        xObject.getPdfObject().setData(block.content());
+        return xObject;
+    }
+
+    // ==============================================================
+    // PRECOMPILACIÓN (una vez, al construir el renderer)
+    // ==============================================================
+
+    /**
+     * Bloque de párrafos maquetado con el motor de layout, en un documento descartable.
+     */
+    private StaticBlock compileText(List<StaticLine> lines) {
+        List<String> regular = new ArrayList<>();
+        List<String> bold = new ArrayList<>();
+        for (StaticLine line : lines) {
+            (line.bold() ? bold : regular).add(line.text());
+        }
+
+        return record((scratch, fonts) -> {
+            try (Canvas measure = new Canvas(new PdfFormXObject(new Rectangle(CONTENT_WIDTH, 10_000)), scratch)) {
+                IRenderer renderer = toDiv(lines, fonts).createRendererSubTree().setParent(measure.getRenderer());
+                LayoutResult result = renderer.layout(
+                        new LayoutContext(new LayoutArea(1, new Rectangle(CONTENT_WIDTH, 10_000))));
+                return result.getOccupiedArea().getBBox().getHeight();
+            }
+        }, (xObject, scratch, fonts) -> {
+            try (Canvas canvas = new Canvas(xObject, scratch)) {
+                canvas.add(toDiv(lines, fonts));
+            }
+        }, regular, bold);
+    }
+
+    /**
+     * Esqueleto de tabla: bordes más los textos fijos que dibuje {@code labels}.
+     */
+    private StaticBlock compileGrid(int rows, float[] cols, BiConsumer<PdfCanvas, Fonts> labels, List<String> texts) {
+        return record((scratch, fonts) -> rows * ROW_HEIGHT, (xObject, scratch, fonts) -> {
+            PdfCanvas canvas = new PdfCanvas(xObject, scratch);
+            drawGrid(canvas, 0, 0, rows, cols);
+            labels.accept(canvas, fonts);
+        }, texts, List.of());
+    }
+
+    private interface Measure {
+        float height(PdfDocument scratch, Fonts fonts);
+    }
+
+    private interface Draw {
+        void draw(PdfFormXObject xObject, PdfDocument scratch, Fonts fonts);
+    }
+
+    private StaticBlock record(Measure measure, Draw draw, List<String> regularTexts, List<String> boldTexts) {
+        PdfDocument scratch = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+        scratch.addNewPage();
+        try {
+            Fonts fonts = fontsFor(scratch);
+            float height = measure.height(scratch, fonts);
+
+            PdfFormXObject xObject = new PdfFormXObject(new Rectangle(CONTENT_WIDTH, height));
+            draw.draw(xObject, scratch, fonts);
+
+            Map<PdfName, Boolean> fontNames = new HashMap<>();
+            PdfDictionary used = xObject.getResources().getResource(PdfName.Font);
+            if (used != null) {
+                for (PdfName name : used.keySet()) {
+                    fontNames.put(name, used.get(name) == fonts.bold().getPdfObject());
+                }
+            }
+            return new StaticBlock(xObject.getPdfObject().getBytes(), height, Map.copyOf(fontNames),
+                    List.copyOf(regularTexts), List.copyOf(boldTexts));
+        } finally {
+            scratch.close();
+        }
+    }
+
+    private static Div toDiv(List<StaticLine> lines, Fonts fonts) {
+        Div div = new Div();
+        for (StaticLine line : lines) {
+            div.add(new Paragraph(line.text())
+                    .setFont(line.bold() ? fonts.bold() : fonts.regular())
+                    .setFontSize(line.fontSize())
+                    .setTextAlignment(line.alignment()));
+        }
+        return div;
+    }
+}
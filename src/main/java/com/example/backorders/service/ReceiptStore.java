@@ -0,0 +1,223 @@
+package com.example.backorders.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Almacén en disco de recibos PDF ya generados.
+ *
+ * objects/&lt;sha256 del PDF&gt;.pdf  contenido (direccionado por contenido, se deduplica solo)
+ * index/&lt;clave del recibo&gt;      "hashDelContenido\nuserId\norderId"
+ *
+ * Todo se escribe en un archivo temporal y se mueve de forma atómica, así sobrevive a reinicios
+ * sin dejar archivos a medias. Cuando el tamaño total supera maxBytes se borran los PDF menos
+ * usados recientemente (la fecha de modificación se actualiza en cada lectura).
+ */
+@Lazy
+@Component
+public class ReceiptStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ReceiptStore.class);
+
+    public record Entry(String key, String contentHash, String userId, Long orderId, Path file, long size) {
+    }
+
+    private final Path objectsDir;
+    private final Path indexDir;
+    private final long maxBytes;
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    public ReceiptStore(
+            @Value("${back-orders.receipts.dir:${java.io.tmpdir}/back-orders-receipts}") Path baseDir,
+            @Value("${back-orders.receipts.max-bytes:536870912}") long maxBytes) {
+        this.objectsDir = baseDir.resolve("objects");
+        this.indexDir = baseDir.resolve("index");
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(objectsDir);
+            Files.createDirectories(indexDir);
+            try (Stream<Path> files = Files.list(objectsDir)) {
+                totalBytes.set(files.filter(p -> p.toString().endsWith(".pdf")).mapToLong(ReceiptStore::sizeOf).sum());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo inicializar el almacén de recibos en " + baseDir, e);
+        }
+    }
+
+    public Optional<Entry> find(String key) {
+        Path indexFile = indexDir.resolve(key);
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(indexFile, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Path file = objectsDir.resolve(lines.get(0) + ".pdf");
+        long size = sizeOf(file);
+        if (size < 0) {
+            // El PDF fue desalojado: el índice quedó colgando
+            deleteQuietly(indexFile);
+            return Optional.empty();
+        }
+        touch(file);
+        return Optional.of(new Entry(key, lines.get(0), lines.get(1), Long.valueOf(lines.get(2)), file, size));
+    }
+
+    public Entry put(String key, String userId, Long orderId, byte[] pdf) {
+        String contentHash = sha256(pdf);
+        Path file = objectsDir.resolve(contentHash + ".pdf");
+        try {
+            // Dos puts concurrentes del mismo PDF: solo el que crea el archivo suma su tamaño
+            if (!Files.exists(file) && createAtomically(file, pdf)) {
+                totalBytes.addAndGet(pdf.length);
+            }
+            String index = contentHash + "\n" + userId + "\n" + orderId;
+            writeAtomically(indexDir.resolve(key), index.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el recibo", e);
+        }
+
+        if (totalBytes.get() > maxBytes) {
+            evict(file);
+        }
+        return new Entry(key, contentHash, userId, orderId, file, pdf.length);
+    }
+
+    /**
+     * Copia el PDF al canal destino por bloques, sin cargar el archivo entero en un byte[]. Solo es
+     * zero-copy (sendfile) si el destino es un FileChannel o un SocketChannel; con un canal sobre el
+     * OutputStream de la respuesta (Channels.newChannel) el JDK copia a través de un buffer propio.
+     */
+    public void transferTo(Entry entry, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(entry.file(), StandardOpenOption.READ)) {
+            long position = 0;
+            long size = channel.size();
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+    public long totalBytes() {
+        return totalBytes.get();
+    }
+
+    /**
+     * Borra los PDF más antiguos (por fecha de último uso) hasta bajar al 90% de maxBytes.
+     * Nunca borra {@code keep}, que es el que se acaba de escribir.
+     */
+    private synchronized void evict(Path keep) {
+        if (totalBytes.get() <= maxBytes) {
+            return;
+        }
+        List<Path> candidates = new ArrayList<>();
+        try (Stream<Path> files = Files.list(objectsDir)) {
+            files.filter(p -> p.toString().endsWith(".pdf") && !p.equals(keep)).forEach(candidates::add);
+        } catch (IOException e) {
+            log.warn("No se pudo listar el almacén de recibos para desalojar: {}", e.getMessage());
+            return;
+        }
+        candidates.sort(Comparator.comparing(ReceiptStore::lastModified));
+
+        long target = maxBytes - maxBytes / 10;
+        for (Path p : candidates) {
+            if (totalBytes.get() <= target) {
+                break;
+            }
+            long size = sizeOf(p);
+            if (size >= 0 && deleteQuietly(p)) {
+                totalBytes.addAndGet(-size);
+            }
+        }
+    }
+
+    private static void writeAtomically(Path target, byte[] data) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), ".tmp-", null);
+        try {
+            Files.write(tmp, data);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Crea {@code target} solo si no existe: el contenido va a un temporal y se publica con un hard
+     * link, que falla si otro hilo o proceso ya creó el archivo (un move lo reemplazaría sin avisar).
+     * Devuelve false si el archivo ya existía.
+     */
+    private static boolean createAtomically(Path target, byte[] data) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), ".tmp-", null);
+        try {
+            Files.write(tmp, data);
+            Files.createLink(target, tmp);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static long sizeOf(Path p) {
+        try {
+            return Files.size(p);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static FileTime lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void touch(Path p) {
+        try {
+            Files.setLastModifiedTime(p, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static boolean deleteQuietly(Path p) {
+        try {
+            return Files.deleteIfExists(p);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.backorders.service;
+
+import com.example.backorders.dto.BulkStatusUpdateResponseDTO;
+import com.example.backorders.dto.OrderDetailDTO;
+import com.example.backorders.dto.OrderSummaryDTO;
+import com.example.backorders.dto.ProductOrderDTO;
+import com.example.backorders.dto.ProductOrdersPageDTO;
+import com.example.backorders.dto.StatusTransitionResultDTO;
+import com.example.backorders.model.Order;
+import com.example.backorders.sharding.ShardRouter;
+
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Punto de entrada del controller para todo lo que toca la base: decide el shard y delega en
+ * OrderService, que corre su transacción dentro de ese shard.
+ *
+ * - Por id de orden: el shard sale del id.
+ * - Por usuario: el shard sale del hash del userId.
+ * - Administración (filtros, bloque, por producto): se consulta cada shard en paralelo y se mezcla.
+ *
+ * No es transaccional a propósito: la transacción empieza dentro de OrderService, ya con el shard fijado.
+ * Por eso también es donde se reintentan las transiciones individuales que chocan con otra
+ * escritura de la misma orden (OptimisticRetry): cada intento es una transacción nueva.
+ */
+@Service
+public class ShardedOrderService {
+
+    private static final Comparator<ProductOrderDTO> PRODUCT_ORDER_KEYSET = Comparator
+            .comparing(ProductOrderDTO::getOrderId, Comparator.reverseOrder());
+
+    private final OrderService orderService;
+    private final ShardRouter router;
+    private final OptimisticRetry retry;
+
+    public ShardedOrderService(OrderService orderService, ShardRouter router, OptimisticRetry retry) {
+        this.orderService = orderService;
+        this.router = router;
+        this.retry = retry;
+    }
+
+    // ======================
+    // Por id de orden
+    // ======================
+    public Optional<Order> getOrderById(Long id) {
+        return onOrderShard(id, () -> orderService.getOrderById(id));
+    }
+
+    public Optional<OrderDetailDTO> getOrderDetails(Long id) {
+        return onOrderShard(id, () -> orderService.getOrderDetails(id));
+    }
+
+    public Optional<OrderDetailDTO> cancelOrder(Long id) {
+        return retry.run(() -> onOrderShard(id, () -> orderService.cancelOrder(id)));
+    }
+
+    public Optional<Order> payOrder(Long id) {
+        return retry.run(() -> onOrderShard(id, () -> orderService.payOrder(id)));
+    }
+
+    public Optional<OrderDetailDTO> confirmDelivery(Long id, String userId) {
+        return retry.run(() -> onOrderShard(id, () -> orderService.confirmDelivery(id, userId)));
+    }
+
+    private <T> Optional<T> onOrderShard(Long id, Supplier<Optional<T>> work) {
+        int shard = router.shardForOrder(id);
+        if (shard < 0) {
+            return Optional.empty();
+        }
+        return router.onShard(shard, work);
+    }
+
+    // ======================
+    // Por usuario
+    // ======================
+    public List<OrderSummaryDTO> getOrdersByUserId(String userId) {
+        return router.onUserShard(userId, () -> orderService.getOrdersByUserId(userId));
+    }
+
+    public Page<OrderSummaryDTO> getOrdersByUserId(String userId, String status, String fechaInicio, int page, int size) {
+        return router.onUserShard(userId, () -> orderService.getOrdersByUserId(userId, status, fechaInicio, page, size));
+    }
+
+    // ======================
+    // Administración: todos los shards
+    // ======================
+    public List<OrderSummaryDTO> getOrdersByFilter(String status, String startDate, String endDate) {
+        List<List<OrderSummaryDTO>> perShard = router.onAllShards(
+                shard -> orderService.getOrdersByFilter(status, startDate, endDate));
+        if (perShard.size() == 1) {
+            return perShard.get(0);
+        }
+
+        List<OrderSummaryDTO> merged = new ArrayList<>();
+        perShard.forEach(merged::addAll);
+        merged.sort(Comparator.comparing(OrderSummaryDTO::getFechaCreacion,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return merged;
+    }
+
+    /**
+     * Agrupa los ids por shard, aplica la transición en cada uno en paralelo y devuelve los
+     * resultados en el orden de la petición. Ids fuera de todo shard quedan como NO_ENCONTRADA.
+     */
+    public BulkStatusUpdateResponseDTO bulkTransition(String targetStatus, List<Long> orderIds) {
+        if (router.shardCount() == 1) {
+            return orderService.bulkTransition(targetStatus, orderIds);
+        }
+        OrderService.validateBulkRequest(targetStatus, orderIds);
+
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        Map<Integer, List<Long>> byShard = new HashMap<>();
+        for (Long id : ids) {
+            byShard.computeIfAbsent(router.shardForOrder(id), s -> new ArrayList<>()).add(id);
+        }
+
+        List<BulkStatusUpdateResponseDTO> perShard = router.onAllShards(shard -> {
+            List<Long> shardIds = byShard.get(shard);
+            return shardIds == null ? null : orderService.bulkTransition(targetStatus, shardIds);
+        });
+
+        Map<Long, StatusTransitionResultDTO> byId = new HashMap<>();
+        for (BulkStatusUpdateResponseDTO response : perShard) {
+            if (response != null) {
+                response.getResults().forEach(r -> byId.put(r.getOrderId(), r));
+            }
+        }
+
+        List<StatusTransitionResultDTO> results = new ArrayList<>(ids.size());
+        int applied = 0;
+        for (Long id : ids) {
+            StatusTransitionResultDTO r = byId.getOrDefault(id,
+                    new StatusTransitionResultDTO(id, null, StatusTransitionResultDTO.NOT_FOUND));
+            if (StatusTransitionResultDTO.APPLIED.equals(r.getResult())) {
+                applied++;
+            }
+            results.add(r);
+        }
+        return new BulkStatusUpdateResponseDTO(targetStatus, applied, results.size() - applied, results);
+    }
+
+    /**
+     * Cada shard devuelve su primera página a partir del mismo cursor; como el orden
+     * (id DESC) es global, mezclar y cortar en {@code size} da la página correcta. Las ids llevan
+     * el shard en los bits altos, así que se listan primero todas las del último shard.
+     */
+    public ProductOrdersPageDTO getOrdersByProduct(Long productId, String status, String startDate,
+                                                   String endDate, String cursor, int size) {
+        List<ProductOrdersPageDTO> perShard = router.onAllShards(
+                shard -> orderService.getOrdersByProduct(productId, status, startDate, endDate, cursor, size));
+        if (perShard.size() == 1) {
+            return perShard.get(0);
+        }
+
+        List<ProductOrderDTO> merged = new ArrayList<>();
+        perShard.forEach(p -> merged.addAll(p.getOrders()));
+        merged.sort(PRODUCT_ORDER_KEYSET);
+
+        boolean more = merged.size() > size || perShard.stream().anyMatch(p -> p.getNextCursor() != null);
+        List<ProductOrderDTO> page = new ArrayList<>(merged.subList(0, Math.min(size, merged.size())));
+
+        String nextCursor = null;
+        if (more && !page.isEmpty()) {
+            ProductOrderDTO last = page.get(page.size() - 1);
+            nextCursor = String.valueOf(last.getOrderId());
+        }
+        return new ProductOrdersPageDTO(page, nextCursor);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.backorders.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Anillo de hash consistente userId -> shard, con nodos virtuales para repartir parejo.
+ * Al agregar un shard solo se mueven ~1/N de los usuarios (la migración de datos no la hace esta clase).
+ * El hash es FNV-1a de 64 bits con mezcla final, estable entre JVMs y reinicios.
+ */
+public final class ConsistentHashShardResolver {
+
+    private final int shardCount;
+    private final long[] ring;
+    private final int[] owners;
+
+    public ConsistentHashShardResolver(int shardCount, int virtualNodes) {
+        if (shardCount <= 0 || virtualNodes <= 0) {
+            throw new IllegalArgumentException("shardCount y virtualNodes deben ser mayores a 0");
+        }
+        this.shardCount = shardCount;
+
+        int size = shardCount * virtualNodes;
+        long[][] points = new long[size][2];
+        int n = 0;
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                points[n][0] = hash("shard-" + shard + "#" + v);
+                points[n][1] = shard;
+                n++;
+            }
+        }
+        Arrays.sort(points, (a, b) -> Long.compare(a[0], b[0]));
+
+        this.ring = new long[size];
+        this.owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = points[i][0];
+            owners[i] = (int) points[i][1];
+        }
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int shardFor(String userId) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        long h = hash(userId);
+        int idx = Arrays.binarySearch(ring, h);
+        if (idx < 0) {
+            idx = -idx - 1;
+        }
+        // Primer nodo en sentido horario; si se pasa del final, vuelve al inicio del anillo
+        return owners[idx == ring.length ? 0 : idx];
+    }
+
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        // fmix64 (MurmurHash3) para dispersar bien claves parecidas como "user-1", "user-2"
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
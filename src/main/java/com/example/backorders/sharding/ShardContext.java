@@ -0,0 +1,25 @@
+package com.example.backorders.sharding;
+
+/**
+ * Shard activo del hilo actual. Lo lee ShardRoutingDataSource al pedir una conexión,
+ * así que debe fijarse antes de que empiece la transacción (ver ShardRouter).
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    static void set(Integer shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.backorders.sharding;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Decide en qué shard corre cada operación y la ejecuta ahí.
+ *
+ * - Operaciones de un usuario: shard = hash consistente del userId.
+ * - Operaciones por id de orden: el shard va codificado en el id (ShardSequenceGenerator le suma
+ *   shard << SHARD_ID_BITS), así que no hace falta consultar todos los shards.
+ * - Consultas de administración: se ejecutan en paralelo en todos los shards (scatter-gather).
+ *
+ * Con el sharding desactivado hay un solo shard y todo corre en el hilo actual, sin cambios.
+ */
+@Component
+public class ShardRouter implements DisposableBean {
+
+    public static final int SHARD_ID_BITS = 40;
+
+    private final ConsistentHashShardResolver resolver;
+    private final ExecutorService executor;
+
+    public ShardRouter(
+            @Value("${back-orders.sharding.enabled:false}") boolean enabled,
+            @Value("${back-orders.sharding.urls:}") String[] urls,
+            @Value("${back-orders.sharding.virtual-nodes:128}") int virtualNodes) {
+        int shards = enabled ? (int) Arrays.stream(urls).filter(u -> !u.isBlank()).count() : 1;
+        if (shards == 0) {
+            throw new IllegalStateException("back-orders.sharding.enabled=true requiere back-orders.sharding.urls");
+        }
+        this.resolver = new ConsistentHashShardResolver(shards, virtualNodes);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = shards == 1 ? null : Executors.newFixedThreadPool(shards * 2, r -> {
+            Thread t = new Thread(r, "shard-scatter-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public int shardCount() {
+        return resolver.shardCount();
+    }
+
+    public int shardForUser(String userId) {
+        return resolver.shardFor(userId);
+    }
+
+    /**
+     * Shard dueño de una orden según su id, o -1 si el id no corresponde a ningún shard configurado.
+     */
+    public int shardForOrder(Long orderId) {
+        if (shardCount() == 1) {
+            return 0;
+        }
+        if (orderId == null || orderId < 0) {
+            return -1;
+        }
+        long shard = orderId >>> SHARD_ID_BITS;
+        return shard < shardCount() ? (int) shard : -1;
+    }
+
+    public <T> T onUserShard(String userId, Supplier<T> work) {
+        return onShard(shardForUser(userId), work);
+    }
+
+    /**
+     * Ejecuta {@code work} en el hilo actual con el shard fijado. Debe llamarse fuera de una
+     * transacción: la conexión se toma al empezarla y ya no cambiaría de shard.
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (shardCount() == 1) {
+            return work.get();
+        }
+        Integer previous = ShardContext.current();
+        if (!Objects.equals(previous, shard) && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("No se puede cambiar de shard dentro de una transacción");
+        }
+        ShardContext.set(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    /**
+     * Ejecuta {@code work} en todos los shards en paralelo; el resultado i corresponde al shard i.
+     */
+    public <T> List<T> onAllShards(IntFunction<T> work) {
+        if (shardCount() == 1) {
+            return List.of(work.apply(0));
+        }
+
+        List<CompletableFuture<T>> futures = new ArrayList<>(shardCount());
+        for (int shard = 0; shard < shardCount(); shard++) {
+            int s = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> onShard(s, () -> work.apply(s)), executor));
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> f : futures) {
+                results.add(f.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
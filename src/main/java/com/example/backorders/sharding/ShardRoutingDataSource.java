@@ -0,0 +1,15 @@
+package com.example.backorders.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * DataSource que entrega conexiones del shard fijado en ShardContext.
+ * Sin shard fijado usa el shard 0 (inicialización de Hibernate, consultas no ruteadas).
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.backorders.sharding;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerDescriptor;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secuencia con asignación en bloques (pooled) que funciona con varios shards.
+ *
+ * El optimizador de Hibernate guarda en memoria el bloque de ids reservado; con una sola
+ * SessionFactory para todos los shards, un bloque pedido a la secuencia del shard 1 terminaría
+ * usándose en el shard 2. Por eso se mantiene un optimizador por shard, y al valor de la secuencia
+ * se le suma shard << SHARD_ID_BITS para que el id indique a qué shard pertenece la fila.
+ * Sin sharding (shard 0) se comporta igual que una secuencia pooled normal.
+ */
+public class ShardSequenceGenerator extends SequenceStyleGenerator {
+
+    private final Map<Integer, Optimizer> shardOptimizers = new ConcurrentHashMap<>();
+    private OptimizerDescriptor optimizerDescriptor;
+    private int initialValue;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        super.configure(type, params, serviceRegistry);
+        this.optimizerDescriptor = determineOptimizationStrategy(params, getOptimizer().getIncrementSize());
+        this.initialValue = determineInitialValue(params);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        Integer current = ShardContext.current();
+        int shard = current != null ? current : 0;
+        if (shard == 0) {
+            return super.generate(session, object);
+        }
+
+        Optimizer optimizer = shardOptimizers.computeIfAbsent(shard, s -> OptimizerFactory.buildOptimizer(
+                optimizerDescriptor, Long.class, getOptimizer().getIncrementSize(), initialValue));
+        long value = ((Number) optimizer.generate(getDatabaseStructure().buildCallback(session))).longValue();
+        return ((long) shard << ShardRouter.SHARD_ID_BITS) + value;
+    }
+
+    @Override
+    public boolean supportsBulkInsertionIdentifierGeneration() {
+        // INSERT ... SELECT tomaría el valor directo de la secuencia, sin el desplazamiento del shard
+        return false;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.backorders.sharding;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reemplaza el DataSource único por uno que rutea a N bases según ShardContext.
+ *
+ * back-orders.sharding.enabled=true
+ * back-orders.sharding.urls=jdbc:...shard0,jdbc:...shard1,...
+ * back-orders.sharding.username / password   (comunes a todos los shards)
+ * back-orders.sharding.init-schema=true      crea las tablas en los shards 1..N-1 (H2 local / tests;
+ *                                             en producción el esquema va por migraciones)
+ *
+ * Cada shard tiene sus propias secuencias; ShardSequenceGenerator suma shard << 40 al valor,
+ * así el id de una orden indica en qué shard está.
+ *
+ * Los productos existen en cada shard porque order_items referencia products por FK en la misma
+ * base; el stock de cada shard es una parte del total y lo reparte ProductStockService.
+ */
+@Configuration
+@ConditionalOnProperty(name = "back-orders.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    /**
+     * DataSources físicos, en orden de shard.
+     */
+    public record ShardDataSources(List<DataSource> dataSources) {
+    }
+
+    @Bean
+    public ShardDataSources shardDataSources(
+            Environment env,
+            @Value("${back-orders.sharding.urls}") String[] urls,
+            @Value("${back-orders.sharding.username:sa}") String username,
+            @Value("${back-orders.sharding.password:}") String password) {
+        // Con open-in-view la conexión del primer shard quedaría tomada toda la petición
+        if (env.getProperty("spring.jpa.open-in-view", Boolean.class, true)) {
+            throw new IllegalStateException("El sharding requiere spring.jpa.open-in-view=false");
+        }
+
+        List<DataSource> dataSources = new ArrayList<>();
+        List<String> shardUrls = Arrays.stream(urls).filter(u -> !u.isBlank()).toList();
+        for (int i = 0; i < shardUrls.size(); i++) {
+            HikariDataSource ds = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shardUrls.get(i))
+                    .username(username)
+                    .password(password)
+                    .build();
+            ds.setPoolName("shard-" + i);
+            dataSources.add(ds);
+        }
+        return new ShardDataSources(List.copyOf(dataSources));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shards) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.dataSources().size(); i++) {
+            targets.put(i, shards.dataSources().get(i));
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(shards.dataSources().get(0));
+        routing.setLenientFallback(false);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "back-orders.sharding.init-schema", havingValue = "true")
+    public SmartInitializingSingleton shardSchemaInitializer(EntityManagerFactory emf, ShardDataSources shards) {
+        return () -> {
+            // El shard 0 lo crea Hibernate (ddl-auto) al arrancar; el resto se exporta con el mismo mapeo
+            SessionFactory sessionFactory = emf.unwrap(SessionFactory.class);
+            for (int shard = 1; shard < shards.dataSources().size(); shard++) {
+                Integer previous = ShardContext.current();
+                ShardContext.set(shard);
+                try {
+                    sessionFactory.getSchemaManager().exportMappedObjects(true);
+                } finally {
+                    ShardContext.set(previous);
+                }
+            }
+        };
+    }
+}
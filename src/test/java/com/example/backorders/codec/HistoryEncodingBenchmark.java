@@ -0,0 +1,99 @@
+package com.example.backorders.codec;
+
+import com.example.backorders.dto.OrderItemDTO;
+import com.example.backorders.dto.OrderSummaryDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Codificar y decodificar una página de historial (List&lt;OrderSummaryDTO&gt;, 3 items por orden)
+ * en JSON, CBOR y Protobuf. El tamaño de cada payload se imprime en el setup.
+ *
+ * Ejecutar: mvn -Pbenchmark test-compile exec:exec -Djmh.args="HistoryEncodingBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryEncodingBenchmark {
+
+    private static final TypeReference<List<OrderSummaryDTO>> LIST = new TypeReference<>() {
+    };
+
+    @Param({"10", "100"})
+    public int orders;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final CBORMapper cbor = new CBORMapper();
+    private OrderSummaryProtobuf.Page page;
+    private byte[] jsonBytes;
+    private byte[] cborBytes;
+    private byte[] protoBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<OrderSummaryDTO> content = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            List<OrderItemDTO> items = new ArrayList<>();
+            for (int k = 0; k < 3; k++) {
+                items.add(new OrderItemDTO(1_000L + k, 1 + k, 1_999L + 100L * k));
+            }
+            content.add(new OrderSummaryDTO(5_000_000L + i, new Date(1_700_000_000_000L + i * 60_000L),
+                    i % 2 == 0 ? "pagada" : "pendiente de entrega", 11_994L + 100L * i, items));
+        }
+        page = new OrderSummaryProtobuf.Page(content, 0, 0, 0, 0);
+        jsonBytes = json.writeValueAsBytes(content);
+        cborBytes = cbor.writeValueAsBytes(content);
+        protoBytes = protobuf();
+        System.out.printf("%n%d órdenes: json=%d B, cbor=%d B, protobuf=%d B%n",
+                orders, jsonBytes.length, cborBytes.length, protoBytes.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return json.writeValueAsBytes(page.content());
+    }
+
+    @Benchmark
+    public byte[] encodeCbor() throws IOException {
+        return cbor.writeValueAsBytes(page.content());
+    }
+
+    @Benchmark
+    public byte[] encodeProtobuf() throws IOException {
+        return protobuf();
+    }
+
+    @Benchmark
+    public List<OrderSummaryDTO> decodeJson() throws IOException {
+        return json.readValue(jsonBytes, LIST);
+    }
+
+    @Benchmark
+    public List<OrderSummaryDTO> decodeCbor() throws IOException {
+        return cbor.readValue(cborBytes, LIST);
+    }
+
+    @Benchmark
+    public List<OrderSummaryDTO> decodeProtobuf() throws IOException {
+        return OrderSummaryProtobuf.read(new ByteArrayInputStream(protoBytes)).content();
+    }
+
+    private byte[] protobuf() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 * orders);
+        OrderSummaryProtobuf.write(page, out);
+        return out.toByteArray();
+    }
+}
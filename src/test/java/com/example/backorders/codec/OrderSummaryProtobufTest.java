@@ -0,0 +1,79 @@
+package com.example.backorders.codec;
+
+import com.example.backorders.dto.OrderItemDTO;
+import com.example.backorders.dto.OrderSummaryDTO;
+import com.google.protobuf.CodedOutputStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderSummaryProtobufTest {
+
+    private static byte[] encode(OrderSummaryProtobuf.Page page) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OrderSummaryProtobuf.write(page, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    @DisplayName("Ida y vuelta conserva valores, nulos y datos de la página")
+    void roundTrip() throws Exception {
+        OrderSummaryDTO full = new OrderSummaryDTO(1L << 41, new Date(1_700_000_000_123L), "en camino", 123_456,
+                List.of(new OrderItemDTO(7L, 3, 1_999L), new OrderItemDTO(null, null, null)));
+        OrderSummaryDTO empty = new OrderSummaryDTO(5L, null, null, 0, List.of());
+
+        OrderSummaryProtobuf.Page decoded = OrderSummaryProtobuf.read(new ByteArrayInputStream(
+                encode(new OrderSummaryProtobuf.Page(List.of(full, empty), 2, 10, 31, 4))));
+
+        assertEquals(2, decoded.number());
+        assertEquals(10, decoded.size());
+        assertEquals(31, decoded.totalElements());
+        assertEquals(4, decoded.totalPages());
+        assertEquals(2, decoded.content().size());
+
+        OrderSummaryDTO a = decoded.content().get(0);
+        assertEquals(1L << 41, a.getOrderId());
+        assertEquals(1_700_000_000_123L, a.getFechaCreacion().getTime());
+        assertEquals("en camino", a.getEstado());
+        assertEquals(123_456, a.getTotalCents());
+        assertEquals(2, a.getItems().size());
+        assertEquals(7L, a.getItems().get(0).getProductId());
+        assertEquals(3, a.getItems().get(0).getQuantity());
+        assertEquals(1_999L, a.getItems().get(0).getPriceCents());
+        assertNull(a.getItems().get(1).getProductId());
+        assertNull(a.getItems().get(1).getQuantity());
+        assertNull(a.getItems().get(1).getPriceCents());
+
+        OrderSummaryDTO b = decoded.content().get(1);
+        assertEquals(5L, b.getOrderId());
+        assertNull(b.getFechaCreacion());
+        assertNull(b.getEstado());
+        assertEquals(0, b.getTotalCents());
+        assertEquals(List.of(), b.getItems());
+    }
+
+    @Test
+    @DisplayName("Campos desconocidos (versión nueva del esquema) se ignoran")
+    void skipsUnknownFields() throws Exception {
+        byte[] known = encode(new OrderSummaryProtobuf.Page(
+                List.of(new OrderSummaryDTO(9L, null, "pagada", 1_000, List.of())), 0, 0, 0, 0));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(known);
+        CodedOutputStream extra = CodedOutputStream.newInstance(out);
+        extra.writeString(99, "campo nuevo");
+        extra.writeInt64(100, 42);
+        extra.flush();
+
+        OrderSummaryProtobuf.Page decoded = OrderSummaryProtobuf.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(1, decoded.content().size());
+        assertEquals("pagada", decoded.content().get(0).getEstado());
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.backorders.controller;
+
+import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.Repositories.ProductRepository;
+import com.example.backorders.codec.BinaryMediaTypes;
+import com.example.backorders.codec.OrderSummaryProtobuf;
+import com.example.backorders.dto.OrderSummaryDTO;
+import com.example.backorders.model.Order;
+import com.example.backorders.model.OrderItem;
+import com.example.backorders.model.Product;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Los mismos endpoints de historial responden JSON, CBOR o Protobuf según el header Accept,
+ * con el mismo contenido.
+ */
+@SpringBootTest(properties = "back-orders.expiry.enabled=false")
+@AutoConfigureMockMvc
+class BinaryContentNegotiationTest {
+
+    private static final String USER = "binary-user";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void seed() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+
+        Product product = new Product();
+        product.setName("Teclado");
+        product.setPriceCents(1_250L);
+        product.setStock(100);
+        product = productRepository.save(product);
+
+        for (int i = 0; i < 5; i++) {
+            Order o = new Order();
+            o.setUserId(USER);
+            o.setStatus(i % 2 == 0 ? Order.STATUS_PAID : Order.STATUS_PENDING);
+            o.setTotalCents(2_500 + 100L * i);
+            o.setCreatedAt(new Date(1_700_000_000_000L + i * 60_000L));
+            List<OrderItem> items = new ArrayList<>();
+            for (int k = 0; k <= i % 3; k++) {
+                OrderItem item = new OrderItem();
+                item.setOrder(o);
+                item.setProduct(product);
+                item.setQuantity(1 + k);
+                item.setPriceCents(1_250L);
+                items.add(item);
+            }
+            o.setItems(items);
+            orderRepository.save(o);
+        }
+    }
+
+    private MvcResult fetch(Supplier<MockHttpServletRequestBuilder> requests, String accept, MediaType expected) throws Exception {
+        MockHttpServletRequestBuilder request = requests.get();
+        if (accept != null) {
+            request.header(HttpHeaders.ACCEPT, accept);
+        }
+        // ADMIN para /orders/filter; el historial solo mira que el usuario sea el dueño
+        MvcResult result = mvc.perform(request.with(user(USER).roles("USER", "ADMIN"))).andExpect(status().isOk()).andReturn();
+        assertTrue(expected.isCompatibleWith(MediaType.parseMediaType(result.getResponse().getContentType())),
+                "Content-Type " + result.getResponse().getContentType());
+        return result;
+    }
+
+    // "orderId estado total [productId x cantidad @ precio, ...]" por orden
+    private static List<String> describe(JsonNode orders) {
+        List<String> out = new ArrayList<>();
+        for (JsonNode o : orders) {
+            StringBuilder sb = new StringBuilder(o.get("orderId").asText() + " " + o.get("estado").asText()
+                    + " " + o.get("total").decimalValue().movePointRight(2).longValueExact() + " [");
+            for (JsonNode i : o.get("items")) {
+                sb.append(i.get("productId").asLong()).append('x').append(i.get("quantity").asInt())
+                        .append('@').append(i.get("price").decimalValue().movePointRight(2).longValueExact()).append(',');
+            }
+            out.add(sb.append(']').toString());
+        }
+        return out;
+    }
+
+    private static List<String> describe(List<OrderSummaryDTO> orders) {
+        List<String> out = new ArrayList<>();
+        for (OrderSummaryDTO o : orders) {
+            StringBuilder sb = new StringBuilder(o.getOrderId() + " " + o.getEstado() + " " + o.getTotalCents() + " [");
+            o.getItems().forEach(i -> sb.append(i.getProductId()).append('x').append(i.getQuantity())
+                    .append('@').append(i.getPriceCents()).append(','));
+            out.add(sb.append(']').toString());
+        }
+        return out;
+    }
+
+    @Test
+    @DisplayName("Historial paginado: JSON, CBOR y Protobuf traen las mismas órdenes")
+    void pagedHistoryInEveryFormat() throws Exception {
+        for (int page = 0; page < 2; page++) {
+            int current = page;
+            Supplier<MockHttpServletRequestBuilder> request = () -> get("/orders/user/{userId}/completa", USER)
+                    .param("page", String.valueOf(current)).param("size", "3");
+
+            byte[] json = fetch(request, MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_JSON)
+                    .getResponse().getContentAsByteArray();
+            JsonNode expected = objectMapper.readTree(json);
+
+            byte[] cbor = fetch(request, BinaryMediaTypes.CBOR.toString(), BinaryMediaTypes.CBOR)
+                    .getResponse().getContentAsByteArray();
+            JsonNode fromCbor = new CBORMapper().readTree(cbor);
+            assertEquals(describe(expected.get("content")), describe(fromCbor.get("content")));
+            assertEquals(expected.get("totalElements").asLong(), fromCbor.get("totalElements").asLong());
+
+            byte[] proto = fetch(request, BinaryMediaTypes.PROTOBUF + ", application/json;q=0.5", BinaryMediaTypes.PROTOBUF)
+                    .getResponse().getContentAsByteArray();
+            OrderSummaryProtobuf.Page fromProto = OrderSummaryProtobuf.read(new ByteArrayInputStream(proto));
+            assertEquals(describe(expected.get("content")), describe(fromProto.content()));
+            assertEquals(page, fromProto.number());
+            assertEquals(3, fromProto.size());
+            assertEquals(5, fromProto.totalElements());
+            assertEquals(2, fromProto.totalPages());
+
+            assertTrue(proto.length < json.length / 2, "protobuf " + proto.length + " vs json " + json.length);
+        }
+    }
+
+    @Test
+    @DisplayName("Filtro de administración en Protobuf y CBOR")
+    void adminFilterInBinaryFormats() throws Exception {
+        Supplier<MockHttpServletRequestBuilder> request = () -> get("/orders/filter").param("status", Order.STATUS_PAID);
+        JsonNode expected = objectMapper.readTree(fetch(request, null, MediaType.APPLICATION_JSON)
+                .getResponse().getContentAsByteArray());
+        assertEquals(3, expected.size());
+
+        JsonNode fromCbor = new CBORMapper().readTree(fetch(request, BinaryMediaTypes.CBOR.toString(), BinaryMediaTypes.CBOR)
+                .getResponse().getContentAsByteArray());
+        assertEquals(describe(expected), describe(fromCbor));
+
+        OrderSummaryProtobuf.Page fromProto = OrderSummaryProtobuf.read(new ByteArrayInputStream(
+                fetch(request, BinaryMediaTypes.PROTOBUF.toString(), BinaryMediaTypes.PROTOBUF)
+                        .getResponse().getContentAsByteArray()));
+        assertEquals(describe(expected), describe(fromProto.content()));
+    }
+
+    @Test
+    @DisplayName("Sin Accept o con */* la respuesta sigue siendo JSON")
+    void defaultsToJson() throws Exception {
+        fetch(() -> get("/orders/user/{userId}/completa", USER), null, MediaType.APPLICATION_JSON);
+        fetch(() -> get("/orders/user/{userId}/completa", USER).param("page", "1"), "*/*", MediaType.APPLICATION_JSON);
+        fetch(() -> get("/orders/filter"), null, MediaType.APPLICATION_JSON);
+        fetch(() -> get("/orders/filter"), "*/*", MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    @DisplayName("Protobuf solo para resúmenes de órdenes: otro endpoint con ese Accept responde 406")
+    void protobufOnlyForOrderSummaries() throws Exception {
+        mvc.perform(get("/orders/metrics/daily").param("from", "2023-11-01").param("to", "2023-11-30")
+                        .header(HttpHeaders.ACCEPT, BinaryMediaTypes.PROTOBUF.toString())
+                        .with(user(USER).roles("ADMIN")))
+                .andExpect(status().isNotAcceptable());
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.backorders.controller;
+
+import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.Repositories.ProductRepository;
+import com.example.backorders.dto.OrderDetailDTO;
+import com.example.backorders.model.Order;
+import com.example.backorders.model.OrderItem;
+import com.example.backorders.model.Product;
+import com.example.backorders.service.ReceiptRenderer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conexiones tomadas del pool mientras se renderiza el recibo y mientras Jackson serializa el
+ * detalle de una orden: deben ser 0. Con open-in-view o con la transacción de OrderService
+ * abierta durante el render, cada recibo lento retendría una conexión.
+ */
+@SpringBootTest(properties = {
+        "back-orders.expiry.enabled=false",
+        "back-orders.receipts.dir=${java.io.tmpdir}/back-orders-pool-${random.uuid}"
+})
+@AutoConfigureMockMvc
+class ConnectionPoolOccupancyTest {
+
+    private static final String USER = "pool-user";
+
+    // Conexiones activas vistas en cada render/serialización
+    private static final Queue<Integer> SEEN = new ConcurrentLinkedQueue<>();
+
+    @TestConfiguration
+    static class ProbeConfig {
+
+        // Envuelve el serializador de OrderDetailDTO para medir el pool justo al serializar
+        @Bean
+        Module poolProbeModule(DataSource dataSource) {
+            HikariDataSource hikari = (HikariDataSource) dataSource;
+            SimpleModule module = new SimpleModule("pool-probe");
+            module.setSerializerModifier(new BeanSerializerModifier() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription desc,
+                                                          JsonSerializer<?> serializer) {
+                    if (desc.getBeanClass() != OrderDetailDTO.class) {
+                        return serializer;
+                    }
+                    return new ProbeSerializer((JsonSerializer<Object>) serializer, hikari);
+                }
+            });
+            return module;
+        }
+    }
+
+    static class ProbeSerializer extends JsonSerializer<Object> implements ResolvableSerializer {
+        private final JsonSerializer<Object> delegate;
+        private final HikariDataSource pool;
+
+        ProbeSerializer(JsonSerializer<Object> delegate, HikariDataSource pool) {
+            this.delegate = delegate;
+            this.pool = pool;
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            if (delegate instanceof ResolvableSerializer resolvable) {
+                resolvable.resolve(provider);
+            }
+        }
+
+        @Override
+        public void serialize(Object value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            SEEN.add(pool.getHikariPoolMXBean().getActiveConnections());
+            delegate.serialize(value, gen, provider);
+        }
+    }
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @SpyBean
+    private ReceiptRenderer renderer;
+
+    private Order order;
+
+    @BeforeEach
+    void seed() {
+        SEEN.clear();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+
+        Product product = new Product();
+        product.setName("Producto");
+        product.setPriceCents(2_500L);
+        product.setStock(10);
+        product = productRepository.save(product);
+
+        Order o = new Order();
+        o.setUserId(USER);
+        o.setStatus(Order.STATUS_PAID);
+        o.setTotalCents(5_000);
+        OrderItem item = new OrderItem();
+        item.setOrder(o);
+        item.setProduct(product);
+        item.setQuantity(2);
+        item.setPriceCents(2_500L);
+        o.setItems(List.of(item));
+        order = orderRepository.save(o);
+
+        HikariDataSource pool = (HikariDataSource) dataSource;
+        doAnswer(inv -> {
+            SEEN.add(pool.getHikariPoolMXBean().getActiveConnections());
+            return inv.callRealMethod();
+        }).when(renderer).render(any(OrderDetailDTO.class));
+    }
+
+    @Test
+    @DisplayName("El PDF se renderiza sin conexiones tomadas (síncrono y en segundo plano)")
+    void receiptRenderingHoldsNoConnection() throws Exception {
+        mvc.perform(get("/orders/{id}/receipt", order.getId()).with(user(USER)))
+                .andExpect(status().isOk());
+
+        mvc.perform(post("/orders/{id}/receipt/jobs", order.getId()).with(user(USER)).with(csrf()))
+                .andExpect(status().is2xxSuccessful());
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (SEEN.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(List.of(0, 0), List.copyOf(SEEN));
+    }
+
+    @Test
+    @DisplayName("El detalle de la orden se serializa sin conexiones tomadas")
+    void jsonSerializationHoldsNoConnection() throws Exception {
+        mvc.perform(get("/orders/{id}", order.getId()).with(user(USER)))
+                .andExpect(status().isOk());
+
+        assertEquals(List.of(0), List.copyOf(SEEN));
+    }
+}
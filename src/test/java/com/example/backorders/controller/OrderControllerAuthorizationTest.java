@@ -0,0 +1,103 @@
+package com.example.backorders.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Los endpoints que actúan sobre órdenes de otros usuarios exigen un rol: un cliente común
+ * (ROLE_USER) recibe 403 y el service no llega a ejecutarse.
+ */
+@SpringBootTest(properties = "back-orders.expiry.enabled=false")
+@AutoConfigureMockMvc
+class OrderControllerAuthorizationTest {
+
+    private static final String USER = "authz-user";
+
+    @Autowired
+    private MockMvc mvc;
+
+    private void expect(MockHttpServletRequestBuilder request, int expectedStatus, String... roles) throws Exception {
+        mvc.perform(request.with(user(USER).roles(roles)).with(csrf())).andExpect(status().is(expectedStatus));
+    }
+
+    @Test
+    @DisplayName("PATCH /orders/status: 403 para un cliente, permitido a logística y administración")
+    void bulkStatusRequiresLogistics() throws Exception {
+        String body = "{\"targetStatus\":\"en camino\",\"orderIds\":[987654321]}";
+
+        mvc.perform(patch("/orders/status").contentType(MediaType.APPLICATION_JSON).content(body)
+                        .with(user(USER).roles("USER")).with(csrf()))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.error").value("No autorizado"));
+        expect(patch("/orders/status").contentType(MediaType.APPLICATION_JSON).content(body), 200, "LOGISTICS");
+        expect(patch("/orders/status").contentType(MediaType.APPLICATION_JSON).content(body), 200, "ADMIN");
+    }
+
+    @Test
+    @DisplayName("POST /orders/bulk: 403 para un cliente y para logística, permitido a migración")
+    void bulkIngestRequiresMigration() throws Exception {
+        // Sin items: la línea se rechaza, pero el endpoint responde 200 con el reporte
+        String ndjson = "{\"userId\":\"otro-usuario\",\"status\":\"pagada\",\"items\":[]}\n";
+
+        expect(post("/orders/bulk").contentType(MediaType.APPLICATION_NDJSON).content(ndjson), 403, "USER");
+        expect(post("/orders/bulk").contentType(MediaType.APPLICATION_NDJSON).content(ndjson), 403, "LOGISTICS");
+        expect(post("/orders/bulk").contentType(MediaType.APPLICATION_NDJSON).content(ndjson), 200, "MIGRATION");
+    }
+
+    @Test
+    @DisplayName("GET /orders/filter: órdenes de todos los usuarios, solo para administración")
+    void adminFilterRequiresAdmin() throws Exception {
+        expect(get("/orders/filter"), 403, "USER");
+        expect(get("/orders/filter"), 403, "LOGISTICS");
+        expect(get("/orders/filter"), 200, "ADMIN");
+    }
+
+    @Test
+    @DisplayName("GET /orders/by-product: órdenes de todos los usuarios, solo para administración")
+    void byProductRequiresAdmin() throws Exception {
+        expect(get("/orders/by-product/987654321"), 403, "USER");
+        expect(get("/orders/by-product/987654321"), 403, "LOGISTICS");
+        expect(get("/orders/by-product/987654321"), 200, "ADMIN");
+    }
+
+    @Test
+    @DisplayName("Métricas diarias: consulta y reconstrucción solo para administración")
+    void dailyMetricsRequireAdmin() throws Exception {
+        expect(get("/orders/metrics/daily").param("from", "2023-11-01").param("to", "2023-11-30"), 403, "USER");
+        expect(post("/orders/metrics/daily/rebuild"), 403, "USER");
+        expect(get("/orders/metrics/daily").param("from", "2023-11-01").param("to", "2023-11-30"), 200, "ADMIN");
+    }
+
+    @Test
+    @DisplayName("POST /orders/reconciliation: 403 para un cliente y para logística, permitido a finanzas")
+    void reconciliationRequiresFinance() throws Exception {
+        // El archivo no existe: con el rol correcto la petición pasa la autorización y responde 400
+        expect(post("/orders/reconciliation").param("file", "no-existe.csv"), 403, "USER");
+        expect(post("/orders/reconciliation").param("file", "no-existe.csv"), 403, "LOGISTICS");
+        expect(post("/orders/reconciliation").param("file", "no-existe.csv"), 400, "FINANCE");
+        expect(post("/orders/reconciliation").param("file", "no-existe.csv"), 400, "ADMIN");
+    }
+
+    @Test
+    @DisplayName("Stock de productos: solo administración puede consultarlo o repartirlo")
+    void productStockRequiresAdmin() throws Exception {
+        String body = "{\"stock\":5}";
+
+        expect(get("/products/987654321/stock"), 403, "USER");
+        expect(put("/products/987654321/stock").contentType(MediaType.APPLICATION_JSON).content(body), 403, "USER");
+        expect(get("/products/987654321/stock"), 404, "ADMIN");
+        expect(put("/products/987654321/stock").contentType(MediaType.APPLICATION_JSON).content(body), 404, "ADMIN");
+    }
+}
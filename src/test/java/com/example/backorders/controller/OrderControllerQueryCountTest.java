@@ -0,0 +1,271 @@
+package com.example.backorders.controller;
+
+import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.Repositories.ProductRepository;
+import com.example.backorders.model.Order;
+import com.example.backorders.model.OrderItem;
+import com.example.backorders.model.Product;
+import com.example.backorders.money.Money;
+import com.example.backorders.service.PaymentReconciliationService;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cota de sentencias SQL, entidades cargadas y filas leídas por cada endpoint de OrderController.
+ *
+ * La base se siembra con ORDERS_PER_USER órdenes de ITEMS_PER_ORDER items cada una: un N+1 por
+ * orden o por item (por ejemplo, un EAGER nuevo o una consulta dentro de un loop) supera las
+ * cotas y rompe el build. Si un cambio necesita de verdad más consultas, se sube la cota a mano.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn",
+        "back-orders.expiry.enabled=false",
+        // Siempre miss: se mide el camino que llega a la base
+        "back-orders.history-cache.ttl=PT0S",
+        "back-orders.receipts.dir=${java.io.tmpdir}/back-orders-query-count-${random.uuid}",
+        "back-orders.reconciliation.dir=${java.io.tmpdir}/back-orders-query-count-ledgers-${random.uuid}"
+})
+@AutoConfigureMockMvc
+class OrderControllerQueryCountTest {
+
+    private static final String USER = "query-user";
+    private static final int ORDERS_PER_USER = 20;
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int PRODUCTS = 4;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PaymentReconciliationService reconciliationService;
+
+    private Statistics stats;
+    private List<Product> products;
+    private List<Order> orders;
+
+    private record Usage(long statements, long entities, long rows) {
+    }
+
+    @BeforeEach
+    void seed() {
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+
+        products = new ArrayList<>();
+        for (int p = 0; p < PRODUCTS; p++) {
+            Product product = new Product();
+            product.setName("Producto " + p);
+            product.setPriceCents(1_000L + 100L * p);
+            product.setStock(1_000);
+            products.add(productRepository.save(product));
+        }
+
+        String[] statuses = {Order.STATUS_PENDING, Order.STATUS_PAID, Order.STATUS_IN_DELIVERY};
+        orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS_PER_USER; i++) {
+            Order o = new Order();
+            o.setUserId(USER);
+            o.setStatus(statuses[i % statuses.length]);
+            o.setTotalCents(10_000 + 100L * i);
+            o.setCreatedAt(new Date(1_700_000_000_000L + i * 60_000L));
+            List<OrderItem> items = new ArrayList<>();
+            for (int k = 0; k < ITEMS_PER_ORDER; k++) {
+                OrderItem item = new OrderItem();
+                item.setOrder(o);
+                item.setProduct(products.get((i + k) % PRODUCTS));
+                item.setQuantity(1 + k);
+                item.setPriceCents(1_000L);
+                items.add(item);
+            }
+            o.setItems(items);
+            orders.add(orderRepository.save(o));
+        }
+    }
+
+    private Order orderWithStatus(String status) {
+        return orders.stream().filter(o -> status.equals(o.getStatus())).findFirst().orElseThrow();
+    }
+
+    // Sin roles: cliente común (ROLE_USER); los endpoints de administración se llaman con su rol
+    private Usage measure(MockHttpServletRequestBuilder request, int expectedStatus, String... roles) throws Exception {
+        stats.clear();
+        mvc.perform(request.with(user(USER).roles(roles.length == 0 ? new String[]{"USER"} : roles)).with(csrf()))
+                .andExpect(status().is(expectedStatus));
+
+        long rows = 0;
+        for (String query : stats.getQueries()) {
+            rows += stats.getQueryStatistics(query).getExecutionRowCount();
+        }
+        return new Usage(stats.getPrepareStatementCount(), stats.getEntityLoadCount(), rows);
+    }
+
+    private static void assertWithin(Usage usage, long statements, long entities, long rows) {
+        assertAll(
+                () -> assertTrue(usage.statements() <= statements, "sentencias: " + usage.statements() + " > " + statements),
+                () -> assertTrue(usage.entities() <= entities, "entidades: " + usage.entities() + " > " + entities),
+                () -> assertTrue(usage.rows() <= rows, "filas: " + usage.rows() + " > " + rows));
+    }
+
+    @Test
+    @DisplayName("GET /orders/{id}")
+    void getOrder() throws Exception {
+        Usage usage = measure(get("/orders/{id}", orders.get(0).getId()), 200);
+        // Nombre y precio salen de la copia en order_items: ningún Product
+        assertWithin(usage, 1, 1 + ITEMS_PER_ORDER, 0);
+    }
+
+    @Test
+    @DisplayName("PATCH /orders/{id}/cancel")
+    void cancelOrder() throws Exception {
+        Usage usage = measure(patch("/orders/{id}/cancel", orderWithStatus(Order.STATUS_PENDING).getId()), 200);
+        // SELECT de la orden con items, un UPDATE atómico de stock por producto distinto de la orden
+        // (sin cargar Product) y UPDATE de la orden
+        assertWithin(usage, 2 + ITEMS_PER_ORDER, 1 + ITEMS_PER_ORDER, 0);
+    }
+
+    @Test
+    @DisplayName("PATCH /orders/{id}/confirm-delivery")
+    void confirmDelivery() throws Exception {
+        Usage usage = measure(patch("/orders/{id}/confirm-delivery", orderWithStatus(Order.STATUS_IN_DELIVERY).getId()), 200);
+        assertWithin(usage, 2, 1 + ITEMS_PER_ORDER, 0);
+    }
+
+    @Test
+    @DisplayName("GET /orders/user/{userId}/simple")
+    void simpleHistory() throws Exception {
+        Usage usage = measure(get("/orders/user/{u}/simple", USER), 200);
+        // Órdenes + un lote de items, sin productos
+        assertWithin(usage, 2, ORDERS_PER_USER * (1 + ITEMS_PER_ORDER), ORDERS_PER_USER);
+    }
+
+    @Test
+    @DisplayName("GET /orders/user/{userId}/completa (primera página)")
+    void pagedHistory() throws Exception {
+        Usage usage = measure(get("/orders/user/{u}/completa", USER).param("size", "10"), 200);
+        // COUNT + página + lote de items; la fila extra es la del COUNT
+        assertWithin(usage, 3, 10 * (1 + ITEMS_PER_ORDER), 10 + 1);
+    }
+
+    @Test
+    @DisplayName("GET /orders/user/{userId}/completa (página siguiente)")
+    void pagedHistorySecondPage() throws Exception {
+        Usage usage = measure(get("/orders/user/{u}/completa", USER).param("page", "1").param("size", "10"), 200);
+        assertWithin(usage, 3, 10 * (1 + ITEMS_PER_ORDER), 10 + 1);
+    }
+
+    @Test
+    @DisplayName("GET /orders/filter")
+    void adminFilter() throws Exception {
+        Usage usage = measure(get("/orders/filter").param("status", Order.STATUS_PAID), 200, "ADMIN");
+        long paid = orders.stream().filter(o -> Order.STATUS_PAID.equals(o.getStatus())).count();
+        assertWithin(usage, 2, paid * (1 + ITEMS_PER_ORDER), paid);
+    }
+
+    @Test
+    @DisplayName("GET /orders/by-product/{productId}")
+    void ordersByProduct() throws Exception {
+        Usage usage = measure(get("/orders/by-product/{p}", products.get(0).getId()).param("size", "5"), 200, "ADMIN");
+        assertWithin(usage, 1, 0, 5);
+    }
+
+    @Test
+    @DisplayName("PATCH /orders/status (en bloque)")
+    void bulkStatus() throws Exception {
+        String ids = orders.stream()
+                .filter(o -> Order.STATUS_PAID.equals(o.getStatus()))
+                .map(o -> o.getId().toString())
+                .collect(Collectors.joining(","));
+        Usage usage = measure(patch("/orders/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"targetStatus\":\"en camino\",\"orderIds\":[" + ids + "]}"), 200, "LOGISTICS");
+        // Lectura de estados + UPDATE, sin importar cuántas órdenes
+        assertWithin(usage, 2, 0, ORDERS_PER_USER);
+    }
+
+    @Test
+    @DisplayName("POST /orders/bulk (carga masiva)")
+    void bulkIngest() throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            ndjson.append("{\"userId\":\"ingest-").append(i).append("\",\"items\":[")
+                    .append("{\"productId\":").append(products.get(0).getId()).append(",\"quantity\":1},")
+                    .append("{\"productId\":").append(products.get(1).getId()).append(",\"quantity\":1}]}\n");
+        }
+        Usage usage = measure(post("/orders/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson.toString()), 200, "MIGRATION");
+        // Productos bloqueados una vez, secuencias por bloque de 50, INSERT/UPDATE en lotes JDBC
+        assertWithin(usage, 4, 2, 2);
+    }
+
+    @Test
+    @DisplayName("GET /orders/metrics/daily")
+    void dailyMetrics() throws Exception {
+        mvc.perform(post("/orders/metrics/daily/rebuild").with(user(USER).roles("ADMIN")).with(csrf())).andExpect(status().isNoContent());
+        Usage usage = measure(get("/orders/metrics/daily").param("from", "2023-11-01").param("to", "2023-11-30"), 200, "ADMIN");
+        // Sale de los agregados: a lo sumo una lectura de order_daily_stats, nunca de orders
+        assertWithin(usage, 1, 0, 2 * 3);
+    }
+
+    @Test
+    @DisplayName("POST /orders/reconciliation")
+    void reconciliation() throws Exception {
+        Path ledgerDir = Files.createDirectories(reconciliationService.directory());
+        Files.writeString(ledgerDir.resolve("ledger.csv"), orders.stream()
+                .map(o -> o.getId() + "," + Money.format(o.getTotalCents()) + "\n").collect(Collectors.joining()));
+        long paid = orders.stream().filter(o -> Order.STATUS_PAID.equals(o.getStatus())).count();
+
+        Usage usage = measure(post("/orders/reconciliation").param("file", "ledger.csv"), 200, "FINANCE");
+        // Una página keyset de proyecciones (id, total): sin entidades ni items
+        assertWithin(usage, 1, 0, paid);
+    }
+
+    @Test
+    @DisplayName("GET /orders/{id}/receipt")
+    void receiptPdf() throws Exception {
+        Usage usage = measure(get("/orders/{id}/receipt", orderWithStatus(Order.STATUS_PAID).getId()), 200);
+        assertWithin(usage, 1, 1 + ITEMS_PER_ORDER, 0);
+    }
+
+    @Test
+    @DisplayName("POST /orders/{id}/receipt/jobs")
+    void receiptJob() throws Exception {
+        Usage usage = measure(post("/orders/{id}/receipt/jobs", orderWithStatus(Order.STATUS_PAID).getId()), 202);
+        assertWithin(usage, 1, 1 + ITEMS_PER_ORDER, 0);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.backorders.exceptions;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo del camino de error de un pago rechazado, lanzado a la profundidad de pila típica de una
+ * petición (filtros de seguridad, MVC, proxies transaccionales): excepción con stack trace +
+ * Map + Jackson por petición (antes) contra excepción sin stack trace + cuerpo precalculado (después).
+ *
+ * Ejecutar: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ErrorPathBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    private static final String MESSAGE = "Saldo insuficiente";
+
+    @Param("120")
+    public int depth;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Como era InsufficientFundsException antes del cambio: stack trace completo
+    static class StackfulPaymentException extends RuntimeException {
+        StackfulPaymentException(String message) {
+            super(message);
+        }
+    }
+
+    @Benchmark
+    public byte[] stackTraceAndSerialize() throws Exception {
+        try {
+            throwAt(depth, true);
+            return null;
+        } catch (RuntimeException ex) {
+            return objectMapper.writeValueAsBytes(Map.of("error", "Pago rechazado", "message", ex.getMessage()));
+        }
+    }
+
+    @Benchmark
+    public byte[] stacklessAndPrecomputed() {
+        try {
+            throwAt(depth, false);
+            return null;
+        } catch (RuntimeException ex) {
+            return ErrorBodies.cached("error", "Pago rechazado", "message", ex.getMessage());
+        }
+    }
+
+    private static int throwAt(int remaining, boolean stackful) {
+        if (remaining == 0) {
+            throw stackful ? new StackfulPaymentException(MESSAGE) : new InsufficientFundsException(MESSAGE);
+        }
+        return throwAt(remaining - 1, stackful) + 1;
+    }
+}
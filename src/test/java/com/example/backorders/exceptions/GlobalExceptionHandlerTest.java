@@ -0,0 +1,84 @@
+package com.example.backorders.exceptions;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlobalExceptionHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AsyncErrorLogger errorLogger = new AsyncErrorLogger(2, 10);
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler(errorLogger);
+
+    @AfterEach
+    void tearDown() {
+        errorLogger.destroy();
+    }
+
+    private JsonNode body(ResponseEntity<?> response) throws Exception {
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        return objectMapper.readTree((byte[]) response.getBody());
+    }
+
+    @Test
+    @DisplayName("Las excepciones de pago y de estado no capturan stack trace")
+    void expectedErrorsAreStackless() {
+        assertEquals(0, new InsufficientFundsException("Saldo insuficiente").getStackTrace().length);
+        assertEquals(0, new PaymentApiException("Pasarela caída").getStackTrace().length);
+        assertEquals(0, new OrderStateException("pagada", "pendiente").getStackTrace().length);
+    }
+
+    @Test
+    @DisplayName("Mismos campos y códigos que antes, con el cuerpo serializado una sola vez")
+    void precomputedBodies() throws Exception {
+        ResponseEntity<?> first = handler.handleInsufficient(new InsufficientFundsException("Saldo insuficiente"));
+        ResponseEntity<?> second = handler.handleInsufficient(new InsufficientFundsException("Saldo insuficiente"));
+
+        assertEquals(402, first.getStatusCode().value());
+        assertSame(first.getBody(), second.getBody());
+        JsonNode json = body(first);
+        assertEquals("Pago rechazado", json.get("error").asText());
+        assertEquals("Saldo insuficiente", json.get("message").asText());
+
+        JsonNode state = body(handler.handleOrderStateException(new OrderStateException("pagada", "pendiente")));
+        assertEquals("pagada", state.get("currentState").asText());
+        assertEquals("pendiente", state.get("requiredState").asText());
+
+        assertEquals(409, handler.handleDuplicate(new DuplicatePaymentException("dup")).getStatusCode().value());
+        assertEquals(502, handler.handlePaymentApi(new PaymentApiException("caída")).getStatusCode().value());
+        assertEquals(400, handler.handleIllegalArgument(new IllegalArgumentException((String) null)).getStatusCode().value());
+    }
+
+    @Test
+    @DisplayName("Los mensajes con datos del cliente no entran al cache de cuerpos")
+    void clientInputIsNotCached() throws Exception {
+        int before = ErrorBodies.cacheSize();
+        ResponseEntity<?> first = null;
+        for (int i = 0; i < 100; i++) {
+            ResponseEntity<?> response = handler.handleIllegalArgument(new IllegalArgumentException("Fecha inválida: x" + i));
+            first = first == null ? response : first;
+        }
+
+        assertEquals(before, ErrorBodies.cacheSize());
+        assertEquals("Fecha inválida: x0", body(first).get("error").asText());
+        assertNotSame(first.getBody(), handler.handleIllegalArgument(new IllegalArgumentException("Fecha inválida: x0")).getBody());
+    }
+
+    @Test
+    @DisplayName("Por encima del límite por segundo los errores se cuentan en vez de loguearse")
+    void logIsRateLimited() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            ResponseEntity<?> response = handler.handleAny(new RuntimeException("boom " + i));
+            assertEquals(500, response.getStatusCode().value());
+            assertEquals("Error interno del servidor", body(response).get("error").asText());
+        }
+        // Un segundo de ventana alcanza para 2; si el test cruza de segundo, pasan 2 más
+        assertTrue(errorLogger.suppressedCount() >= 50 - 4, "omitidos: " + errorLogger.suppressedCount());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.backorders.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStateMachineTest {
+
+    @Test
+    @DisplayName("Solo una orden pendiente puede pagarse o cancelarse")
+    void pendingTransitions() {
+        assertTrue(OrderStateMachine.canTransition(Order.STATUS_PENDING, Order.STATUS_PAID));
+        assertTrue(OrderStateMachine.canTransition(Order.STATUS_PENDING, Order.STATUS_CANCELLED));
+        assertFalse(OrderStateMachine.canTransition(Order.STATUS_PAID, Order.STATUS_CANCELLED));
+        assertFalse(OrderStateMachine.canTransition(Order.STATUS_CANCELLED, Order.STATUS_PAID));
+        assertFalse(OrderStateMachine.canTransition(null, Order.STATUS_PAID));
+    }
+
+    @Test
+    @DisplayName("La entrega se confirma desde 'en camino' o 'pendiente de entrega'")
+    void deliverySources() {
+        assertEquals("en camino/pendiente de entrega", OrderStateMachine.describeSources(Order.STATUS_DELIVERED));
+    }
+
+    @Test
+    @DisplayName("En bloque solo se permiten los estados de logística")
+    void bulkTargets() {
+        assertTrue(OrderStateMachine.isBulkTarget(Order.STATUS_IN_DELIVERY));
+        assertTrue(OrderStateMachine.isBulkTarget(Order.STATUS_PENDING_DELIVERY));
+        assertFalse(OrderStateMachine.isBulkTarget(Order.STATUS_CANCELLED));
+        assertFalse(OrderStateMachine.isBulkTarget(Order.STATUS_PAID));
+        assertFalse(OrderStateMachine.isBulkTarget(Order.STATUS_DELIVERED));
+        assertFalse(OrderStateMachine.isBulkTarget(Order.STATUS_COMPLETED));
+    }
+}
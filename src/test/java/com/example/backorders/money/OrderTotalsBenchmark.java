@@ -0,0 +1,95 @@
+package com.example.backorders.money;
+
+import com.example.backorders.model.OrderItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Total de una orden y texto de sus importes (como en el recibo): centavos en long con
+ * OrderTotals/Money contra el cálculo anterior con Double encajonados y "$" + importe.
+ * Con -prof gc los métodos *Cents deberían dar ~0 B/op.
+ *
+ * Ejecutar: mvn -Pbenchmark test-compile exec:exec -Djmh.args="OrderTotalsBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderTotalsBenchmark {
+
+    // Cómo estaba OrderItem antes: importes en Double
+    private static final class DoubleItem {
+        final Double price;
+        final Integer quantity;
+        final Double discount;
+
+        DoubleItem(Double price, Integer quantity, Double discount) {
+            this.price = price;
+            this.quantity = quantity;
+            this.discount = discount;
+        }
+    }
+
+    @Param({"5", "50"})
+    public int items;
+
+    private List<OrderItem> centsItems;
+    private List<DoubleItem> doubleItems;
+    private final StringBuilder sb = new StringBuilder(4096);
+
+    @Setup
+    public void setUp() {
+        centsItems = new ArrayList<>(items);
+        doubleItems = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            long cents = 1_999 + 37L * i;
+            long discount = i % 4 == 0 ? 150 : 0;
+            OrderItem item = new OrderItem();
+            item.setPriceCents(cents);
+            item.setQuantity(1 + i % 3);
+            item.setDiscountCents(discount);
+            centsItems.add(item);
+            doubleItems.add(new DoubleItem(cents / 100.0, 1 + i % 3, discount / 100.0));
+        }
+    }
+
+    @Benchmark
+    public long totalCents() {
+        return OrderTotals.totalCents(centsItems);
+    }
+
+    @Benchmark
+    public Double totalDouble() {
+        Double total = 0.0;
+        for (DoubleItem item : doubleItems) {
+            double discount = item.discount != null ? item.discount : 0.0;
+            total += Math.max(0, item.price * item.quantity - discount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int formatCents() {
+        sb.setLength(0);
+        for (int i = 0, n = centsItems.size(); i < n; i++) {
+            Money.appendTo(sb.append('$'), centsItems.get(i).getPriceCents()).append('\n');
+        }
+        Money.appendTo(sb.append('$'), OrderTotals.totalCents(centsItems));
+        return sb.length();
+    }
+
+    @Benchmark
+    public int formatDouble() {
+        sb.setLength(0);
+        for (DoubleItem item : doubleItems) {
+            sb.append("$" + item.price).append('\n');
+        }
+        sb.append("$" + totalDouble());
+        return sb.length();
+    }
+}
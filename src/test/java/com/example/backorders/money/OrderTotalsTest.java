@@ -0,0 +1,132 @@
+package com.example.backorders.money;
+
+import com.example.backorders.dto.OrderDetailDTO;
+import com.example.backorders.dto.OrderItemDTO;
+import com.example.backorders.model.Order;
+import com.example.backorders.model.OrderItem;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderTotalsTest {
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    private static OrderItem item(long priceCents, int quantity, long discountCents) {
+        OrderItem item = new OrderItem();
+        item.setPriceCents(priceCents);
+        item.setQuantity(quantity);
+        item.setDiscountCents(discountCents);
+        return item;
+    }
+
+    @Test
+    @DisplayName("Sumar muchos centavos da el total exacto (con double se acumula error)")
+    void sumsAreExact() {
+        List<OrderItem> items = new ArrayList<>();
+        double asDouble = 0;
+        for (int i = 0; i < 1_000; i++) {
+            items.add(item(10, 1, 0));
+            asDouble += 0.10;
+        }
+
+        assertEquals(10_000, OrderTotals.totalCents(items));
+        assertEquals("100.00", Money.format(OrderTotals.totalCents(items)));
+        // Lo que se guardaba antes
+        assertNotEquals(100.0, asDouble);
+
+        assertEquals(30, OrderTotals.totalCents(List.of(item(10, 3, 0))));
+        assertNotEquals(0.3, 0.1 * 3);
+    }
+
+    @Test
+    @DisplayName("Subtotal, descuento y total por línea; el descuento no deja la línea en negativo")
+    void discounts() {
+        List<OrderItem> items = List.of(
+                item(1_999, 3, 500),   // 59.97 - 5.00
+                item(250, 2, 0),       //  5.00
+                item(100, 1, 1_000),   //  1.00 - 10.00 -> 0
+                item(700, 1, -50));    // descuento negativo no encarece la línea
+
+        assertEquals(5_997 + 500 + 100 + 700, OrderTotals.subtotalCents(items));
+        assertEquals(500 + 100, OrderTotals.discountCents(items));
+        assertEquals(5_497 + 500 + 0 + 700, OrderTotals.totalCents(items));
+        assertEquals(OrderTotals.subtotalCents(items) - OrderTotals.discountCents(items), OrderTotals.totalCents(items));
+    }
+
+    @Test
+    @DisplayName("Items sin precio o sin cantidad suman 0; una lista vacía da 0")
+    void missingValues() {
+        OrderItem noPrice = new OrderItem();
+        noPrice.setQuantity(4);
+        OrderItem noQuantity = new OrderItem();
+        noQuantity.setPriceCents(500L);
+
+        assertEquals(0, OrderTotals.totalCents(List.of(noPrice, noQuantity)));
+        assertEquals(0, OrderTotals.totalCents(List.of()));
+    }
+
+    @Test
+    @DisplayName("Un desborde lanza ArithmeticException en vez de dar un total negativo")
+    void overflowFails() {
+        assertThrows(ArithmeticException.class, () -> OrderTotals.totalCents(List.of(item(Long.MAX_VALUE / 2, 3, 0))));
+        assertThrows(ArithmeticException.class, () -> OrderTotals.totalCents(
+                List.of(item(Long.MAX_VALUE / 2, 1, 0), item(Long.MAX_VALUE / 2, 1, 0), item(2, 1, 0))));
+    }
+
+    @Test
+    @DisplayName("Formato con dos decimales, también negativos y extremos")
+    void formats() {
+        assertEquals("0.00", Money.format(0));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("12.50", Money.format(1_250));
+        assertEquals("-0.50", Money.format(-50));
+        assertEquals("-12.05", Money.format(-1_205));
+        assertEquals("92233720368547758.07", Money.format(Long.MAX_VALUE));
+        assertEquals("-92233720368547758.08", Money.format(Long.MIN_VALUE));
+        assertEquals(BigDecimal.valueOf(Long.MIN_VALUE, 2).toPlainString(), Money.format(Long.MIN_VALUE));
+    }
+
+    @Test
+    @DisplayName("Decimal a centavos: exacto, o error si tiene más de dos decimales")
+    void parsesDecimals() {
+        assertEquals(10, Money.fromDecimal(new BigDecimal("0.1")));
+        assertEquals(1_999, Money.fromDecimal(new BigDecimal("19.99")));
+        assertEquals(1_000, Money.fromDecimal(new BigDecimal("10.000")));
+        assertEquals(-5, Money.fromDecimal(new BigDecimal("-0.05")));
+        assertThrows(IllegalArgumentException.class, () -> Money.fromDecimal(new BigDecimal("1.005")));
+        assertThrows(IllegalArgumentException.class, () -> Money.fromDecimal(new BigDecimal("1e30")));
+    }
+
+    @Test
+    @DisplayName("JSON: los centavos se leen y escriben como el mismo número decimal")
+    void jsonRoundTrip() throws Exception {
+        OrderItemDTO item = json.readValue("{\"productId\":1,\"quantity\":3,\"price\":0.1}", OrderItemDTO.class);
+        assertEquals(10L, item.getPriceCents());
+        assertEquals(1_999L, json.readValue("{\"price\":\"19.99\"}", OrderItemDTO.class).getPriceCents());
+        assertNull(json.readValue("{\"price\":null}", OrderItemDTO.class).getPriceCents());
+        assertThrows(JsonMappingException.class, () -> json.readValue("{\"price\":0.001}", OrderItemDTO.class));
+        assertThrows(JsonMappingException.class, () -> json.readValue("{\"price\":\"abc\"}", OrderItemDTO.class));
+
+        String written = json.writeValueAsString(item);
+        assertTrue(written.contains("\"price\":0.10"), written);
+        assertFalse(written.contains("priceCents"), written);
+
+        Order order = new Order();
+        order.setTotalCents(123_456);
+        order.setItems(List.of(item(1_999, 1, 5)));
+        JsonNode detail = json.readTree(json.writeValueAsString(OrderDetailDTO.from(order)));
+        assertEquals("1234.56", detail.get("totalAmount").decimalValue().toPlainString());
+        assertEquals("19.99", detail.get("items").get(0).get("price").decimalValue().toPlainString());
+        assertEquals("0.05", detail.get("items").get(0).get("discount").decimalValue().toPlainString());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.backorders.reconciliation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Líneas por segundo de LedgerScanner sobre un archivo de liquidación de LINES líneas, con todas
+ * las órdenes en un PaidOrderIndex (una pasada) y con un bloque de la décima parte (las líneas
+ * fuera del bloque solo se leen hasta el id).
+ *
+ * Ejecutar: mvn -Pbenchmark test-compile exec:exec -Djmh.args="LedgerScanBenchmark"
+ * (ops/s = líneas por segundo)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LedgerScanBenchmark {
+
+    private static final int LINES = 5_000_000;
+
+    @Param({"1", "0"})
+    public int threads;
+
+    private Path file;
+    private ForkJoinPool pool;
+    private LedgerScanner scanner;
+    private PaidOrderIndex full;
+    private PaidOrderIndex chunk;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("ledger-bench", ".csv");
+        full = new PaidOrderIndex(LINES);
+        chunk = new PaidOrderIndex(LINES / 10);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("order_id,amount,settled_at\n");
+            for (int id = 1; id <= LINES; id++) {
+                long cents = 1_000 + (id * 37L) % 500_000;
+                full.put(id, cents);
+                if (id <= LINES / 10) {
+                    chunk.put(id, cents);
+                }
+                out.write(Integer.toString(id));
+                out.write(',');
+                out.write(Long.toString(cents / 100));
+                out.write('.');
+                out.write(String.format("%02d", cents % 100));
+                out.write(",2024-03-10T12:00:00Z\n");
+            }
+        }
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        scanner = new LedgerScanner(pool, 8 * 1024 * 1024);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long fullIndex() throws IOException {
+        full.resetHits();
+        return scanner.scan(file, full, 0, Long.MAX_VALUE, true, m -> {}).matched;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long tenthOfIndex() throws IOException {
+        chunk.resetHits();
+        return scanner.scan(file, chunk, 0, LINES / 10, false, m -> {}).matched;
+    }
+}
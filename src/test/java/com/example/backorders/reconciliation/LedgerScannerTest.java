@@ -0,0 +1,141 @@
+package com.example.backorders.reconciliation;
+
+import com.example.backorders.dto.ReconciliationMismatchDTO;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerScannerTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    // Tramos mínimos: cualquier archivo de más de 4 KB se divide entre varios hilos
+    private final LedgerScanner scanner = new LedgerScanner(POOL, LedgerScanner.MAX_LINE);
+
+    @TempDir
+    Path dir;
+
+    @AfterAll
+    static void shutdown() {
+        POOL.shutdown();
+    }
+
+    private Path ledger(String content) throws Exception {
+        Path file = dir.resolve("ledger.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    @DisplayName("Clasifica coincidencias, sobrantes, montos distintos, duplicadas e inválidas")
+    void classifiesEveryKindOfLine() throws Exception {
+        PaidOrderIndex index = new PaidOrderIndex(10);
+        index.put(1, 1050);
+        index.put(2, 400);
+        index.put(3, 999);
+        index.put(4, 100);
+        Path file = ledger("""
+                order_id,amount,settled_at\r
+                1,10.50,2024-03-10\r
+                   2 ,  4.0  \r
+                3,9.98
+                4,1
+                4,1
+                77,5.00
+
+                abc,1.00
+                5,1.234
+                """);
+
+        Queue<ReconciliationMismatchDTO> mismatches = new ConcurrentLinkedQueue<>();
+        LedgerScanner.Counts counts = scanner.scan(file, index, 0, Long.MAX_VALUE, true, mismatches::add);
+
+        assertEquals(8, counts.lines);
+        assertEquals(3, counts.matched);
+        assertEquals(1, counts.amountMismatch);
+        assertEquals(1, counts.duplicate);
+        assertEquals(1, counts.extra);
+        assertEquals(2, counts.malformed);
+
+        ReconciliationMismatchDTO amount = find(mismatches, ReconciliationMismatchDTO.AMOUNT);
+        assertEquals(3L, amount.getOrderId());
+        assertEquals(999L, amount.getMontoOrdenCentavos());
+        assertEquals(998L, amount.getMontoPasarelaCentavos());
+        assertEquals(77L, find(mismatches, ReconciliationMismatchDTO.EXTRA).getOrderId());
+        assertEquals(4L, find(mismatches, ReconciliationMismatchDTO.DUPLICATE).getOrderId());
+        for (int slot = 0; slot < index.capacity(); slot++) {
+            if (index.isUsed(slot)) {
+                assertTrue(index.hitsAt(slot) > 0, "sin apariciones: " + index.orderIdAt(slot));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Con muchos tramos cada línea se cuenta una sola vez, aunque cruce el borde de un tramo")
+    void splitsWithoutLosingOrRepeatingLines() throws Exception {
+        int lines = 20_000;
+        PaidOrderIndex index = new PaidOrderIndex(lines);
+        StringBuilder content = new StringBuilder("id,monto\n");
+        for (int id = 1; id <= lines; id++) {
+            index.put(id, id * 10L + 5);
+            content.append(id).append(',').append(id / 10).append('.').append(id % 10).append('5').append('\n');
+        }
+        Path file = ledger(content.toString());
+        assertTrue(Files.size(file) > 50 * LedgerScanner.MAX_LINE);
+
+        Queue<ReconciliationMismatchDTO> mismatches = new ConcurrentLinkedQueue<>();
+        LedgerScanner.Counts counts = scanner.scan(file, index, 0, Long.MAX_VALUE, true, mismatches::add);
+
+        assertEquals(lines, counts.lines);
+        assertEquals(lines, counts.matched);
+        assertEquals(List.of(), List.copyOf(mismatches));
+        for (int slot = 0; slot < index.capacity(); slot++) {
+            if (index.isUsed(slot)) {
+                assertEquals(1, index.hitsAt(slot), "apariciones de " + index.orderIdAt(slot));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Solo se cruzan los ids del rango de la pasada; líneas e inválidas sin id se cuentan una vez")
+    void onlyMatchesIdsInRange() throws Exception {
+        PaidOrderIndex index = new PaidOrderIndex(4);
+        index.put(20, 100);
+        Path file = ledger("""
+                10,1.00
+                20,1.00
+                25,1.00
+                30,x
+                ???
+                """);
+
+        LedgerScanner.Counts first = scanner.scan(file, index, 0, 20, true, m -> {});
+        assertEquals(5, first.lines);
+        assertEquals(1, first.matched);
+        assertEquals(1, first.extra);       // 10
+        assertEquals(1, first.malformed);   // ???
+
+        index.clear();
+        LedgerScanner.Counts second = scanner.scan(file, index, 20, Long.MAX_VALUE, false, m -> {});
+        assertEquals(0, second.lines);
+        assertEquals(1, second.extra);      // 25
+        assertEquals(1, second.malformed);  // 30,x
+    }
+
+    private static ReconciliationMismatchDTO find(Queue<ReconciliationMismatchDTO> mismatches, String tipo) {
+        return mismatches.stream().filter(m -> tipo.equals(m.getTipo())).findFirst()
+                .orElseThrow(() -> new AssertionError("sin diferencia " + tipo));
+    }
+}
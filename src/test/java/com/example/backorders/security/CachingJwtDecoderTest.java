@@ -0,0 +1,119 @@
+package com.example.backorders.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingJwtDecoderTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+    @Mock
+    private JwtDecoder delegate;
+
+    private MutableClock clock;
+    private CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW);
+        decoder = new CachingJwtDecoder(delegate, 2, Duration.ofMinutes(15), clock);
+    }
+
+    @Test
+    @DisplayName("Debe verificar la firma una sola vez por token")
+    void shouldDelegateOncePerToken() {
+        Jwt jwt = jwt("user-1", NOW.plusSeconds(600));
+        when(delegate.decode("token-1")).thenReturn(jwt);
+
+        assertSame(jwt, decoder.decode("token-1"));
+        assertSame(jwt, decoder.decode("token-1"));
+        assertSame(jwt, decoder.decode("token-1"));
+
+        verify(delegate, times(1)).decode("token-1");
+    }
+
+    @Test
+    @DisplayName("No debe servir desde cache un token cuyo exp ya pasó")
+    void shouldNotServeExpiredToken() {
+        when(delegate.decode("token-1"))
+                .thenReturn(jwt("user-1", NOW.plusSeconds(60)))
+                .thenThrow(new BadJwtException("expirado"));
+
+        decoder.decode("token-1");
+        clock.now = NOW.plusSeconds(61);
+
+        assertThrows(BadJwtException.class, () -> decoder.decode("token-1"));
+        verify(delegate, times(2)).decode("token-1");
+    }
+
+    @Test
+    @DisplayName("No debe cachear tokens inválidos")
+    void shouldNotCacheFailures() {
+        when(delegate.decode("malo")).thenThrow(new BadJwtException("firma inválida"));
+
+        assertThrows(BadJwtException.class, () -> decoder.decode("malo"));
+        assertThrows(BadJwtException.class, () -> decoder.decode("malo"));
+
+        verify(delegate, times(2)).decode("malo");
+        assertEquals(0, decoder.size());
+    }
+
+    @Test
+    @DisplayName("Debe respetar el tamaño máximo del cache")
+    void shouldStayBounded() {
+        for (int i = 0; i < 10; i++) {
+            when(delegate.decode("token-" + i)).thenReturn(jwt("user-" + i, NOW.plusSeconds(600)));
+            decoder.decode("token-" + i);
+        }
+
+        assertTrue(decoder.size() <= 2);
+    }
+
+    private static Jwt jwt(String subject, Instant expiresAt) {
+        return Jwt.withTokenValue("t")
+                .header("alg", "RS256")
+                .subject(subject)
+                .issuedAt(NOW)
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.backorders.security;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de autenticación por petición: verificación de firma RS256 en cada request (antes)
+ * contra el decoder con cache de tokens (después). Las claves RSA se generan localmente.
+ *
+ * Ejecutar: mvn -Pbenchmark test-compile exec:exec -Djmh.args=JwtDecoderBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtDecoderBenchmark {
+
+    private RefreshingJwkSetSource jwkSource;
+    private JwtDecoder perRequest;
+    private JwtDecoder cached;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("bench").generate();
+        JWKSet publicSet = new JWKSet(key.toPublicJWK());
+        jwkSource = new RefreshingJwkSetSource(() -> publicSet, Duration.ofMinutes(5), Duration.ofSeconds(30));
+
+        perRequest = JwtDecoderConfig.nimbusDecoder(jwkSource, JwtValidators.createDefault());
+        cached = new CachingJwtDecoder(
+                JwtDecoderConfig.nimbusDecoder(jwkSource, JwtValidators.createDefault()),
+                10_000, Duration.ofMinutes(15), Clock.systemUTC());
+
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("user-123")
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(Duration.ofHours(1))))
+                .build();
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("bench").type(JOSEObjectType.JWT).build(),
+                claims);
+        jwt.sign(new RSASSASigner(key));
+        token = jwt.serialize();
+    }
+
+    @TearDown
+    public void tearDown() {
+        jwkSource.close();
+    }
+
+    @Benchmark
+    public Jwt verifySignatureEveryRequest() {
+        return perRequest.decode(token);
+    }
+
+    @Benchmark
+    public Jwt cachedVerifiedToken() {
+        return cached.decode(token);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.backorders.service;
+
+import com.example.backorders.events.OrderStatusChangedEvent;
+import com.example.backorders.model.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderHistoryCacheTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+    private MutableClock clock;
+    private SimpleMeterRegistry registry;
+    private OrderHistoryCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW);
+        registry = new SimpleMeterRegistry();
+        cache = new OrderHistoryCache(new ObjectMapper(), registry, 10_000, Duration.ofMinutes(1), 1024, clock);
+        loads = new AtomicInteger();
+    }
+
+    private Supplier<List<String>> loader(String value) {
+        return () -> {
+            loads.incrementAndGet();
+            return List.of(value);
+        };
+    }
+
+    private String get(String userId, String status) {
+        return new String(cache.getOrLoad("completa", userId, status, null, 10, loader(userId + ":" + loads.get())),
+                StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("La segunda lectura de la misma página se sirve desde el cache")
+    void shouldServeRepeatedReadsFromCache() {
+        String first = get("user-1", null);
+        String second = get("user-1", null);
+
+        assertEquals(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(0.5, cache.hitRate("completa"), 0.0001);
+        assertEquals(1.0, registry.counter("orders.history.cache", "endpoint", "completa", "result", "hit").count());
+    }
+
+    @Test
+    @DisplayName("Cada combinación de filtros es una entrada distinta")
+    void shouldKeyByFilters() {
+        get("user-1", null);
+        get("user-1", Order.STATUS_PAID);
+
+        assertEquals(2, loads.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    @DisplayName("Un cambio de estado invalida el historial del usuario sin tocar el de otros")
+    void shouldInvalidateByGeneration() {
+        get("user-1", null);
+        get("user-1", Order.STATUS_PAID);
+        get("user-2", null);
+
+        cache.onStatusChanged(new OrderStatusChangedEvent(1L, "user-1", Order.STATUS_PENDING, Order.STATUS_CANCELLED, null, 0));
+
+        get("user-1", null);
+        get("user-1", Order.STATUS_PAID);
+        get("user-2", null);
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    @DisplayName("Las entradas vencen aunque no haya cambios locales")
+    void shouldExpireAfterTtl() {
+        get("user-1", null);
+        clock.now = NOW.plusSeconds(61);
+        get("user-1", null);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("El cache no supera max-bytes")
+    void shouldStayWithinMaxBytes() {
+        for (int i = 0; i < 2_000; i++) {
+            get("user-" + i, null);
+            assertTrue(cache.totalBytes() <= 10_000, "bytes: " + cache.totalBytes());
+        }
+        assertTrue(cache.size() > 0);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.backorders.service;
+
+import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.Repositories.ProductRepository;
+import com.example.backorders.dto.OrderIngestErrorDTO;
+import com.example.backorders.dto.OrderIngestResponseDTO;
+import com.example.backorders.model.Order;
+import com.example.backorders.model.OrderItem;
+import com.example.backorders.model.Product;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "back-orders.ingest.batch-size=2")
+class OrderIngestionServiceTest {
+
+    @Autowired
+    private OrderIngestionService ingestionService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Product product(String name, long priceCents, int stock) {
+        Product p = new Product();
+        p.setName(name);
+        p.setPriceCents(priceCents);
+        p.setStock(stock);
+        return productRepository.save(p);
+    }
+
+    private OrderIngestResponseDTO ingest(String ndjson) throws Exception {
+        return ingestionService.ingest(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("Guarda las líneas válidas, descuenta stock y reporta el resto sin abortar")
+    void ingestsValidLinesAndReportsErrors() throws Exception {
+        Product mouse = product("Mouse", 1_000, 5);
+        Product cable = product("Cable", 250, 100);
+        long m = mouse.getId();
+        long c = cable.getId();
+
+        String ndjson = String.join("\n",
+                "{\"externalId\":\"A\",\"userId\":\"ingest-1\",\"items\":[{\"productId\":" + m + ",\"quantity\":2},{\"productId\":" + c + ",\"quantity\":4}]}",
+                "{esto no es json",
+                "{\"externalId\":\"C\",\"userId\":\"ingest-2\",\"items\":[{\"productId\":999999,\"quantity\":1}]}",
+                "",
+                "{\"externalId\":\"D\",\"userId\":\"ingest-3\",\"status\":\"pendiente\",\"items\":[{\"productId\":" + m + ",\"quantity\":2,\"price\":10.0}]}",
+                "{\"externalId\":\"E\",\"userId\":\"ingest-4\",\"items\":[{\"productId\":" + m + ",\"quantity\":2}]}",
+                "{\"externalId\":\"F\",\"userId\":\"ingest-5\",\"status\":\"inventado\",\"items\":[{\"productId\":" + c + ",\"quantity\":1}]}");
+
+        OrderIngestResponseDTO response = ingest(ndjson);
+
+        assertEquals(6, response.getReceived());
+        assertEquals(2, response.getCreated());
+        assertEquals(4, response.getFailed());
+        List<Long> errorLines = response.getErrors().stream().map(OrderIngestErrorDTO::getLine).toList();
+        assertEquals(List.of(2L, 3L, 6L, 7L), errorLines);
+        assertTrue(response.getErrors().get(2).getError().contains("Stock insuficiente"));
+        assertEquals("F", response.getErrors().get(3).getExternalId());
+
+        assertEquals(1, productRepository.findById(m).orElseThrow().getStock());
+        assertEquals(96, productRepository.findById(c).orElseThrow().getStock());
+
+        List<Order> first = orderRepository.findByUserIdOrderByCreatedAtDesc("ingest-1");
+        assertEquals(1, first.size());
+        assertEquals(Order.STATUS_PENDING, first.get(0).getStatus());
+        assertEquals(3_000, first.get(0).getTotalCents());
+        assertEquals(2, first.get(0).getItems().size());
+
+        Order explicit = orderRepository.findByUserIdOrderByCreatedAtDesc("ingest-3").get(0);
+        assertEquals(Order.STATUS_PENDING, explicit.getStatus());
+        assertEquals(2_000, explicit.getTotalCents());
+    }
+
+    @Test
+    @DisplayName("Solo entran órdenes pendientes a precio de catálogo: ni saltear el pago ni descontar stock de una cancelada")
+    void rejectsStatusAndPriceOverrides() throws Exception {
+        Product mouse = product("Mouse", 1_000, 10);
+        long m = mouse.getId();
+
+        String ndjson = String.join("\n",
+                "{\"externalId\":\"P\",\"userId\":\"override-1\",\"status\":\"pagada\",\"items\":[{\"productId\":" + m + ",\"quantity\":1}]}",
+                "{\"externalId\":\"X\",\"userId\":\"override-2\",\"status\":\"cancelada\",\"items\":[{\"productId\":" + m + ",\"quantity\":4}]}",
+                "{\"externalId\":\"$\",\"userId\":\"override-3\",\"items\":[{\"productId\":" + m + ",\"quantity\":1,\"price\":0.01}]}");
+
+        OrderIngestResponseDTO response = ingest(ndjson);
+
+        assertEquals(0, response.getCreated());
+        assertEquals(List.of("P", "X", "$"), response.getErrors().stream().map(OrderIngestErrorDTO::getExternalId).toList());
+        assertTrue(response.getErrors().get(0).getError().contains("pendientes"));
+        assertTrue(response.getErrors().get(2).getError().contains("catálogo"));
+        assertEquals(10, productRepository.findById(m).orElseThrow().getStock());
+        assertTrue(orderRepository.findByUserIdOrderByCreatedAtDesc("override-1").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Los precios decimales se comparan exactos en centavos; más de dos decimales es error de la línea")
+    void storesExactCents() throws Exception {
+        long dime = product("Clip", 10, 100).getId();
+        long twenty = product("Goma", 20, 100).getId();
+        long c = product("Cable", 1_999, 100).getId();
+
+        String ndjson = String.join("\n",
+                "{\"externalId\":\"A\",\"userId\":\"cents-1\",\"items\":[{\"productId\":" + dime + ",\"quantity\":3,\"price\":0.1},{\"productId\":" + twenty + ",\"quantity\":1,\"price\":0.2}]}",
+                "{\"externalId\":\"B\",\"userId\":\"cents-2\",\"items\":[{\"productId\":" + c + ",\"quantity\":1,\"price\":1.005}]}",
+                "{\"externalId\":\"C\",\"userId\":\"cents-3\",\"items\":[{\"productId\":" + c + ",\"quantity\":1,\"price\":\"19.99\"}]}");
+
+        OrderIngestResponseDTO response = ingest(ndjson);
+
+        assertEquals(2, response.getCreated());
+        assertEquals(List.of(2L), response.getErrors().stream().map(OrderIngestErrorDTO::getLine).toList());
+
+        Order a = orderRepository.findByUserIdOrderByCreatedAtDesc("cents-1").get(0);
+        // Con double: 0.1 * 3 + 0.2 = 0.5000000000000001
+        assertEquals(50, a.getTotalCents());
+        assertEquals(List.of(10L, 20L), a.getItems().stream().map(OrderItem::getPriceCents).sorted().toList());
+        assertEquals(1_999, orderRepository.findByUserIdOrderByCreatedAtDesc("cents-3").get(0).getTotalCents());
+    }
+}
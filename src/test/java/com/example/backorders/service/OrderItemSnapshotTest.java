@@ -0,0 +1,149 @@
+package com.example.backorders.service;
+
+import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.Repositories.ProductRepository;
+import com.example.backorders.dto.OrderDetailDTO;
+import com.example.backorders.dto.OrderDetailItemDTO;
+import com.example.backorders.model.Order;
+import com.example.backorders.model.OrderItem;
+import com.example.backorders.model.Product;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn",
+        "back-orders.expiry.enabled=false",
+        // Se corre a mano
+        "back-orders.item-snapshot-backfill.enabled=false",
+        "back-orders.item-snapshot-backfill.chunk-size=2"
+})
+class OrderItemSnapshotTest {
+
+    @Autowired
+    private ShardedOrderService orders;
+
+    @Autowired
+    private OrderItemSnapshotBackfill backfill;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    private Product mouse;
+    private Product teclado;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        mouse = product("Mouse", 1_000);
+        teclado = product("Teclado", 2_500);
+    }
+
+    private Product product(String name, long priceCents) {
+        Product p = new Product();
+        p.setName(name);
+        p.setPriceCents(priceCents);
+        p.setStock(100);
+        return productRepository.save(p);
+    }
+
+    // Como el checkout: el item no trae nombre y puede no traer precio
+    private Order order(Product... products) {
+        Order o = new Order();
+        o.setUserId("snapshot-user");
+        o.setStatus(Order.STATUS_PAID);
+        List<OrderItem> items = new ArrayList<>();
+        for (Product p : products) {
+            OrderItem item = new OrderItem();
+            item.setOrder(o);
+            item.setProduct(p);
+            item.setQuantity(1);
+            items.add(item);
+        }
+        o.setItems(items);
+        return orderRepository.save(o);
+    }
+
+    private static List<String> describe(OrderDetailDTO detail) {
+        return detail.getItems().stream()
+                .map(i -> i.getProductId() + " " + i.getProductName() + " " + i.getPriceCents())
+                .sorted().toList();
+    }
+
+    @Test
+    @DisplayName("El detalle muestra nombre y precio de la compra y no carga ningún Product")
+    void detailUsesSnapshotWithoutLoadingProducts() {
+        Order order = order(mouse, teclado);
+
+        mouse.setName("Mouse inalámbrico");
+        mouse.setPriceCents(1_200L);
+        productRepository.save(mouse);
+
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        OrderDetailDTO detail = orders.getOrderDetails(order.getId()).orElseThrow();
+
+        assertEquals(List.of(mouse.getId() + " Mouse 1000", teclado.getId() + " Teclado 2500"), describe(detail));
+        assertEquals(0, stats.getEntityStatistics(Product.class.getName()).getLoadCount());
+        assertEquals(0, stats.getEntityStatistics(Product.class.getName()).getFetchCount());
+    }
+
+    @Test
+    @DisplayName("El backfill completa los items viejos sin pisar los que ya tienen copia")
+    void backfillFillsLegacyItems() {
+        Order legacy = order(mouse, teclado, mouse);
+        Order recent = order(teclado);
+        // Items anteriores a la copia: sin nombre ni precio
+        jdbc.update("UPDATE order_items SET product_name = NULL, price_cents = NULL WHERE order_id = ?", legacy.getId());
+        teclado.setName("Teclado mecánico");
+        productRepository.save(teclado);
+
+        assertEquals(3, backfill.backfill());
+        assertEquals(0, backfill.backfill());
+
+        assertEquals(List.of(mouse.getId() + " Mouse 1000", mouse.getId() + " Mouse 1000",
+                        teclado.getId() + " Teclado mecánico 2500"),
+                describe(orders.getOrderDetails(legacy.getId()).orElseThrow()));
+        assertEquals(List.of(teclado.getId() + " Teclado 2500"),
+                describe(orders.getOrderDetails(recent.getId()).orElseThrow()));
+    }
+
+    @Test
+    @DisplayName("La copia no cambia al actualizar el item")
+    void snapshotIsImmutable() {
+        Order order = order(mouse);
+        jdbc.update("UPDATE products SET name = 'Otro' WHERE id = ?", mouse.getId());
+
+        Order reloaded = orderRepository.findById(order.getId()).orElseThrow();
+        OrderItem item = reloaded.getItems().get(0);
+        item.setQuantity(2);
+        orderRepository.save(reloaded);
+
+        OrderDetailItemDTO detail = orders.getOrderDetails(order.getId()).orElseThrow().getItems().get(0);
+        assertEquals("Mouse", detail.getProductName());
+        assertEquals(2, detail.getQuantity());
+    }
+}
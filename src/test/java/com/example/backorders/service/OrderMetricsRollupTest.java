@@ -0,0 +1,166 @@
+package com.example.backorders.service;
+
+import com.example.backorders.Repositories.OrderDailyStatRepository;
+import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.Repositories.ProductRepository;
+import com.example.backorders.dto.OrderDailyMetricDTO;
+import com.example.backorders.model.Order;
+import com.example.backorders.model.OrderItem;
+import com.example.backorders.model.Product;
+import com.example.backorders.money.Money;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "back-orders.expiry.enabled=false",
+        // Los flush se hacen a mano
+        "back-orders.metrics.flush-interval=PT1H"
+})
+class OrderMetricsRollupTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2024, 3, 10);
+    private static final LocalDate DAY_2 = LocalDate.of(2024, 3, 11);
+
+    @Autowired
+    private OrderMetricsRollup metrics;
+
+    @Autowired
+    private ShardedOrderService orders;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderDailyStatRepository statRepository;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        Product p = new Product();
+        p.setName("Mouse");
+        p.setPriceCents(1_000L);
+        p.setStock(1_000);
+        product = productRepository.save(p);
+        metrics.rebuild();
+    }
+
+    // Guardado directo por repositorio: no publica eventos, como una orden escrita por el checkout
+    private Order order(LocalDate day, String status, long totalCents) {
+        Order o = new Order();
+        o.setUserId("metrics-user");
+        o.setStatus(status);
+        o.setTotalCents(totalCents);
+        o.setCreatedAt(Date.from(day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant()));
+
+        OrderItem item = new OrderItem();
+        item.setOrder(o);
+        item.setProduct(product);
+        item.setQuantity(1);
+        item.setPriceCents(totalCents);
+        o.setItems(new ArrayList<>(List.of(item)));
+        return orderRepository.save(o);
+    }
+
+    private static String row(OrderDailyMetricDTO m) {
+        return m.getFecha() + " " + m.getEstado() + " " + m.getCantidad() + " " + Money.format(m.getTotalCents());
+    }
+
+    private List<String> daily() {
+        return metrics.daily(DAY_1.toString(), DAY_2.toString(), null).stream().map(OrderMetricsRollupTest::row).toList();
+    }
+
+    @Test
+    @DisplayName("Las transiciones mueven cantidad e importe entre estados y coinciden con el rebuild")
+    void transitionsMatchRebuild() {
+        Order a = order(DAY_1, Order.STATUS_PENDING, 1_050);
+        order(DAY_1, Order.STATUS_PENDING, 425);
+        Order c = order(DAY_2, Order.STATUS_PENDING, 10_000);
+        metrics.rebuild();
+        assertEquals(List.of(
+                "2024-03-10 pendiente 2 14.75",
+                "2024-03-11 pendiente 1 100.00"), daily());
+
+        orders.payOrder(a.getId());
+        orders.cancelOrder(c.getId());
+
+        // Visible antes de persistir (deltas en memoria)
+        List<String> expected = List.of(
+                "2024-03-10 pagada 1 10.50",
+                "2024-03-10 pendiente 1 4.25",
+                "2024-03-11 cancelada 1 100.00");
+        assertEquals(expected, daily());
+
+        metrics.flush();
+        assertEquals(expected, daily());
+        assertEquals(3, statRepository.findAll().stream().filter(s -> s.getOrderCount() > 0).count());
+
+        metrics.rebuild();
+        assertEquals(expected, daily());
+        assertEquals(List.of("2024-03-10 pendiente 1 4.25"),
+                metrics.daily(DAY_1.toString(), DAY_1.toString(), Order.STATUS_PENDING).stream()
+                        .map(OrderMetricsRollupTest::row).toList());
+    }
+
+    @Test
+    @DisplayName("Transiciones concurrentes con flush intercalados no pierden ni duplican conteos")
+    void concurrentTransitionsWithFlushes() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            ids.add(order(i % 2 == 0 ? DAY_1 : DAY_2, Order.STATUS_PENDING, 100 + 100L * i).getId());
+        }
+        metrics.rebuild();
+
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++) {
+                Long id = ids.get(i);
+                boolean pay = i % 3 != 0;
+                futures.add(pool.submit(() -> pay ? orders.payOrder(id) : orders.cancelOrder(id)));
+                if (i % 10 == 0) {
+                    futures.add(pool.submit(metrics::flush));
+                }
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        List<String> incremental = daily();
+        metrics.flush();
+        assertEquals(incremental, daily());
+        metrics.rebuild();
+        assertEquals(incremental, daily());
+    }
+
+    @Test
+    @DisplayName("Rango de fechas inválido o demasiado largo -> IllegalArgumentException")
+    void rejectsInvalidRanges() {
+        assertThrows(IllegalArgumentException.class, () -> metrics.daily("2024-03-11", "2024-03-10", null));
+        assertThrows(IllegalArgumentException.class, () -> metrics.daily("2020-01-01", "2024-01-01", null));
+        assertThrows(IllegalArgumentException.class, () -> metrics.daily("10/03/2024", "2024-03-11", null));
+    }
+}
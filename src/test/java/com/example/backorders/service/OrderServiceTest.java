@@ -1,9 +1,13 @@
 package com.example.backorders.service;
 
-import com.example.backorders.Repositories.OrderRepositorio;
-import com.example.backorders.Repositories.ProductRepositorio;
+import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.Repositories.ProductRepository;
+import com.example.backorders.dto.OrderDetailDTO;
+import com.example.backorders.events.OrderStatusChangedEvent;
 import com.example.backorders.exceptions.*;
 import com.example.backorders.model.Order;
+import com.example.backorders.model.OrderItem;
+import com.example.backorders.model.Product;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -11,7 +15,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -22,127 +29,207 @@ import static org.mockito.Mockito.*;
 class OrderServiceTest {
 
     @Mock
-    private OrderRepositorio orderRepository;
+    private OrderRepository orderRepository;
 
     @Mock
-    private ProductRepositorio productRepository;
+    private ProductRepository productRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     private OrderService orderService;
 
     @BeforeEach
     void setUp() {
-        orderService = new OrderService(orderRepository, productRepository);
+        orderService = new OrderService(orderRepository, productRepository, eventPublisher, new ReceiptRenderer());
+    }
+
+    private static Order order(long id, String status) {
+        Order order = new Order();
+        order.setId(id);
+        order.setUserId("user-1");
+        order.setStatus(status);
+        order.setTotalCents(10_000);
+        order.setItems(new ArrayList<>());
+        return order;
     }
 
     @Nested
-    @DisplayName("Tests de procesamiento de pagos")
-    class PaymentProcessingTests {
+    @DisplayName("Tests de pago de la orden")
+    class PayOrderTests {
 
         @Test
-        @DisplayName("Debe procesar el pago exitosamente cuando la orden está pendiente")
-        void shouldProcessPaymentSuccessfully() {
+        @DisplayName("Debe marcar como pagada y publicar el evento cuando la orden está pendiente")
+        void shouldPayPendingOrder() {
             // Arrange
-            Order order = new Order();
-            order.setId(1L);
-            order.setStatus(Order.STATUS_PENDING);
-            order.setTotalAmount(100.0);
-
+            Order order = order(1L, Order.STATUS_PENDING);
             when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-            when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
             // Act
-            Order result = orderService.processPayment(1L);
+            Optional<Order> result = orderService.payOrder(1L);
 
             // Assert
-            assertNotNull(result);
-            assertEquals(Order.STATUS_PAID, result.getStatus());
-            verify(orderRepository).save(any(Order.class));
+            assertTrue(result.isPresent());
+            assertEquals(Order.STATUS_PAID, result.get().getStatus());
+            verify(orderRepository).save(order);
+            verify(eventPublisher).publishEvent(new OrderStatusChangedEvent(
+                    1L, "user-1", Order.STATUS_PENDING, Order.STATUS_PAID, order.getCreatedAt(), 10_000));
         }
 
         @Test
-        @DisplayName("Debe lanzar OrderStateException cuando la orden no está pendiente")
-        void shouldThrowOrderStateExceptionWhenNotPending() {
+        @DisplayName("No debe pagar una orden cancelada")
+        void shouldNotPayCancelledOrder() {
             // Arrange
-            Order order = new Order();
-            order.setId(1L);
-            order.setStatus(Order.STATUS_CANCELLED);
-
-            when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+            when(orderRepository.findById(1L)).thenReturn(Optional.of(order(1L, Order.STATUS_CANCELLED)));
 
             // Act & Assert
-            OrderStateException exception = assertThrows(OrderStateException.class,
-                () -> orderService.processPayment(1L));
-
-            assertEquals(Order.STATUS_CANCELLED, exception.getCurrentState());
-            assertEquals(Order.STATUS_PENDING, exception.getRequiredState());
+            assertTrue(orderService.payOrder(1L).isEmpty());
             verify(orderRepository, never()).save(any(Order.class));
+            verifyNoInteractions(eventPublisher);
         }
 
         @Test
-        @DisplayName("Debe lanzar InsufficientFundsException cuando el monto es mayor a 10000")
-        void shouldThrowInsufficientFundsException() {
+        @DisplayName("Debe devolver vacío cuando la orden no existe")
+        void shouldReturnEmptyWhenOrderNotFound() {
             // Arrange
-            Order order = new Order();
-            order.setId(1L);
-            order.setStatus(Order.STATUS_PENDING);
-            order.setTotalAmount(15000.0);
-
-            when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+            when(orderRepository.findById(1L)).thenReturn(Optional.empty());
 
             // Act & Assert
-            assertThrows(InsufficientFundsException.class,
-                () -> orderService.processPayment(1L));
-
+            assertTrue(orderService.payOrder(1L).isEmpty());
             verify(orderRepository, never()).save(any(Order.class));
         }
+    }
+
+    @Nested
+    @DisplayName("Tests de cancelación")
+    class CancelOrderTests {
+
+        private OrderItem item(long productId, int quantity) {
+            Product product = new Product();
+            product.setId(productId);
+            OrderItem item = new OrderItem();
+            item.setProduct(product);
+            item.setQuantity(quantity);
+            return item;
+        }
 
         @Test
-        @DisplayName("Debe lanzar DuplicatePaymentException cuando el ID es múltiplo de 5")
-        void shouldThrowDuplicatePaymentException() {
+        @DisplayName("Debe reponer stock con un UPDATE atómico por producto, sin guardar la entidad Product")
+        void shouldRestockAtomicallyPerProduct() {
             // Arrange
-            Order order = new Order();
-            order.setId(5L);
-            order.setStatus(Order.STATUS_PENDING);
-            order.setTotalAmount(100.0);
+            Order order = order(1L, Order.STATUS_PENDING);
+            order.setItems(List.of(item(20L, 2), item(10L, 1), item(20L, 3)));
+            when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
 
-            when(orderRepository.findById(5L)).thenReturn(Optional.of(order));
+            // Act
+            Optional<OrderDetailDTO> result = orderService.cancelOrder(1L);
 
-            // Act & Assert
-            assertThrows(DuplicatePaymentException.class,
-                () -> orderService.processPayment(5L));
+            // Assert
+            assertTrue(result.isPresent());
+            assertEquals(Order.STATUS_CANCELLED, result.get().getStatus());
+            verify(productRepository).addStock(10L, 1);
+            verify(productRepository).addStock(20L, 5);
+            verify(productRepository, never()).save(any(Product.class));
+        }
 
-            verify(orderRepository, never()).save(any(Order.class));
+        @Test
+        @DisplayName("No debe reponer stock si la orden ya no se puede cancelar")
+        void shouldNotRestockWhenNotCancellable() {
+            // Arrange
+            Order order = order(1L, Order.STATUS_DELIVERED);
+            order.setItems(List.of(item(10L, 1)));
+            when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+            // Act & Assert
+            assertTrue(orderService.cancelOrder(1L).isEmpty());
+            verifyNoInteractions(productRepository);
         }
+    }
+
+    @Nested
+    @DisplayName("Tests de confirmación de entrega")
+    class ConfirmDeliveryTests {
 
         @Test
-        @DisplayName("Debe lanzar PaymentApiException cuando el ID es múltiplo de 7")
-        void shouldThrowPaymentApiException() {
+        @DisplayName("Debe marcar como entregada una orden en camino del mismo usuario")
+        void shouldConfirmDelivery() {
             // Arrange
-            Order order = new Order();
-            order.setId(7L);
-            order.setStatus(Order.STATUS_PENDING);
-            order.setTotalAmount(100.0);
+            when(orderRepository.findById(1L)).thenReturn(Optional.of(order(1L, Order.STATUS_IN_DELIVERY)));
 
-            when(orderRepository.findById(7L)).thenReturn(Optional.of(order));
+            // Act
+            Optional<OrderDetailDTO> result = orderService.confirmDelivery(1L, "user-1");
+
+            // Assert
+            assertTrue(result.isPresent());
+            assertEquals(Order.STATUS_DELIVERED, result.get().getStatus());
+            verify(orderRepository).save(any(Order.class));
+        }
+
+        @Test
+        @DisplayName("Debe lanzar OrderStateException cuando la orden no está en camino")
+        void shouldThrowOrderStateExceptionWhenNotInDelivery() {
+            // Arrange
+            when(orderRepository.findById(1L)).thenReturn(Optional.of(order(1L, Order.STATUS_CANCELLED)));
 
             // Act & Assert
-            assertThrows(PaymentApiException.class,
-                () -> orderService.processPayment(7L));
+            OrderStateException exception = assertThrows(OrderStateException.class,
+                () -> orderService.confirmDelivery(1L, "user-1"));
 
+            assertEquals(Order.STATUS_CANCELLED, exception.getCurrentState());
             verify(orderRepository, never()).save(any(Order.class));
         }
 
         @Test
-        @DisplayName("Debe lanzar RuntimeException cuando la orden no existe")
-        void shouldThrowRuntimeExceptionWhenOrderNotFound() {
+        @DisplayName("No debe confirmar la orden de otro usuario")
+        void shouldNotConfirmOtherUsersOrder() {
             // Arrange
-            when(orderRepository.findById(1L)).thenReturn(Optional.empty());
+            when(orderRepository.findById(1L)).thenReturn(Optional.of(order(1L, Order.STATUS_IN_DELIVERY)));
 
             // Act & Assert
-            assertThrows(RuntimeException.class,
-                () -> orderService.processPayment(1L));
-
+            assertTrue(orderService.confirmDelivery(1L, "otro").isEmpty());
             verify(orderRepository, never()).save(any(Order.class));
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Tests de la pasarela de pagos simulada")
+    class PaymentGatewayTests {
+
+        private final PaymentService paymentService = new PaymentService();
+
+        @Test
+        @DisplayName("Debe aceptar el pago de una orden válida")
+        void shouldProcessPaymentSuccessfully() {
+            assertDoesNotThrow(() -> paymentService.processPayment(order(1L, Order.STATUS_PENDING)));
+        }
+
+        @Test
+        @DisplayName("Debe lanzar InsufficientFundsException cuando el monto es mayor a 10000")
+        void shouldThrowInsufficientFundsException() {
+            Order order = order(1L, Order.STATUS_PENDING);
+            order.setTotalCents(1_500_000);
+
+            assertThrows(InsufficientFundsException.class, () -> paymentService.processPayment(order));
+        }
+
+        @Test
+        @DisplayName("Debe lanzar DuplicatePaymentException cuando el ID es múltiplo de 5")
+        void shouldThrowDuplicatePaymentException() {
+            assertThrows(DuplicatePaymentException.class,
+                () -> paymentService.processPayment(order(5L, Order.STATUS_PENDING)));
+        }
+
+        @Test
+        @DisplayName("Debe lanzar PaymentApiException cuando el ID es múltiplo de 7")
+        void shouldThrowPaymentApiException() {
+            assertThrows(PaymentApiException.class,
+                () -> paymentService.processPayment(order(7L, Order.STATUS_PENDING)));
+        }
+
+        @Test
+        @DisplayName("Debe lanzar PaymentApiException cuando la orden es nula")
+        void shouldThrowPaymentApiExceptionWhenOrderIsNull() {
+            assertThrows(PaymentApiException.class, () -> paymentService.processPayment(null));
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.backorders.service;
+
+import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.Repositories.ProductRepository;
+import com.example.backorders.dto.BulkStatusUpdateResponseDTO;
+import com.example.backorders.dto.StatusTransitionResultDTO;
+import com.example.backorders.exceptions.OrderConflictException;
+import com.example.backorders.exceptions.OrderStateException;
+import com.example.backorders.model.Order;
+import com.example.backorders.model.OrderItem;
+import com.example.backorders.model.Product;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Muchos hilos lanzan transiciones en conflicto (cancelar, pagar, despachar en bloque, confirmar
+ * entrega y el vencimiento de pendientes) sobre las mismas órdenes y productos, y al final se
+ * verifica que no se perdió ni duplicó nada:
+ *
+ * - ninguna orden quedó pagada y cancelada, y cada transición se aplicó a lo sumo una vez;
+ * - el estado final y la versión de cada orden coinciden con las transiciones que informaron éxito;
+ * - el stock de cada producto es el inicial más lo de las órdenes canceladas (repuesto una vez);
+ * - los agregados por evento coinciden con recalcularlos desde la base (un evento por transición).
+ *
+ * El plan de operaciones sale de una semilla fija y todos los hilos arrancan juntos; el orden real
+ * entre hilos varía, pero los invariantes no dependen de él. Al final imprime el throughput.
+ * Tamaño: -Dstress.orders=2000 -Dstress.threads=16 -Dstress.ops-per-order=8 -Dstress.seed=7
+ */
+@SpringBootTest(properties = {
+        "back-orders.expiry.enabled=false",
+        "back-orders.expiry.ttl=PT1M",
+        "back-orders.expiry.chunk-size=7",
+        "back-orders.metrics.flush-interval=PT1H",
+        "back-orders.concurrency.max-attempts=10",
+        "back-orders.concurrency.initial-backoff=PT0.001S",
+        "back-orders.concurrency.max-backoff=PT0.05S"
+})
+class OrderTransitionStressTest {
+
+    private static final int ORDERS = Integer.getInteger("stress.orders", 60);
+    private static final int THREADS = Integer.getInteger("stress.threads", 8);
+    private static final int OPS_PER_ORDER = Integer.getInteger("stress.ops-per-order", 6);
+    private static final long SEED = Long.getLong("stress.seed", 42L);
+
+    private static final int PRODUCTS = 3;
+    private static final int INITIAL_STOCK = 1_000;
+    private static final String USER = "stress-user";
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 10);
+
+    private enum Op { CANCEL, PAY, SHIP, CONFIRM, EXPIRE }
+
+    private record Planned(Op op, int order) {
+    }
+
+    @Autowired
+    private ShardedOrderService orders;
+
+    @Autowired
+    private PendingOrderExpiryService expiry;
+
+    @Autowired
+    private OrderMetricsRollup metrics;
+
+    @Autowired
+    private OptimisticRetry retry;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private List<Product> products;
+    private List<Order> seeded;
+
+    @BeforeEach
+    void seed() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+
+        products = new ArrayList<>();
+        for (int p = 0; p < PRODUCTS; p++) {
+            Product product = new Product();
+            product.setName("Producto " + p);
+            product.setPriceCents(1_000L);
+            product.setStock(INITIAL_STOCK);
+            products.add(productRepository.save(product));
+        }
+
+        // Todas vencidas para el vencimiento automático: compite con cancelar y pagar
+        Date created = Date.from(DAY.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant());
+        seeded = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Order o = new Order();
+            o.setUserId(USER);
+            o.setStatus(Order.STATUS_PENDING);
+            o.setCreatedAt(created);
+            List<OrderItem> items = new ArrayList<>();
+            for (int k = 0; k <= i % 2; k++) {
+                OrderItem item = new OrderItem();
+                item.setOrder(o);
+                item.setProduct(products.get((i + k) % PRODUCTS));
+                item.setQuantity(1 + (i + k) % 4);
+                item.setPriceCents(1_000L);
+                items.add(item);
+            }
+            o.setItems(items);
+            o.setTotalCents(1_000);
+            seeded.add(orderRepository.save(o));
+        }
+        metrics.rebuild();
+    }
+
+    private List<List<Planned>> plan() {
+        Random random = new Random(SEED);
+        List<Planned> all = new ArrayList<>();
+        Op[] perOrder = {Op.CANCEL, Op.PAY, Op.SHIP, Op.CONFIRM};
+        for (int i = 0; i < ORDERS; i++) {
+            for (int k = 0; k < OPS_PER_ORDER; k++) {
+                all.add(new Planned(perOrder[random.nextInt(perOrder.length)], i));
+            }
+        }
+        for (int k = 0; k < Math.max(1, ORDERS / 20); k++) {
+            all.add(new Planned(Op.EXPIRE, -1));
+        }
+        Collections.shuffle(all, random);
+
+        List<List<Planned>> perThread = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            perThread.add(new ArrayList<>());
+        }
+        for (int i = 0; i < all.size(); i++) {
+            perThread.get(i % THREADS).add(all.get(i));
+        }
+        return perThread;
+    }
+
+    @Test
+    @DisplayName("Transiciones en conflicto desde muchos hilos no pierden ni duplican cambios")
+    void conflictingTransitionsKeepInvariants() throws Exception {
+        AtomicIntegerArray cancelled = new AtomicIntegerArray(ORDERS);
+        AtomicIntegerArray paid = new AtomicIntegerArray(ORDERS);
+        AtomicIntegerArray shipped = new AtomicIntegerArray(ORDERS);
+        AtomicIntegerArray delivered = new AtomicIntegerArray(ORDERS);
+        AtomicInteger expired = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        List<List<Planned>> plan = plan();
+        int totalOps = plan.stream().mapToInt(List::size).sum();
+        double retriesBefore = retry.retryCount();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long elapsed;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Planned> ops : plan) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (Planned p : ops) {
+                        try {
+                            boolean applied = apply(p, expired);
+                            if (p.op() != Op.EXPIRE && !applied) {
+                                rejected.incrementAndGet();
+                            } else if (applied) {
+                                switch (p.op()) {
+                                    case CANCEL -> cancelled.incrementAndGet(p.order());
+                                    case PAY -> paid.incrementAndGet(p.order());
+                                    case SHIP -> shipped.incrementAndGet(p.order());
+                                    case CONFIRM -> delivered.incrementAndGet(p.order());
+                                    default -> { }
+                                }
+                            }
+                        } catch (OrderConflictException e) {
+                            conflicts.incrementAndGet();
+                        } catch (Throwable e) {
+                            unexpected.add(e);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            elapsed = System.nanoTime() - begin;
+        } finally {
+            pool.shutdown();
+        }
+
+        assertTrue(unexpected.isEmpty(), () -> "Errores inesperados: " + unexpected);
+
+        // ===== Estado final de cada orden =====
+        Map<Long, Order> finalOrders = new HashMap<>();
+        orderRepository.findAllById(seeded.stream().map(Order::getId).toList())
+                .forEach(o -> finalOrders.put(o.getId(), o));
+
+        int transitions = 0;
+        int expiredFound = 0;
+        int[] restocked = new int[PRODUCTS];
+        for (int i = 0; i < ORDERS; i++) {
+            Order o = finalOrders.get(seeded.get(i).getId());
+            int c = cancelled.get(i), p = paid.get(i), s = shipped.get(i), d = delivered.get(i);
+            String where = "orden " + i + " (" + o.getStatus() + ")";
+
+            assertTrue(c <= 1 && p <= 1 && s <= 1 && d <= 1, where + ": transición aplicada dos veces");
+            assertFalse(c == 1 && p == 1, where + ": pagada y cancelada");
+            assertTrue(s <= p && d <= s, where + ": despachada sin pagar o entregada sin despachar");
+
+            String expected = d == 1 ? Order.STATUS_DELIVERED
+                    : s == 1 ? Order.STATUS_IN_DELIVERY
+                    : p == 1 ? Order.STATUS_PAID
+                    : c == 1 ? Order.STATUS_CANCELLED
+                    : null;
+            if (expected == null) {
+                // Sin transición informada: sigue pendiente o la venció el proceso automático
+                assertTrue(Order.STATUS_PENDING.equals(o.getStatus()) || Order.STATUS_CANCELLED.equals(o.getStatus()), where);
+                if (Order.STATUS_CANCELLED.equals(o.getStatus())) {
+                    expiredFound++;
+                }
+            } else {
+                assertEquals(expected, o.getStatus(), where);
+            }
+
+            int applied = c + p + s + d + (expected == null && Order.STATUS_CANCELLED.equals(o.getStatus()) ? 1 : 0);
+            assertEquals(applied, o.getVersion(), where + ": versión distinta de las transiciones aplicadas");
+            transitions += applied;
+
+            if (Order.STATUS_CANCELLED.equals(o.getStatus())) {
+                // Los items sembrados en memoria: la orden leída acá está fuera de transacción
+                for (OrderItem item : seeded.get(i).getItems()) {
+                    restocked[products.indexOf(item.getProduct())] += item.getQuantity();
+                }
+            }
+        }
+        assertEquals(expired.get(), expiredFound, "Órdenes vencidas informadas vs. encontradas");
+
+        // ===== Stock repuesto exactamente una vez por orden cancelada =====
+        for (int p = 0; p < PRODUCTS; p++) {
+            Product product = productRepository.findById(products.get(p).getId()).orElseThrow();
+            assertEquals(INITIAL_STOCK + restocked[p], (int) product.getStock(), "stock de " + product.getName());
+        }
+
+        // ===== Un evento por transición confirmada =====
+        List<String> incremental = daily();
+        metrics.flush();
+        metrics.rebuild();
+        assertEquals(daily(), incremental);
+
+        double seconds = elapsed / 1e9;
+        System.out.printf(REPORT,
+                THREADS, ORDERS, totalOps, seconds, totalOps / seconds, transitions, transitions / seconds,
+                rejected.get(), conflicts.get(), (long) (retry.retryCount() - retriesBefore));
+    }
+
+    private static final String REPORT = "%nStress: %d hilos, %d órdenes, %d operaciones en %.2f s"
+            + " (%.0f ops/s); %d transiciones aplicadas (%.0f/s), %d rechazadas por estado,"
+            + " %d conflictos tras reintentos, %d reintentos%n";
+
+    private boolean apply(Planned p, AtomicInteger expired) {
+        Long id = p.order() >= 0 ? seeded.get(p.order()).getId() : null;
+        switch (p.op()) {
+            case CANCEL:
+                return orders.cancelOrder(id).isPresent();
+            case PAY:
+                return orders.payOrder(id).isPresent();
+            case SHIP: {
+                BulkStatusUpdateResponseDTO r = orders.bulkTransition(Order.STATUS_IN_DELIVERY, List.of(id));
+                return StatusTransitionResultDTO.APPLIED.equals(r.getResults().get(0).getResult());
+            }
+            case CONFIRM:
+                try {
+                    return orders.confirmDelivery(id, USER).isPresent();
+                } catch (OrderStateException e) {
+                    return false;
+                }
+            case EXPIRE:
+                expired.addAndGet(expiry.expireStaleOrders());
+                return true;
+            default:
+                throw new IllegalStateException(p.op().name());
+        }
+    }
+
+    private List<String> daily() {
+        return metrics.daily(DAY.toString(), DAY.toString(), null).stream()
+                .map(m -> m.getEstado() + " " + m.getCantidad() + " " + m.getTotalCents())
+                .toList();
+    }
+}
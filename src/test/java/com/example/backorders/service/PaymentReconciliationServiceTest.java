@@ -0,0 +1,138 @@
+package com.example.backorders.service;
+
+import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.Repositories.ProductRepository;
+import com.example.backorders.dto.ReconciliationMismatchDTO;
+import com.example.backorders.dto.ReconciliationReportDTO;
+import com.example.backorders.model.Order;
+import com.example.backorders.money.Money;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "back-orders.expiry.enabled=false",
+        "back-orders.reconciliation.dir=${java.io.tmpdir}/back-orders-ledgers-${random.uuid}",
+        // Bloques y páginas chicos: varias pasadas sobre el archivo y varias páginas por bloque
+        "back-orders.reconciliation.chunk-size=3",
+        "back-orders.reconciliation.page-size=2",
+        "back-orders.reconciliation.max-report-entries=2"
+})
+class PaymentReconciliationServiceTest {
+
+    @Autowired
+    private PaymentReconciliationService reconciliation;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Path dir;
+
+    private List<Order> paid;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        dir = Files.createDirectories(reconciliation.directory());
+
+        paid = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            paid.add(order(Order.STATUS_PAID, 1_000 + 100L * i));
+        }
+        order(Order.STATUS_PENDING, 9_900);
+    }
+
+    private Order order(String status, long totalCents) {
+        Order o = new Order();
+        o.setUserId("ledger-user");
+        o.setStatus(status);
+        o.setTotalCents(totalCents);
+        return orderRepository.save(o);
+    }
+
+    private static String line(Order o, String amount) {
+        return o.getId() + "," + amount + "\n";
+    }
+
+    @Test
+    @DisplayName("Informa faltantes, sobrantes y montos distintos a través de varias pasadas")
+    void reportsMismatchesAcrossChunks() throws Exception {
+        Order pending = orderRepository.findAll().stream()
+                .filter(o -> Order.STATUS_PENDING.equals(o.getStatus())).findFirst().orElseThrow();
+        long beyondLast = paid.get(paid.size() - 1).getId() + 1000;
+
+        StringBuilder ledger = new StringBuilder("order_id,amount\n");
+        for (int i = paid.size() - 1; i >= 0; i--) {
+            if (i == 2 || i == 6) {
+                continue; // faltan en la pasarela
+            }
+            String amount = i == 4 ? "1.00" : String.format(Locale.ROOT, "%.2f", 10.0 + i);
+            ledger.append(line(paid.get(i), amount));
+        }
+        ledger.append(line(pending, "99.00"));       // no está pagada
+        ledger.append(beyondLast).append(",5.00\n"); // id mayor a todas las órdenes
+        ledger.append("sin id\n");
+        Files.writeString(dir.resolve("settlement.csv"), ledger, StandardCharsets.UTF_8);
+
+        ReconciliationReportDTO report = reconciliation.reconcile("settlement.csv");
+
+        assertEquals(9, report.getLineas());
+        assertEquals(5, report.getCoincidencias());
+        assertEquals(2, report.getFaltantes());
+        assertEquals(2, report.getSobrantes());
+        assertEquals(1, report.getMontosDistintos());
+        assertEquals(1, report.getLineasInvalidas());
+        assertEquals(3, report.getPasadas());
+        assertEquals(2, report.getDiferencias().size());
+
+        List<String> csv = Files.readAllLines(dir.resolve(report.getReporte()));
+        assertEquals(1 + 2 + 2 + 1 + 1, csv.size());
+        assertTrue(csv.contains(ReconciliationMismatchDTO.MISSING + "," + paid.get(2).getId() + ",1200,,"));
+        assertTrue(csv.contains(ReconciliationMismatchDTO.MISSING + "," + paid.get(6).getId() + ",1600,,"));
+        assertTrue(csv.stream().anyMatch(l -> l.startsWith(ReconciliationMismatchDTO.AMOUNT + "," + paid.get(4).getId() + ",1400,100,")));
+        assertTrue(csv.stream().anyMatch(l -> l.startsWith(ReconciliationMismatchDTO.EXTRA + "," + pending.getId() + ",,9900,")));
+        assertTrue(csv.stream().anyMatch(l -> l.startsWith(ReconciliationMismatchDTO.EXTRA + "," + beyondLast + ",,500,")));
+    }
+
+    @Test
+    @DisplayName("Un archivo de pasarela completo concilia sin diferencias")
+    void cleanLedgerHasNoMismatches() throws Exception {
+        StringBuilder ledger = new StringBuilder();
+        for (Order o : paid) {
+            ledger.append(line(o, Money.format(o.getTotalCents())));
+        }
+        Files.writeString(dir.resolve("clean.csv"), ledger, StandardCharsets.UTF_8);
+
+        ReconciliationReportDTO report = reconciliation.reconcile("clean.csv");
+
+        assertEquals(paid.size(), report.getLineas());
+        assertEquals(paid.size(), report.getCoincidencias());
+        assertEquals(0, report.getFaltantes() + report.getSobrantes() + report.getMontosDistintos());
+        assertEquals(List.of(), report.getDiferencias());
+    }
+
+    @Test
+    @DisplayName("Nombres fuera del directorio o archivos inexistentes -> IllegalArgumentException")
+    void rejectsInvalidFiles() {
+        assertThrows(IllegalArgumentException.class, () -> reconciliation.reconcile("../etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> reconciliation.reconcile("sub/ledger.csv"));
+        assertThrows(IllegalArgumentException.class, () -> reconciliation.reconcile("no-existe.csv"));
+        assertThrows(IllegalArgumentException.class, () -> reconciliation.reconcile(" "));
+    }
+}
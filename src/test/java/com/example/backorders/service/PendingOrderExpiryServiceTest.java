@@ -0,0 +1,116 @@
+package com.example.backorders.service;
+
+import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.Repositories.ProductRepository;
+import com.example.backorders.model.Order;
+import com.example.backorders.model.OrderItem;
+import com.example.backorders.model.Product;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "back-orders.expiry.enabled=false",
+        "back-orders.expiry.ttl=PT1H",
+        "back-orders.expiry.chunk-size=3",
+        "back-orders.expiry.max-duty-cycle=1"
+})
+class PendingOrderExpiryServiceTest {
+
+    private static final long TWO_HOURS = 2 * 60 * 60 * 1000L;
+
+    @Autowired
+    private PendingOrderExpiryService expiryService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        Product p = new Product();
+        p.setName("Teclado");
+        p.setPriceCents(2_000L);
+        p.setStock(0);
+        product = productRepository.save(p);
+    }
+
+    private Order order(String status, long age, int quantity) {
+        Order o = new Order();
+        o.setUserId("expiry-user");
+        o.setStatus(status);
+        o.setTotalCents(2_000L * quantity);
+        o.setCreatedAt(new Date(System.currentTimeMillis() - age));
+
+        OrderItem item = new OrderItem();
+        item.setOrder(o);
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setPriceCents(2_000L);
+        o.setItems(new ArrayList<>(List.of(item)));
+        return orderRepository.save(o);
+    }
+
+    @Test
+    @DisplayName("Cancela solo las pendientes vencidas y repone su stock")
+    void expiresOnlyStalePendingOrders() {
+        List<Long> stale = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            stale.add(order(Order.STATUS_PENDING, TWO_HOURS + i, 2).getId());
+        }
+        Long fresh = order(Order.STATUS_PENDING, 60_000, 5).getId();
+        Long paid = order(Order.STATUS_PAID, TWO_HOURS, 5).getId();
+
+        assertEquals(7, expiryService.expireStaleOrders());
+        assertEquals(7, expiryService.getBacklog());
+
+        for (Long id : stale) {
+            assertEquals(Order.STATUS_CANCELLED, orderRepository.findById(id).orElseThrow().getStatus());
+        }
+        assertEquals(Order.STATUS_PENDING, orderRepository.findById(fresh).orElseThrow().getStatus());
+        assertEquals(Order.STATUS_PAID, orderRepository.findById(paid).orElseThrow().getStatus());
+        assertEquals(14, productRepository.findById(product.getId()).orElseThrow().getStock());
+
+        // Segunda corrida: ya no queda nada vencido
+        assertEquals(0, expiryService.expireStaleOrders());
+        assertEquals(0, expiryService.getBacklog());
+    }
+
+    @Test
+    @DisplayName("Dos corridas simultáneas no cancelan la misma orden dos veces")
+    void concurrentRunsDoNotDoubleRestoreStock() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            order(Order.STATUS_PENDING, TWO_HOURS + i, 1);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Callable<Integer> run = expiryService::expireStaleOrders;
+            Future<Integer> a = pool.submit(run);
+            Future<Integer> b = pool.submit(run);
+            assertEquals(30, a.get() + b.get());
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(30, productRepository.findById(product.getId()).orElseThrow().getStock());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.backorders.service;
+
+import com.example.backorders.dto.OrderDetailDTO;
+import com.example.backorders.dto.ReceiptJobDTO;
+import com.example.backorders.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReceiptJobServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ReceiptJobService service;
+
+    @AfterEach
+    void shutdown() {
+        service.destroy();
+    }
+
+    private ReceiptJobService failingService(Duration failedTtl) {
+        OrderService orderService = mock(OrderService.class);
+        when(orderService.generateReceiptPdf(any())).thenThrow(new IllegalStateException("boom"));
+        service = new ReceiptJobService(orderService, new ReceiptStore(dir, 1024 * 1024), 1, 10, failedTtl);
+        return service;
+    }
+
+    private static String awaitState(ReceiptJobService service, OrderDetailDTO order, String jobId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            String estado = service.getJob(order.getId(), jobId, order.getUserId())
+                    .map(ReceiptJobDTO::getEstado).orElse(null);
+            if (!ReceiptJobDTO.PENDING.equals(estado) && !ReceiptJobDTO.RUNNING.equals(estado)) {
+                return estado;
+            }
+            Thread.sleep(10);
+        }
+        fail("el job no terminó");
+        return null;
+    }
+
+    private static OrderDetailDTO order(long id) {
+        return new OrderDetailDTO(id, "user-1", Order.STATUS_PAID, 1_000, new Date(1_700_000_000_000L), List.of());
+    }
+
+    @Test
+    @DisplayName("Un job fallido se informa mientras dura failed-ttl y después se descarta")
+    void failedJobsExpire() throws Exception {
+        ReceiptJobService service = failingService(Duration.ofMillis(300));
+        OrderDetailDTO order = order(1L);
+
+        String jobId = service.submit(order).getJobId();
+        assertEquals(ReceiptJobDTO.FAILED, awaitState(service, order, jobId));
+        assertEquals(1, service.jobsInMemory());
+
+        Thread.sleep(400);
+
+        assertTrue(service.getJob(order.getId(), jobId, order.getUserId()).isEmpty());
+        assertEquals(0, service.jobsInMemory());
+    }
+
+    @Test
+    @DisplayName("Muchos recibos fallidos no se acumulan en memoria")
+    void failuresDoNotAccumulate() throws Exception {
+        ReceiptJobService service = failingService(Duration.ZERO);
+
+        for (long id = 1; id <= 20; id++) {
+            OrderDetailDTO order = order(id);
+            String jobId = service.submit(order).getJobId();
+            awaitState(service, order, jobId);
+        }
+
+        assertTrue(service.jobsInMemory() <= 1, "jobs en memoria: " + service.jobsInMemory());
+    }
+}
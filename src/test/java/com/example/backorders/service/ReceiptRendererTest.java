@@ -0,0 +1,83 @@
+package com.example.backorders.service;
+
+import com.example.backorders.dto.OrderDetailDTO;
+import com.example.backorders.model.Order;
+import com.example.backorders.model.OrderItem;
+import com.example.backorders.model.Product;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptRendererTest {
+
+    private final ReceiptRenderer renderer = new ReceiptRenderer();
+
+    @Test
+    @DisplayName("El recibo incluye las partes fijas y los datos de la orden")
+    void shouldRenderStaticAndDynamicParts() throws Exception {
+        String text = extractText(renderer.render(OrderDetailDTO.from(order(3))));
+
+        assertTrue(text.contains("RECIBO DE PAGO"));
+        assertTrue(text.contains("IS2 E-COMMERCE"));
+        assertTrue(text.contains("Detalles:"));
+        assertTrue(text.contains("¡Gracias por su compra!"));
+        assertTrue(text.contains("Orden ID:"));
+        assertTrue(text.contains("Producto 2"));
+        assertTrue(text.contains("$150.00"));
+        assertTrue(text.contains("$50.00"));
+    }
+
+    @Test
+    @DisplayName("Las partes precompiladas se reutilizan entre recibos sin mezclar datos")
+    void shouldReuseTemplateAcrossDocuments() throws Exception {
+        String first = extractText(renderer.render(OrderDetailDTO.from(order(1))));
+        String second = extractText(renderer.render(OrderDetailDTO.from(order(40))));
+
+        assertTrue(first.contains("RECIBO DE PAGO"));
+        assertTrue(second.contains("RECIBO DE PAGO"));
+        assertFalse(first.contains("Producto 39"));
+        assertTrue(second.contains("Producto 39"));
+    }
+
+    private static String extractText(byte[] pdf) throws Exception {
+        try (PdfDocument doc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 1; i <= doc.getNumberOfPages(); i++) {
+                sb.append(PdfTextExtractor.getTextFromPage(doc.getPage(i))).append('\n');
+            }
+            return sb.toString();
+        }
+    }
+
+    private static Order order(int items) {
+        Order order = new Order();
+        order.setId(42L);
+        order.setUserId("user-1");
+        order.setStatus(Order.STATUS_PAID);
+        order.setTotalCents(15_000);
+        order.setCreatedAt(new Date(0));
+
+        List<OrderItem> list = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            Product product = new Product();
+            product.setId((long) i);
+            product.setName("Producto " + i);
+            OrderItem item = new OrderItem();
+            item.setProduct(product);
+            item.setQuantity(1);
+            item.setPriceCents(5_000L);
+            list.add(item);
+        }
+        order.setItems(list);
+        return order;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.backorders.service;
+
+import com.example.backorders.dto.OrderDetailDTO;
+import com.example.backorders.model.Order;
+import com.example.backorders.model.OrderItem;
+import com.example.backorders.model.Product;
+import com.example.backorders.money.Money;
+import com.example.backorders.money.OrderTotals;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tiempo y asignación de memoria por recibo: maquetado completo en cada llamada (implementación
+ * anterior de OrderService.generateReceiptPdf, copiada abajo) contra ReceiptRenderer.
+ *
+ * Ejecutar: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ReceiptRenderingBenchmark -prof gc"
+ * (gc.alloc.rate.norm = bytes asignados por recibo)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReceiptRenderingBenchmark {
+
+    @Param({"3", "50"})
+    public int items;
+
+    private Order order;
+    private OrderDetailDTO detail;
+    private ReceiptRenderer renderer;
+
+    @Setup
+    public void setUp() {
+        renderer = new ReceiptRenderer();
+        order = new Order();
+        order.setId(1234L);
+        order.setUserId("user-1");
+        order.setStatus(Order.STATUS_PAID);
+        order.setCreatedAt(new Date());
+
+        List<OrderItem> list = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            Product product = new Product();
+            product.setId((long) i);
+            product.setName("Producto de prueba " + i);
+            OrderItem item = new OrderItem();
+            item.setProduct(product);
+            item.setQuantity(1 + i % 3);
+            item.setPriceCents(1_999L);
+            list.add(item);
+        }
+        order.setItems(list);
+        order.setTotalCents(OrderTotals.totalCents(list));
+        detail = OrderDetailDTO.from(order);
+    }
+
+    @Benchmark
+    public byte[] fullLayoutEveryTime() {
+        return legacyReceipt(order);
+    }
+
+    @Benchmark
+    public byte[] precompiledTemplate() {
+        return renderer.render(detail);
+    }
+
+    // Implementación original, sin cambios, como punto de comparación
+    private static byte[] legacyReceipt(Order order) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfWriter writer = new PdfWriter(baos);
+        PdfDocument pdf = new PdfDocument(writer);
+        Document document = new Document(pdf);
+
+        document.add(new Paragraph("RECIBO DE PAGO")
+                .setFontSize(20)
+                .setBold()
+                .setTextAlignment(TextAlignment.CENTER));
+
+        document.add(new Paragraph("IS2 E-COMMERCE")
+                .setFontSize(12)
+                .setTextAlignment(TextAlignment.CENTER));
+
+        document.add(new Paragraph("\n"));
+
+        Table table = new Table(2).useAllAvailableWidth();
+        table.addCell(createCell("Orden ID:"));
+        table.addCell(createCell(order.getId().toString()));
+        table.addCell(createCell("Fecha:"));
+        table.addCell(createCell(order.getCreatedAt().toString()));
+        table.addCell(createCell("Estado:"));
+        table.addCell(createCell(order.getStatus()));
+        table.addCell(createCell("Total:"));
+        table.addCell(createCell("$" + Money.format(order.getTotalCents())));
+
+        document.add(table);
+        document.add(new Paragraph("\n"));
+
+        document.add(new Paragraph("Detalles:")
+                .setBold()
+                .setFontSize(14));
+
+        Table itemsTable = new Table(new float[]{3, 1, 2}).useAllAvailableWidth();
+        itemsTable.addHeaderCell("Producto");
+        itemsTable.addHeaderCell("Cant.");
+        itemsTable.addHeaderCell("Precio");
+
+        for (OrderItem item : order.getItems()) {
+            Product p = item.getProduct();
+            itemsTable.addCell(p != null ? p.getName() : "N/A");
+            itemsTable.addCell(String.valueOf(item.getQuantity()));
+            itemsTable.addCell("$" + Money.format(item.getPriceCents()));
+        }
+
+        document.add(itemsTable);
+        document.add(new Paragraph("\n¡Gracias por su compra!")
+                .setTextAlignment(TextAlignment.CENTER));
+
+        document.close();
+        return baos.toByteArray();
+    }
+
+    private static Cell createCell(String content) {
+        return new Cell().add(new Paragraph(content)).setPadding(5);
+    }
+}
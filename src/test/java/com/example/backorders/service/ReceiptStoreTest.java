@@ -0,0 +1,103 @@
+package com.example.backorders.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Un recibo guardado se puede leer tras reiniciar el almacén")
+    void shouldSurviveRestart() throws Exception {
+        byte[] pdf = "%PDF-1.7 recibo".getBytes();
+        new ReceiptStore(dir, 1024 * 1024).put("a".repeat(64), "user-1", 10L, pdf);
+
+        ReceiptStore reopened = new ReceiptStore(dir, 1024 * 1024);
+        ReceiptStore.Entry entry = reopened.find("a".repeat(64)).orElseThrow();
+
+        assertEquals("user-1", entry.userId());
+        assertEquals(10L, entry.orderId());
+        assertEquals(pdf.length, reopened.totalBytes());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reopened.transferTo(entry, Channels.newChannel(out));
+        assertArrayEquals(pdf, out.toByteArray());
+    }
+
+    @Test
+    @DisplayName("Recibos con el mismo contenido comparten archivo")
+    void shouldDeduplicateByContent() {
+        ReceiptStore store = new ReceiptStore(dir, 1024 * 1024);
+        byte[] pdf = new byte[100];
+
+        ReceiptStore.Entry first = store.put("a".repeat(64), "user-1", 1L, pdf);
+        ReceiptStore.Entry second = store.put("b".repeat(64), "user-1", 1L, pdf);
+
+        assertEquals(first.file(), second.file());
+        assertEquals(100, store.totalBytes());
+    }
+
+    @Test
+    @DisplayName("Puts concurrentes del mismo PDF cuentan su tamaño una sola vez")
+    void concurrentPutsCountOnce() throws Exception {
+        ReceiptStore store = new ReceiptStore(dir, 1024 * 1024);
+        byte[] pdf = filled(100, 7);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> puts = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String key = String.valueOf((char) ('a' + i)).repeat(64);
+                puts.add(pool.submit(() -> {
+                    start.await();
+                    return store.put(key, "user-1", 1L, pdf);
+                }));
+            }
+            start.countDown();
+            for (Future<?> put : puts) {
+                put.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(100, store.totalBytes());
+        assertEquals(100, new ReceiptStore(dir, 1024 * 1024).totalBytes());
+    }
+
+    @Test
+    @DisplayName("Debe desalojar los recibos menos usados al superar el tamaño máximo")
+    void shouldEvictWhenOverLimit() {
+        ReceiptStore store = new ReceiptStore(dir, 250);
+
+        store.put("a".repeat(64), "user-1", 1L, new byte[100]);
+        store.put("b".repeat(64), "user-1", 2L, filled(100, 1));
+        store.put("c".repeat(64), "user-1", 3L, filled(100, 2));
+
+        assertTrue(store.totalBytes() <= 250);
+        assertTrue(store.find("c".repeat(64)).isPresent());
+        assertTrue(store.find("a".repeat(64)).isEmpty() || store.find("b".repeat(64)).isEmpty());
+    }
+
+    private static byte[] filled(int size, int value) {
+        byte[] data = new byte[size];
+        java.util.Arrays.fill(data, (byte) value);
+        return data;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.backorders.sharding;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashShardResolverTest {
+
+    @Test
+    @DisplayName("Los usuarios se reparten parejo entre los shards")
+    void distribution() {
+        ConsistentHashShardResolver resolver = new ConsistentHashShardResolver(4, 128);
+        int[] counts = new int[4];
+        for (int i = 0; i < 40_000; i++) {
+            counts[resolver.shardFor("user-" + i)]++;
+        }
+        for (int count : counts) {
+            // 10.000 esperados por shard; se tolera ±20%
+            assertTrue(count > 8_000 && count < 12_000, "reparto desparejo: " + count);
+        }
+    }
+
+    @Test
+    @DisplayName("Al agregar un shard solo se mueven los usuarios que pasan al nuevo")
+    void addingShardMovesOnlyAFraction() {
+        ConsistentHashShardResolver four = new ConsistentHashShardResolver(4, 128);
+        ConsistentHashShardResolver five = new ConsistentHashShardResolver(5, 128);
+        int moved = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String user = "user-" + i;
+            int before = four.shardFor(user);
+            int after = five.shardFor(user);
+            if (before != after) {
+                assertEquals(4, after, "un usuario se movió entre shards existentes");
+                moved++;
+            }
+        }
+        // ~1/5 de los usuarios
+        assertTrue(moved > 1_200 && moved < 2_800, "movidos: " + moved);
+    }
+
+    @Test
+    @DisplayName("Con un solo shard todo va al shard 0")
+    void singleShard() {
+        ConsistentHashShardResolver resolver = new ConsistentHashShardResolver(1, 16);
+        assertEquals(0, resolver.shardFor("cualquiera"));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashShardResolver(0, 16));
+    }
+}
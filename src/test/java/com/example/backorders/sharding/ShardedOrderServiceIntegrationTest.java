@@ -0,0 +1,197 @@
+package com.example.backorders.sharding;
+
+import com.example.backorders.Repositories.OrderRepository;
+import com.example.backorders.dto.BulkStatusUpdateResponseDTO;
+import com.example.backorders.dto.OrderSummaryDTO;
+import com.example.backorders.dto.ProductOrderDTO;
+import com.example.backorders.dto.ProductOrdersPageDTO;
+import com.example.backorders.dto.StatusTransitionResultDTO;
+import com.example.backorders.dto.ProductStockDTO;
+import com.example.backorders.model.Order;
+import com.example.backorders.service.ProductStockService;
+import com.example.backorders.service.ShardedOrderService;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "back-orders.sharding.enabled=true",
+        "back-orders.sharding.urls=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1",
+        "back-orders.sharding.init-schema=true",
+        "spring.jpa.open-in-view=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ShardedOrderServiceIntegrationTest {
+
+    @Autowired
+    private ShardRouter router;
+
+    @Autowired
+    private ShardingConfig.ShardDataSources shards;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ShardedOrderService service;
+
+    @Autowired
+    private ProductStockService stockService;
+
+    private JdbcTemplate jdbc(int shard) {
+        return new JdbcTemplate(shards.dataSources().get(shard));
+    }
+
+    private void createProduct(int shard, long id, int stock) {
+        jdbc(shard).update("INSERT INTO products (id, name, price_cents, stock, version) VALUES (?, ?, ?, ?, 0)",
+                id, "producto-" + id, 1_000L, stock);
+    }
+
+    private Order createOrder(String userId, String status, long createdAt) {
+        return router.onUserShard(userId, () -> {
+            Order o = new Order();
+            o.setUserId(userId);
+            o.setStatus(status);
+            o.setTotalCents(1_000);
+            o.setCreatedAt(new Date(createdAt));
+            return orderRepository.save(o);
+        });
+    }
+
+    @Test
+    @DisplayName("Cada orden queda en el shard de su usuario y su id indica el shard")
+    void placementAndRouting() {
+        Map<Integer, Integer> expectedPerShard = new HashMap<>();
+        List<Order> created = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            String user = "placement-" + i;
+            Order o = createOrder(user, Order.STATUS_PENDING, 1_000_000L + i);
+            created.add(o);
+
+            int shard = router.shardForUser(user);
+            assertEquals(shard, router.shardForOrder(o.getId()), "el id no codifica el shard");
+            expectedPerShard.merge(shard, 1, Integer::sum);
+        }
+
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            Integer rows = new JdbcTemplate(shards.dataSources().get(shard)).queryForObject(
+                    "SELECT COUNT(*) FROM orders WHERE user_id LIKE 'placement-%'", Integer.class);
+            assertEquals(expectedPerShard.getOrDefault(shard, 0), rows, "shard " + shard);
+        }
+        assertTrue(expectedPerShard.size() > 1, "todas las órdenes cayeron en un solo shard");
+
+        for (Order o : created) {
+            Order found = service.getOrderById(o.getId()).orElseThrow();
+            assertEquals(o.getUserId(), found.getUserId());
+        }
+        assertTrue(service.getOrderById(99L << ShardRouter.SHARD_ID_BITS).isEmpty());
+    }
+
+    @Test
+    @DisplayName("El filtro de administración junta todos los shards ordenado por fecha")
+    void filterMergesShards() {
+        for (int i = 0; i < 12; i++) {
+            createOrder("filter-" + i, Order.STATUS_PENDING_DELIVERY, 5_000_000L + i);
+        }
+
+        List<OrderSummaryDTO> result = service.getOrdersByFilter(Order.STATUS_PENDING_DELIVERY, null, null);
+
+        assertEquals(12, result.size());
+        for (int i = 1; i < result.size(); i++) {
+            assertFalse(result.get(i).getFechaCreacion().after(result.get(i - 1).getFechaCreacion()));
+        }
+    }
+
+    @Test
+    @DisplayName("La transición en bloque se aplica en cada shard y respeta el orden pedido")
+    void bulkAcrossShards() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            ids.add(createOrder("bulk-" + i, Order.STATUS_PAID, 9_000_000L + i).getId());
+        }
+        ids.add(7L << ShardRouter.SHARD_ID_BITS);
+
+        BulkStatusUpdateResponseDTO response = service.bulkTransition(Order.STATUS_IN_DELIVERY, ids);
+
+        assertEquals(9, response.getApplied());
+        assertEquals(1, response.getRejected());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(ids.get(i), response.getResults().get(i).getOrderId());
+        }
+        assertEquals(StatusTransitionResultDTO.NOT_FOUND, response.getResults().get(9).getResult());
+        assertEquals(Order.STATUS_IN_DELIVERY, service.getOrderById(ids.get(0)).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Las órdenes por producto se paginan por id descendente sin repetir ni saltear entre shards")
+    void productOrdersPageByIdAcrossShards() {
+        long productId = 9_003L;
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            createProduct(shard, productId, 100);
+        }
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Order o = createOrder("by-product-" + i, Order.STATUS_PAID, 7_000_000L + i);
+            jdbc(router.shardForOrder(o.getId())).update(
+                    "INSERT INTO order_items (id, quantity, discount_cents, product_name, product_id, order_id) "
+                            + "VALUES (?, 1, 0, 'producto', ?, ?)", o.getId(), productId, o.getId());
+            expected.add(o.getId());
+        }
+        expected.sort(Comparator.reverseOrder());
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProductOrdersPageDTO page = service.getOrdersByProduct(productId, null, null, null, cursor, 3);
+            assertTrue(page.getOrders().size() <= 3);
+            page.getOrders().stream().map(ProductOrderDTO::getOrderId).forEach(seen::add);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    @DisplayName("El stock total se reparte entre los shards y la suma es el stock real")
+    void stockIsSplitAcrossShards() {
+        long productId = 9_001L;
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            createProduct(shard, productId, 10);
+        }
+
+        ProductStockDTO stock = stockService.setTotalStock(productId, 10).orElseThrow();
+
+        assertEquals(10, stock.getTotal());
+        assertEquals(List.of(4, 3, 3), stock.getPerShard());
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            Integer rows = jdbc(shard).queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, productId);
+            assertEquals(stock.getPerShard().get(shard), rows, "shard " + shard);
+        }
+    }
+
+    @Test
+    @DisplayName("Si el producto falta en un shard no se toca el stock de ninguno")
+    void stockSplitRequiresProductInEveryShard() {
+        long productId = 9_002L;
+        createProduct(0, productId, 7);
+        createProduct(1, productId, 7);
+
+        assertTrue(stockService.setTotalStock(productId, 30).isEmpty());
+        assertTrue(stockService.getStock(productId).isEmpty());
+        assertEquals(7, jdbc(0).queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, productId));
+        assertEquals(7, jdbc(1).queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, productId));
+        assertThrows(IllegalArgumentException.class, () -> stockService.setTotalStock(productId, -1));
+    }
+}